@@ -14,4 +14,9 @@ public interface Constants {
 	public static final double WORLD_VIEW_WIDTH = CUBE_SIZE * ((int) ((WINDOW_WIDTH - SIDEBAR_WIDTH - 50) / CUBE_SIZE));
 	public static final double WORLD_VIEW_HEIGHT = CUBE_SIZE * ((int) ((WINDOW_HEIGHT - 50) / CUBE_SIZE));
 
+	public static final double MAX_TIME_STEP = 0.20; // in-game seconds per update
+
+	public static final double SIMULATION_TIME_STEP = 0.02; // in-game seconds per update on the simulation thread
+	public static final double SIMULATION_MAX_LAG = 0.20; // seconds the simulation thread catches up on at most
+
 }
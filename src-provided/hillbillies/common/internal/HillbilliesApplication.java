@@ -125,8 +125,15 @@ public abstract class HillbilliesApplication<O extends HillbilliesOptions, F, V
 				scene.getStylesheets().add("resources/style.css");
 				stage.setScene(scene);
 				stage.centerOnScreen();
-				GameLoop loop = new GameLoop(game);
-				loop.setMaxTimeStep(0.20);
+				GameLoop loop;
+				if (options.simulationThreadEnabled().getValue()) {
+					loop = new GameLoop(game, Constants.SIMULATION_TIME_STEP, Constants.SIMULATION_MAX_LAG);
+					// user input is handled while the game is not being updated
+					scene.setEventDispatcher(loop.guard(scene.getEventDispatcher()));
+				} else {
+					loop = new GameLoop(game);
+					loop.setMaxTimeStep(Constants.MAX_TIME_STEP);
+				}
 				loop.start();
 			});
 
@@ -12,6 +12,7 @@ public class HillbilliesOptions extends Options {
 	public static final String ENABLE_REVERSE_SCROLL = "enable_rev_scroll";
 	public static final String ENABLE_GRID_COORDINATES = "enable_grid_coord";
 	public static final String PRINT_MODEL_EXCEPTIONS = "print_traces";
+	public static final String ENABLE_SIMULATION_THREAD = "enable_sim_thread";
 	
 	public HillbilliesOptions() {
 		addBooleanOption(ENABLE_BLUR, "Blur lower z-levels", true);
@@ -21,6 +22,7 @@ public class HillbilliesOptions extends Options {
 		addBooleanOption(ENABLE_GRID_COORDINATES, "Show grid coordinates", false);
 		addBooleanOption(ENABLE_REVERSE_SCROLL, "Reverse scroll direction", true);
 		addBooleanOption(PRINT_MODEL_EXCEPTIONS, "Print ModelException stack traces", true);
+		addBooleanOption(ENABLE_SIMULATION_THREAD, "Advance the game on a separate thread", true);
 	}
 
 	public Property<Boolean> blurEnabled() {
@@ -51,4 +53,8 @@ public class HillbilliesOptions extends Options {
 		return getBooleanValue(PRINT_MODEL_EXCEPTIONS);
 	}
 
+	public Property<Boolean> simulationThreadEnabled() {
+		return getBooleanValue(ENABLE_SIMULATION_THREAD);
+	}
+
 }
@@ -13,7 +13,7 @@ import hillbillies.part2.facade.IFacade;
 import hillbillies.part2.internal.Part2Options;
 import hillbillies.part2.internal.controller.GameControllerPart2;
 import hillbillies.part2.internal.map.GameMap;
-import hillbillies.part2.internal.map.GameMapReader;
+import hillbillies.part2.internal.map.StreamingGameMapReader;
 import hillbillies.part2.internal.ui.HillbilliesViewPart2;
 import hillbillies.part2.internal.ui.IHillbilliesView2;
 import hillbillies.part2.internal.ui.ViewProviders2;
@@ -43,7 +43,7 @@ public class Part2 extends HillbilliesApplication<Part2Options, IFacade, IHillbi
 	protected GameControllerPart2 createController(IFacade facade, Part2Options options) throws ModelException {
 		GameMap map = null;
 		try {
-			map = new GameMapReader().readFromResource(LEVELS_PATH + levelFilename);
+			map = new StreamingGameMapReader().readFromResource(LEVELS_PATH + levelFilename);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
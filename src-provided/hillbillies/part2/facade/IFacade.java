@@ -8,6 +8,7 @@ import hillbillies.model.World;
 import hillbillies.model.Boulder;
 import hillbillies.model.Log;
 
+import hillbillies.common.internal.map.IByteMap3D;
 import hillbillies.part2.listener.TerrainChangeListener;
 import ogp.framework.util.ModelException;
 
@@ -121,6 +122,62 @@ public interface IFacade extends hillbillies.part1.facade.IFacade {
 	 */
 	public World createWorld(int[][][] terrainTypes, TerrainChangeListener modelListener) throws ModelException;
 
+	/**
+	 * Create a new world of the given size with the terrain in the given flat array.
+	 * 
+	 * @param nbX
+	 *            The number of cubes of the world in the x-direction.
+	 * @param nbY
+	 *            The number of cubes of the world in the y-direction.
+	 * @param nbZ
+	 *            The number of cubes of the world in the z-direction.
+	 * @param terrainTypes
+	 *            The types of the terrain, encoded as in
+	 *            {@link #createWorld(int[][][], TerrainChangeListener)}, with the
+	 *            type of the cube at (x, y, z) at index x + nbX * (y + nbY * z).
+	 *            The world may keep this array as its own terrain storage.
+	 * @param modelListener
+	 *            As in {@link #createWorld(int[][][], TerrainChangeListener)}.
+	 * @return
+	 * @throws ModelException
+	 */
+	public default World createWorld(int nbX, int nbY, int nbZ, byte[] terrainTypes,
+			TerrainChangeListener modelListener) throws ModelException {
+		if ((long) nbX * nbY * nbZ != terrainTypes.length)
+			throw new ModelException("terrain does not match the size of the world");
+		int[][][] types = new int[nbX][nbY][nbZ];
+		for (int x = 0; x < nbX; x++)
+			for (int y = 0; y < nbY; y++)
+				for (int z = 0; z < nbZ; z++)
+					types[x][y][z] = terrainTypes[x + nbX * (y + nbY * z)];
+		return createWorld(types, modelListener);
+	}
+
+	/**
+	 * Create a new world with the terrain in the given map.
+	 * 
+	 * @param terrainTypes
+	 *            A map with the types of the terrain, encoded as in
+	 *            {@link #createWorld(int[][][], TerrainChangeListener)}. The
+	 *            world may share the storage of this map, if it has one.
+	 * @param modelListener
+	 *            As in {@link #createWorld(int[][][], TerrainChangeListener)}.
+	 * @return
+	 * @throws ModelException
+	 */
+	public default World createWorld(IByteMap3D terrainTypes, TerrainChangeListener modelListener)
+			throws ModelException {
+		int nbX = terrainTypes.getNbX();
+		int nbY = terrainTypes.getNbY();
+		int nbZ = terrainTypes.getNbZ();
+		byte[] types = new byte[nbX * nbY * nbZ];
+		for (int z = 0; z < nbZ; z++)
+			for (int y = 0; y < nbY; y++)
+				for (int x = 0; x < nbX; x++)
+					types[x + nbX * (y + nbY * z)] = terrainTypes.getValue(x, y, z);
+		return createWorld(nbX, nbY, nbZ, types, modelListener);
+	}
+
 	/**
 	 * Return the number of cubes in the world in the x-direction.
 	 * 
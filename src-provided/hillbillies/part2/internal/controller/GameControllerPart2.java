@@ -1,22 +1,21 @@
 package hillbillies.part2.internal.controller;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import hillbillies.common.internal.controller.GameController;
 import hillbillies.common.internal.inputmodes.InputMode;
 import hillbillies.common.internal.selection.Selection;
-import hillbillies.model.Boulder;
 import hillbillies.model.Faction;
-import hillbillies.model.Log;
+import hillbillies.model.Position;
 import hillbillies.model.Unit;
 import hillbillies.model.World;
+import hillbillies.model.WorldSnapshot;
+import hillbillies.model.WorldSnapshot.UnitState;
 import hillbillies.part2.facade.IFacade;
 import hillbillies.part2.internal.Constants;
 import hillbillies.part2.internal.Part2Options;
@@ -36,8 +35,23 @@ public class GameControllerPart2 extends GameController<IHillbilliesView2> imple
 	private final GameMap map;
 
 	private final Set<TerrainChangeListener> listeners = new HashSet<>();
+
+	/**
+	 * The snapshot of the world that is displayed; the display only reads the
+	 * world through it, so the world can be advanced on another thread.
+	 */
+	private WorldSnapshot displayedSnapshot;
+
 	private TerrainChangeListener modelListener = new TerrainChangeListener() {
 
+		@Override
+		public void notifyTerrainChanged(int x, int y, int z) {
+			// terrain changes are found by comparing snapshots, when the display is prepared
+		}
+	};
+
+	private final TerrainChangeListener displayListener = new TerrainChangeListener() {
+
 		@Override
 		public void notifyTerrainChanged(int x, int y, int z) {
 			for (TerrainChangeListener listener : new HashSet<>(listeners)) {
@@ -50,18 +64,10 @@ public class GameControllerPart2 extends GameController<IHillbilliesView2> imple
 		super(facade, options);
 		this.map = map;
 
-		int[][][] types = new int[map.getNbTilesX()][map.getNbTilesY()][map.getNbTilesZ()];
-
-		for (int x = 0; x < types.length; x++) {
-			for (int y = 0; y < types[x].length; y++) {
-				for (int z = 0; z < types[x][y].length; z++) {
-					CubeType type = map.getTypeAt(x, y, z);
-					types[x][y][z] = type.getByteValue();
-				}
-			}
-		}
-
-		world = facade.createWorld(types, modelListener);
+		// the world may take over the storage of the map, so the map follows the terrain
+		world = facade.createWorld(map.getMap(), modelListener);
+		world.setPublishingSnapshots(true);
+		displayedSnapshot = world.getSnapshot();
 
 		getSelectionProvider().addListener(e -> selectionUpdated());
 	}
@@ -105,40 +111,24 @@ public class GameControllerPart2 extends GameController<IHillbilliesView2> imple
 
 		@Override
 		public int getNbZTiles() {
-			try {
-				return getFacade().getNbCubesZ(world);
-			} catch (ModelException e) {
-				handleError(e);
-				return 50;
-			}
+			return getDisplayedSnapshot().getNbCubesZ();
 		}
 
 		@Override
 		public int getNbYTiles() {
-			try {
-				return getFacade().getNbCubesY(world);
-			} catch (ModelException e) {
-				handleError(e);
-				return 50;
-			}
+			return getDisplayedSnapshot().getNbCubesY();
 		}
 
 		@Override
 		public int getNbXTiles() {
-			try {
-				return getFacade().getNbCubesX(world);
-			} catch (ModelException e) {
-				handleError(e);
-				return 50;
-			}
+			return getDisplayedSnapshot().getNbCubesX();
 		}
 
 		@Override
 		public CubeType getCubeTypeAt(int x, int y, int z) {
 			try {
-				CubeType result = CubeType.fromByte((byte) getFacade().getCubeType(world, x, y, z));
-				return result;
-			} catch (ModelException e) {
+				return CubeType.fromByte((byte) getDisplayedSnapshot().getCubeType(x, y, z));
+			} catch (ArrayIndexOutOfBoundsException e) {
 				return CubeType.EMPTY;
 			}
 		};
@@ -146,53 +136,70 @@ public class GameControllerPart2 extends GameController<IHillbilliesView2> imple
 		@Override
 		public boolean isAnchored(int x, int y, int z) {
 			try {
-				return getFacade().isSolidConnectedToBorder(world, x, y, z);
-			} catch (ModelException e) {
-				handleError(e);
+				return getDisplayedSnapshot().isSolidConnectedToBorder(x, y, z);
+			} catch (ArrayIndexOutOfBoundsException e) {
+				return false;
 			}
-			return false;
 		};
 
 		@Override
 		public Set<?> getObjectsInBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+			final double[] min = new double[] { minX, minY, minZ };
+			final double[] max = new double[] { maxX, maxY, maxZ };
 			Set<Object> result = new HashSet<>();
-			result.addAll(getObjectsOfTypeInBox(Unit.class, minX, minY, minZ, maxX, maxY, maxZ, getFacade()::getUnits,
-					getFacade()::isAlive, getFacade()::getPosition));
-			result.addAll(getObjectsOfTypeInBox(Boulder.class, minX, minY, minZ, maxX, maxY, maxZ,
-					getFacade()::getBoulders, b -> true, getFacade()::getPosition));
-			result.addAll(getObjectsOfTypeInBox(Log.class, minX, minY, minZ, maxX, maxY, maxZ, getFacade()::getLogs,
-					l -> true, getFacade()::getPosition));
+			WorldSnapshot snapshot = getDisplayedSnapshot();
+			int lowX = (int) Math.floor(minX), lowY = (int) Math.floor(minY), lowZ = (int) Math.floor(minZ);
+			int highX = (int) Math.floor(maxX) + 1, highY = (int) Math.floor(maxY) + 1,
+					highZ = (int) Math.floor(maxZ) + 1;
+			snapshot.forEachUnitInCubes(lowX, lowY, lowZ, highX, highY, highZ, unit -> {
+				UnitState state = snapshot.getState(unit);
+				if (state.isAlive() && liesInBox(state.getPosition().getDoubleCoordinates(), min, max)) {
+					result.add(unit);
+				}
+			});
+			snapshot.forEachMaterialInCubes(lowX, lowY, lowZ, highX, highY, highZ, (material, position) -> {
+				if (liesInBox(position.getDoubleCoordinates(), min, max)) {
+					result.add(material);
+				}
+			});
 			return result;
 		}
 
-	};
+		@Override
+		public Set<?> getObjectsInColumns(int minX, int minY, int maxX, int maxY, int[][] lowestZ, int maxZ) {
+			Set<Object> result = new HashSet<>();
+			WorldSnapshot snapshot = getDisplayedSnapshot();
+			int minZ = maxZ;
+			for (int[] column : lowestZ) {
+				for (int z : column) {
+					minZ = Math.min(minZ, z);
+				}
+			}
+			snapshot.forEachUnitInCubes(minX, minY, minZ, maxX, maxY, maxZ, unit -> {
+				UnitState state = snapshot.getState(unit);
+				if (state.isAlive() && liesInColumns(state.getPosition(), minX, minY, maxX, maxY, lowestZ, maxZ)) {
+					result.add(unit);
+				}
+			});
+			snapshot.forEachMaterialInCubes(minX, minY, minZ, maxX, maxY, maxZ, (material, position) -> {
+				if (liesInColumns(position, minX, minY, maxX, maxY, lowestZ, maxZ)) {
+					result.add(material);
+				}
+			});
+			return result;
+		}
 
-	@FunctionalInterface
-	private static interface MEFunction<T, R> {
-		public R apply(T obj) throws ModelException;
-	}
+	};
 
-	protected <T> Set<T> getObjectsOfTypeInBox(Class<T> type, double minX, double minY, double minZ, double maxX,
-			double maxY, double maxZ, MEFunction<World, Set<T>> objects, MEFunction<T, Boolean> isAlive,
-			MEFunction<T, double[]> position) {
-		try {
-			Set<T> objs = objects.apply(world);
-			if (objs != null) {
-				final double[] min = new double[] { minX, minY, minZ };
-				final double[] max = new double[] { maxX, maxY, maxZ };
-				return objs.stream().filter(o -> {
-					try {
-						return isAlive.apply(o) && liesInBox(position.apply(o), min, max);
-					} catch (ModelException e) {
-						handleError(e);
-						return false;
-					}
-				}).collect(Collectors.toSet());
-			}
-		} catch (ModelException e) {
-			handleError(e);
+	protected static boolean liesInColumns(Position position, int minX, int minY, int maxX, int maxY,
+			int[][] lowestZ, int maxZ) {
+		if (position == null || position.getDoubleX() < minX || position.getDoubleX() >= maxX
+				|| position.getDoubleY() < minY || position.getDoubleY() >= maxY) {
+			return false;
 		}
-		return Collections.emptySet();
+		int x = (int) position.getDoubleX();
+		int y = (int) position.getDoubleY();
+		return lowestZ[x - minX][y - minY] <= position.getDoubleZ() && position.getDoubleZ() < maxZ;
 	}
 
 	protected static boolean liesInBox(double[] position, double[] low, double[] high) {
@@ -224,20 +231,43 @@ public class GameControllerPart2 extends GameController<IHillbilliesView2> imple
 	public void updateGame(double dt) {
 		try {
 			getFacade().advanceTime(world, dt);
-			deselectDeadUnit();
 		} catch (ModelException e) {
 			handleError(e);
 		}
 	}
 
-	protected void deselectDeadUnit() {
+	/**
+	 * Displays the last snapshot the world published, passing on the terrain
+	 * changes since the snapshot displayed before.
+	 */
+	@Override
+	public void prepareDisplay() {
+		WorldSnapshot previous = displayedSnapshot;
+		displayedSnapshot = world.getSnapshot();
+		displayedSnapshot.forEachTerrainChangeSince(previous, displayListener);
+		deselectDeadUnit(previous);
+	}
+
+	@Override
+	public boolean isDisplayedFromSnapshots() {
+		return true;
+	}
+
+	@Override
+	public WorldSnapshot getDisplayedSnapshot() {
+		return displayedSnapshot;
+	}
+
+	/**
+	 * Clears the selection if the selected unit died, i.e. it is displayed as
+	 * dead or it left the world since the given previously displayed snapshot. A
+	 * unit that did not make it into a snapshot yet stays selected.
+	 */
+	protected void deselectDeadUnit(WorldSnapshot previous) {
 		getSelectedUnit().ifPresent(unit -> {
-			try {
-				if (!getFacade().isAlive(unit)) {
-					getSelectionProvider().getSelection().clear();
-				}
-			} catch (ModelException e) {
-				handleError(e);
+			UnitState state = displayedSnapshot.getState(unit);
+			if (state == null ? previous != null && previous.getState(unit) != null : !state.isAlive()) {
+				getSelectionProvider().getSelection().clear();
 			}
 		});
 	}
@@ -1,16 +1,26 @@
 package hillbillies.part2.internal.controller;
 
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import hillbillies.model.Boulder;
 import hillbillies.model.Faction;
 import hillbillies.model.Log;
+import hillbillies.model.Material;
+import hillbillies.model.Position;
+import hillbillies.model.State;
 import hillbillies.model.Unit;
+import hillbillies.model.WorldSnapshot;
+import hillbillies.model.WorldSnapshot.UnitState;
 import hillbillies.part1.internal.controller.UnitInfoProviderPart1;
 import hillbillies.part2.facade.IFacade;
 import hillbillies.part2.internal.providers.IGameObjectInfoProvider;
 import ogp.framework.util.ModelException;
 
+/**
+ * Provides the state of the game objects from the displayed snapshot of the
+ * world, so the display never reads the world while it is being advanced.
+ */
 public class GameObjectInfoProvider extends UnitInfoProviderPart1 implements IGameObjectInfoProvider {
 
 	public GameObjectInfoProvider(IGameController2 game, Consumer<ModelException> errorHandler) {
@@ -27,44 +37,152 @@ public class GameObjectInfoProvider extends UnitInfoProviderPart1 implements IGa
 		return (IFacade) super.getFacade();
 	}
 
+	protected WorldSnapshot getSnapshot() {
+		return getGame().getDisplayedSnapshot();
+	}
+
+	/**
+	 * Returns the displayed state of the given unit, or null if it is not part of
+	 * the displayed world.
+	 */
+	protected UnitState getState(Unit unit) {
+		return getSnapshot().getState(unit);
+	}
+
+	@Override
+	public boolean isDefaultBehaviorEnabled(Unit unit) {
+		UnitState state = getState(unit);
+		return state != null && state.isDefaultBehaviorEnabled();
+	}
+
+	@Override
+	public int getHitpoints(Unit unit) {
+		UnitState state = getState(unit);
+		return state == null ? -1 : (int) state.getCurrentHitPoints();
+	}
+
+	@Override
+	public int getMaxHitpoints(Unit unit) {
+		UnitState state = getState(unit);
+		return state == null ? -1 : (int) state.getMaxHitPoints();
+	}
+
+	@Override
+	public int getStaminapoints(Unit unit) {
+		UnitState state = getState(unit);
+		return state == null ? -1 : (int) state.getCurrentStaminaPoints();
+	}
+
+	@Override
+	public int getMaxStaminapoints(Unit unit) {
+		UnitState state = getState(unit);
+		return state == null ? -1 : (int) state.getMaxStaminaPoints();
+	}
+
+	@Override
+	public String getName(Unit unit) {
+		UnitState state = getState(unit);
+		return state == null ? "" : state.getName();
+	}
+
+	@Override
+	public boolean isWorking(Unit unit) {
+		UnitState state = getState(unit);
+		return state != null && state.getState() == State.WORKING;
+	}
+
+	@Override
+	public boolean isWalking(Unit unit) {
+		UnitState state = getState(unit);
+		return state != null && state.getState() == State.MOVING;
+	}
+
+	@Override
+	public boolean isResting(Unit unit) {
+		UnitState state = getState(unit);
+		return state != null && state.getState() == State.RESTING;
+	}
+
+	@Override
+	public boolean isAttacking(Unit unit) {
+		UnitState state = getState(unit);
+		return state != null && state.getState() == State.ATTACKING;
+	}
+
+	@Override
+	public boolean isSprinting(Unit unit) {
+		UnitState state = getState(unit);
+		return state != null && state.isSprinting();
+	}
+
+	@Override
+	public int getOrientationInDegrees(Unit unit) {
+		UnitState state = getState(unit);
+		if (state == null)
+			return 0;
+		return (int) ((180.0 * state.getOrientation() / Math.PI) + 360) % 360;
+	}
+
+	@Override
+	public Optional<double[]> getPosition(Unit unit) {
+		UnitState state = getState(unit);
+		if (state == null)
+			return Optional.empty();
+		return Optional.of(state.getPosition().getDoubleCoordinates());
+	}
+
+	@Override
+	public double getSpeed(Unit unit) {
+		UnitState state = getState(unit);
+		return state == null ? Double.NaN : state.getCurrentSpeed();
+	}
+
+	@Override
+	public int getAgility(Unit unit) {
+		UnitState state = getState(unit);
+		return state == null ? -1 : (int) state.getAgility();
+	}
+
+	@Override
+	public int getStrength(Unit unit) {
+		UnitState state = getState(unit);
+		return state == null ? -1 : (int) state.getStrength();
+	}
+
+	@Override
+	public int getToughness(Unit unit) {
+		UnitState state = getState(unit);
+		return state == null ? -1 : (int) state.getToughness();
+	}
+
+	@Override
+	public int getWeight(Unit unit) {
+		UnitState state = getState(unit);
+		return state == null ? -1 : (int) state.getWeight();
+	}
+
 	@Override
 	public int getExperiencePoints(Unit unit) {
-		try {
-			return getFacade().getExperiencePoints(unit);
-		} catch (ModelException e) {
-			handleError(e);
-		}
-		return -1;
+		UnitState state = getState(unit);
+		return state == null ? -1 : state.getCurrentExperiencePoints();
 	}
 
 	@Override
 	public boolean isCarryingLog(Unit unit) {
-		try {
-			return getFacade().isCarryingLog(unit);
-		} catch (ModelException e) {
-			handleError(e);
-		}
-		return false;
+		UnitState state = getState(unit);
+		return state != null && state.isCarryingLog();
 	}
 
 	@Override
 	public boolean isCarryingBoulder(Unit unit) {
-		try {
-			return getFacade().isCarryingBoulder(unit);
-		} catch (ModelException e) {
-			handleError(e);
-		}
-		return false;
+		UnitState state = getState(unit);
+		return state != null && state.isCarryingBoulder();
 	}
 
 	@Override
 	public Faction getFaction(Unit unit) {
-		try {
-			return getFacade().getFaction(unit);
-		} catch (ModelException e) {
-			handleError(e);
-		}
-		return null;
+		UnitState state = getState(unit);
+		return state == null ? null : state.getFaction();
 	}
 
 	@Override
@@ -79,21 +197,16 @@ public class GameObjectInfoProvider extends UnitInfoProviderPart1 implements IGa
 
 	@Override
 	public double[] getPosition(Boulder object) {
-		try {
-			return getFacade().getPosition(object);
-		} catch (ModelException e) {
-			handleError(e);
-		}
-		return null;
+		return getPosition((Material) object);
 	}
 
 	@Override
 	public double[] getPosition(Log object) {
-		try {
-			return getFacade().getPosition(object);
-		} catch (ModelException e) {
-			handleError(e);
-		}
-		return null;
+		return getPosition((Material) object);
+	}
+
+	private double[] getPosition(Material material) {
+		Position position = getSnapshot().getPosition(material);
+		return position == null ? null : position.getDoubleCoordinates();
 	}
 }
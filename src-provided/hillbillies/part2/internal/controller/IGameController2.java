@@ -3,6 +3,7 @@ package hillbillies.part2.internal.controller;
 import hillbillies.model.Faction;
 import hillbillies.model.Unit;
 import hillbillies.model.World;
+import hillbillies.model.WorldSnapshot;
 import hillbillies.part1.internal.controller.IGameController1;
 import hillbillies.part2.facade.IFacade;
 import hillbillies.part2.internal.Part2Options;
@@ -19,6 +20,12 @@ public interface IGameController2 extends IGameController1<IHillbilliesView2> {
 
 	World getWorld();
 
+	/**
+	 * Returns the snapshot of the world that is displayed. It only changes when
+	 * the display is prepared, so a whole frame is drawn from the same state.
+	 */
+	WorldSnapshot getDisplayedSnapshot();
+
 	void spawnUnits(int n);
 
 	boolean isPlayerUnit(Unit u);
@@ -0,0 +1,42 @@
+package hillbillies.part2.internal.map;
+
+/**
+ * For internal use only.
+ *
+ * Constants of the binary map format read by {@link BinaryGameMapReader} and
+ * written by {@link BinaryGameMapWriter}.
+ *
+ * A binary map starts with a header:
+ * <ul>
+ * <li>the four magic bytes 'H', 'B', 'W', 'M';</li>
+ * <li>one byte with the version of the format;</li>
+ * <li>one byte of flags, where {@link #FLAG_DEFLATE} means that the terrain is
+ * deflate-compressed;</li>
+ * <li>the number of cubes in the x-, y- and z-direction, as big-endian ints.</li>
+ * </ul>
+ * The terrain follows as runs of cubes of the same type, in the order of the
+ * indices z * nbX * nbY + y * nbX + x: every run is the type byte followed by the
+ * length of the run as an unsigned LEB128 number.
+ */
+public final class BinaryGameMapFormat {
+
+	private BinaryGameMapFormat() {
+	}
+
+	public static final String FILE_EXTENSION = ".hbw";
+
+	static final byte[] MAGIC = { 'H', 'B', 'W', 'M' };
+
+	static final int VERSION = 1;
+
+	static final int FLAG_DEFLATE = 1;
+
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Returns whether the given byte is the code of a cube type.
+	 */
+	static boolean isValidType(byte type) {
+		return 0 <= type && type < CubeType.values().length;
+	}
+}
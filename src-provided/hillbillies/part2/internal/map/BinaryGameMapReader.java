@@ -0,0 +1,91 @@
+package hillbillies.part2.internal.map;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import ogp.framework.util.internal.ResourceUtils;
+
+/**
+ * For internal use only.
+ *
+ * Reads maps in the binary format described by {@link BinaryGameMapFormat}. The
+ * runs of the terrain are filled in straight into the storage of the resulting map.
+ */
+public class BinaryGameMapReader {
+
+	public GameMap readFromFile(String filename) throws IOException {
+		return readFromStream(new FileInputStream(filename));
+	}
+
+	public GameMap readFromResource(String resourceURI) throws IOException {
+		return readFromStream(ResourceUtils.openResource(resourceURI));
+	}
+
+	public GameMap readFromStream(InputStream stream) throws IOException {
+		try (DataInputStream header = new DataInputStream(
+				new BufferedInputStream(stream, BinaryGameMapFormat.BUFFER_SIZE))) {
+			byte[] magic = new byte[BinaryGameMapFormat.MAGIC.length];
+			header.readFully(magic);
+			if (!Arrays.equals(magic, BinaryGameMapFormat.MAGIC))
+				throw new IllegalArgumentException("Not a binary map");
+			int version = header.readUnsignedByte();
+			if (version != BinaryGameMapFormat.VERSION)
+				throw new IllegalArgumentException("Unsupported version: " + version);
+			int flags = header.readUnsignedByte();
+			int nbX = header.readInt();
+			int nbY = header.readInt();
+			int nbZ = header.readInt();
+			if (nbX < 0 || nbY < 0 || nbZ < 0 || (long) nbX * nbY * nbZ > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("Invalid dimensions: " + nbX + " " + nbY + " " + nbZ);
+			byte[] types = new byte[nbX * nbY * nbZ];
+			if ((flags & BinaryGameMapFormat.FLAG_DEFLATE) != 0) {
+				Inflater inflater = new Inflater();
+				try {
+					readRuns(new BufferedInputStream(new InflaterInputStream(header, inflater,
+							BinaryGameMapFormat.BUFFER_SIZE), BinaryGameMapFormat.BUFFER_SIZE), types);
+				} finally {
+					inflater.end();
+				}
+			} else {
+				readRuns(header, types);
+			}
+			return new GameMap(new ByteMap3D(nbX, nbY, nbZ, types));
+		}
+	}
+
+	private static void readRuns(InputStream in, byte[] types) throws IOException {
+		int start = 0;
+		while (start < types.length) {
+			byte type = (byte) readByte(in);
+			if (!BinaryGameMapFormat.isValidType(type))
+				throw new IllegalArgumentException("Unknown type: " + type);
+			int length = 0;
+			for (int shift = 0;; shift += 7) {
+				int b = readByte(in);
+				if (shift > 28)
+					throw new IllegalArgumentException("Run too long");
+				length |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					break;
+			}
+			if (length <= 0 || length > types.length - start)
+				throw new IllegalArgumentException("Invalid run length: " + length);
+			Arrays.fill(types, start, start + length, type);
+			start += length;
+		}
+	}
+
+	private static int readByte(InputStream in) throws IOException {
+		int b = in.read();
+		if (b < 0)
+			throw new EOFException("Unexpected end of file");
+		return b;
+	}
+}
@@ -0,0 +1,77 @@
+package hillbillies.part2.internal.map;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * For internal use only.
+ *
+ * Writes maps in the binary format described by {@link BinaryGameMapFormat}.
+ */
+public class BinaryGameMapWriter {
+
+	public BinaryGameMapWriter() {
+		this(true);
+	}
+
+	/**
+	 * Creates a writer that deflates the terrain if and only if the given flag is set.
+	 */
+	public BinaryGameMapWriter(boolean deflate) {
+		this.deflate = deflate;
+	}
+
+	private final boolean deflate;
+
+	public void writeToFile(GameMap map, String filename) throws IOException {
+		writeToStream(map, new FileOutputStream(filename));
+	}
+
+	public void writeToStream(GameMap map, OutputStream stream) throws IOException {
+		ByteMap3D bytes = map.getMap();
+		try (DataOutputStream header = new DataOutputStream(
+				new BufferedOutputStream(stream, BinaryGameMapFormat.BUFFER_SIZE))) {
+			header.write(BinaryGameMapFormat.MAGIC);
+			header.writeByte(BinaryGameMapFormat.VERSION);
+			header.writeByte(deflate ? BinaryGameMapFormat.FLAG_DEFLATE : 0);
+			header.writeInt(bytes.getNbX());
+			header.writeInt(bytes.getNbY());
+			header.writeInt(bytes.getNbZ());
+			if (deflate) {
+				Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+				DeflaterOutputStream body = new DeflaterOutputStream(header, deflater,
+						BinaryGameMapFormat.BUFFER_SIZE);
+				writeRuns(bytes.getValues(), body);
+				body.finish();
+				deflater.end();
+			} else {
+				writeRuns(bytes.getValues(), header);
+			}
+		}
+	}
+
+	private static void writeRuns(byte[] values, OutputStream out) throws IOException {
+		int start = 0;
+		while (start < values.length) {
+			byte type = values[start];
+			if (!BinaryGameMapFormat.isValidType(type))
+				throw new IllegalArgumentException("Unknown type: " + type);
+			int end = start + 1;
+			while (end < values.length && values[end] == type)
+				end++;
+			out.write(type);
+			int length = end - start;
+			while ((length & ~0x7F) != 0) {
+				out.write((length & 0x7F) | 0x80);
+				length >>>= 7;
+			}
+			out.write(length);
+			start = end;
+		}
+	}
+}
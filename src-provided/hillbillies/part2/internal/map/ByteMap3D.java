@@ -26,6 +26,28 @@ public class ByteMap3D implements IByteMap3D {
 			tileTypes[i] = -1;
 	}
 
+	/**
+	 * Creates a map of the given size that uses the given array, indexed by
+	 * z * nbX * nbY + y * nbX + x, as its storage.
+	 */
+	ByteMap3D(int nbX, int nbY, int nbZ, byte[] tileTypes) {
+		if (tileTypes.length != nbX * nbY * nbZ)
+			throw new IllegalArgumentException("Expected " + nbX * nbY * nbZ + " values");
+		this.nbX = nbX;
+		this.nbY = nbY;
+		this.nbZ = nbZ;
+		this.nbXY = nbX * nbY;
+		this.tileTypes = tileTypes;
+	}
+
+	/**
+	 * Returns the array backing this map, indexed by z * nbX * nbY + y * nbX + x.
+	 * Writing to it does not notify the listeners of this map.
+	 */
+	public byte[] getValues() {
+		return tileTypes;
+	}
+
 	@Override
 	public int getNbX() {
 		return nbX;
@@ -18,6 +18,10 @@ public class GameMap {
 		this.map = new ByteMap3D(nbTilesX, nbTilesY, nbTilesZ);
 	}
 
+	GameMap(ByteMap3D map) {
+		this.map = map;
+	}
+
 	public ByteMap3D getMap() {
 		return map;
 	}
@@ -0,0 +1,32 @@
+package hillbillies.part2.internal.map;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * For internal use only.
+ *
+ * Converts the .wrld maps in a directory to the binary map format, next to the
+ * original files.
+ *
+ * Usage: GameMapConverter [directory] (defaults to src-provided/resources).
+ */
+public class GameMapConverter {
+
+	public static void main(String[] args) throws IOException {
+		File[] files = new File(args.length > 0 ? args[0] : "src-provided/resources").listFiles();
+		if (files == null)
+			throw new IOException("Not a directory");
+		for (File file : files) {
+			String name = file.getPath();
+			if (!name.endsWith(".wrld"))
+				continue;
+			String target = name.substring(0, name.length() - ".wrld".length())
+					+ BinaryGameMapFormat.FILE_EXTENSION;
+			GameMap map = new StreamingGameMapReader().readFromFile(name);
+			new BinaryGameMapWriter().writeToFile(map, target);
+			System.out.println(String.format("%-14s %9d bytes -> %7d bytes", file.getName(), file.length(),
+					new File(target).length()));
+		}
+	}
+}
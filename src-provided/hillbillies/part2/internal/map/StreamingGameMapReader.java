@@ -0,0 +1,240 @@
+package hillbillies.part2.internal.map;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import ogp.framework.util.internal.ResourceUtils;
+
+/**
+ * For internal use only.
+ *
+ * Reads .wrld files in the same format as {@link GameMapReader}, but decodes the
+ * bytes of the file straight into the storage of the resulting map, without
+ * creating strings for lines or cubes. Files are memory-mapped; other resources
+ * are streamed through a fixed-size buffer.
+ */
+public class StreamingGameMapReader {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The cube type codes of the characters of a .wrld file, or -1 for characters
+	 * that do not denote a cube type.
+	 */
+	private static final byte[] CODES = new byte[256];
+
+	static {
+		for (int i = 0; i < CODES.length; i++)
+			CODES[i] = -1;
+		CODES['.'] = CubeType.EMPTY.getByteValue();
+		CODES['R'] = CubeType.ROCKS.getByteValue();
+		CODES['S'] = CubeType.TREES.getByteValue();
+		CODES['W'] = CubeType.WORKSHOP.getByteValue();
+	}
+
+	public GameMap readFromFile(String filename) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			Decoder decoder = new Decoder();
+			decoder.decode(buffer);
+			return decoder.finish();
+		}
+	}
+
+	public GameMap readFromStream(InputStream stream) throws IOException {
+		try (InputStream input = stream) {
+			byte[] chunk = new byte[BUFFER_SIZE];
+			ByteBuffer buffer = ByteBuffer.wrap(chunk);
+			Decoder decoder = new Decoder();
+			int read;
+			while (!decoder.isDone() && (read = input.read(chunk)) >= 0) {
+				buffer.clear();
+				buffer.limit(read);
+				decoder.decode(buffer);
+			}
+			return decoder.finish();
+		}
+	}
+
+	public GameMap readFromResource(String resourceURI) throws IOException {
+		URL url = ResourceUtils.toURL(resourceURI);
+		if ("file".equals(url.getProtocol())) {
+			try {
+				return readFromFile(new File(url.toURI()).getPath());
+			} catch (URISyntaxException e) {
+				// fall back to streaming the resource
+			}
+		}
+		return readFromStream(ResourceUtils.openResource(url));
+	}
+
+	/**
+	 * Decodes the bytes of a .wrld file, in as many pieces as they come in. The
+	 * first line holds the dimensions; then, for every z from the top down, an
+	 * empty line is followed by one line per y, with one character per x.
+	 */
+	private static final class Decoder {
+
+		private static final int HEADER = 0;
+		private static final int SEPARATOR = 1;
+		private static final int ROW = 2;
+		private static final int DONE = 3;
+
+		private int stage = HEADER;
+
+		private final int[] dims = new int[3];
+		private int nbDims = 0;
+		private boolean inNumber = false;
+
+		private byte[] types;
+		private int nbX, nbY, nbZ;
+		private int y, z;
+
+		/**
+		 * The number of characters of the current line that are not leading
+		 * whitespace, and whether trailing whitespace was seen on it.
+		 */
+		private int column = 0;
+		private boolean trailing = false;
+
+		boolean isDone() {
+			return stage == DONE;
+		}
+
+		void decode(ByteBuffer buffer) throws IOException {
+			int limit = buffer.limit();
+			for (int i = buffer.position(); i < limit && stage != DONE; i++) {
+				byte b = buffer.get(i);
+				if (b == '\n') {
+					endLine();
+				} else if (b == '\r' || b == ' ' || b == '\t') {
+					if (stage == HEADER) {
+						inNumber = false;
+					} else if (column > 0) {
+						trailing = true;
+					}
+				} else {
+					accept(b);
+				}
+			}
+		}
+
+		private void accept(byte b) {
+			switch (stage) {
+			case HEADER:
+				if (b < '0' || b > '9')
+					throw new IllegalArgumentException("Invalid dimension character: " + (char) b);
+				if (!inNumber) {
+					inNumber = true;
+					nbDims++;
+				}
+				if (nbDims <= 3)
+					dims[nbDims - 1] = dims[nbDims - 1] * 10 + (b - '0');
+				break;
+			case SEPARATOR:
+				throw new IllegalArgumentException("Expected empty line");
+			case ROW:
+				byte code = CODES[b & 0xFF];
+				if (code < 0 || trailing)
+					throw new IllegalArgumentException("Unknown type: " + (trailing ? ' ' : (char) b));
+				if (column >= nbX)
+					throw new IllegalArgumentException(
+							"Line too long; for z=" + z + " and y = " + y + ", expected " + nbX + " characters.");
+				types[(z * nbY + y) * nbX + column] = code;
+				column++;
+				break;
+			default:
+				break;
+			}
+		}
+
+		private void endLine() throws EOFException {
+			switch (stage) {
+			case HEADER:
+				if (nbDims < 3)
+					throw new IllegalArgumentException("Expected three dimensions");
+				nbX = dims[0];
+				nbY = dims[1];
+				nbZ = dims[2];
+				types = new byte[nbX * nbY * nbZ];
+				z = nbZ - 1;
+				stage = z >= 0 ? SEPARATOR : DONE;
+				break;
+			case SEPARATOR:
+				y = 0;
+				stage = nbY > 0 ? ROW : nextLayer();
+				break;
+			case ROW:
+				if (column != nbX)
+					throw new EOFException("Unexpected end of line; for z=" + z + " and y = " + y
+							+ ", only have " + column + " characters.");
+				y++;
+				if (y == nbY)
+					stage = nextLayer();
+				break;
+			default:
+				break;
+			}
+			column = 0;
+			trailing = false;
+		}
+
+		private int nextLayer() {
+			z--;
+			return z >= 0 ? SEPARATOR : DONE;
+		}
+
+		GameMap finish() throws EOFException {
+			if (stage != DONE && (column > 0 || stage == HEADER))
+				endLine();
+			if (stage == HEADER || stage == SEPARATOR)
+				throw new EOFException("Unexpected end of file; no data for z=" + z);
+			if (stage == ROW)
+				throw new EOFException("Unexpected end of file; no data for z=" + z + " and y = " + y);
+			return new GameMap(new ByteMap3D(nbX, nbY, nbZ, types));
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		File[] files = new File(args.length > 0 ? args[0] : "src-provided/resources").listFiles();
+		if (files == null)
+			throw new IOException("Not a directory");
+		for (File file : files) {
+			if (!file.getName().endsWith(".wrld"))
+				continue;
+			String name = file.getPath();
+			double legacy = measure(() -> new GameMapReader().readFromFile(name), file.length());
+			double mapped = measure(() -> new StreamingGameMapReader().readFromFile(name), file.length());
+			System.out.println(String.format("%-14s %8.1f MB/s (GameMapReader) %8.1f MB/s (streaming)",
+					file.getName(), legacy, mapped));
+		}
+	}
+
+	private interface Load {
+		GameMap load() throws IOException;
+	}
+
+	/**
+	 * Returns the throughput, in MB/s, of loading a file of the given length with
+	 * the given load, after some warm-up.
+	 */
+	private static double measure(Load load, long length) throws IOException {
+		for (int i = 0; i < 5; i++)
+			load.load();
+		int rounds = 20;
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++)
+			load.load();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		return rounds * length / 1e6 / seconds;
+	}
+}
@@ -1,5 +1,8 @@
 package hillbillies.part2.internal.providers;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import hillbillies.common.internal.providers.WorldInfoProvider;
 import hillbillies.part2.internal.map.CubeType;
 import hillbillies.part2.listener.TerrainChangeListener;
@@ -11,4 +14,32 @@ public interface WorldInfoProvider2 extends WorldInfoProvider {
 	public void removeTerrainChangeListener(TerrainChangeListener listener);
 
 	public boolean isAnchored(int x, int y, int z);
+
+	/**
+	 * All objects in the z-aligned columns of cubes [minX, maxX[ x [minY, maxY[,
+	 * where the column (x, y) spans the cubes [lowestZ[x-minX][y-minY], maxZ[.
+	 * 
+	 * This is the union of the results of
+	 * {@link #getObjectsInBox(double, double, double, double, double, double)} for
+	 * every column, which is also how this default implementation computes it;
+	 * implementations should gather the objects of all columns in a single pass.
+	 * 
+	 * @param minX
+	 * @param minY
+	 * @param maxX (exclusive)
+	 * @param maxY (exclusive)
+	 * @param lowestZ the lowest cube of every column, indexed by [x-minX][y-minY]
+	 * @param maxZ (exclusive)
+	 * @return
+	 */
+	public default Set<? extends Object> getObjectsInColumns(int minX, int minY, int maxX, int maxY, int[][] lowestZ,
+			int maxZ) {
+		Set<Object> result = new HashSet<>();
+		for (int x = minX; x < maxX; x++) {
+			for (int y = minY; y < maxY; y++) {
+				result.addAll(getObjectsInBox(x, y, lowestZ[x - minX][y - minY], x + 1, y + 1, maxZ));
+			}
+		}
+		return result;
+	}
 }
@@ -1,7 +1,9 @@
 package hillbillies.part2.internal.ui.viewmodel;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 
 import hillbillies.common.internal.map.IByteMap3D;
 import hillbillies.common.internal.ui.sprites.SpriteFactory;
@@ -73,6 +75,25 @@ public class ViewModelPart2 extends ViewModel implements IViewModel2 {
 				visibleTileToWorldPointY(visibleY + 1), (getCurrentZLevel() + 1) * getMeterPerTile());
 	}
 
+	/**
+	 * Returns the objects in all visible columns, gathered in a single query rather
+	 * than one query per visible tile.
+	 */
+	@Override
+	public Set<Object> getVisibleObjects() {
+		int nbX = getNbVisibleTilesX();
+		int nbY = getNbVisibleTilesY();
+		int[][] lowestZ = new int[nbX][nbY];
+		for (int visibleX = 0; visibleX < nbX; visibleX++) {
+			for (int visibleY = 0; visibleY < nbY; visibleY++) {
+				lowestZ[visibleX][visibleY] = visibleTileToWorldTileZ(visibleX, visibleY);
+			}
+		}
+		return new HashSet<>(getWorldInfoProvider().getObjectsInColumns(visibleTileToWorldTileX(0),
+				visibleTileToWorldTileY(0), visibleTileToWorldTileX(nbX), visibleTileToWorldTileY(nbY), lowestZ,
+				getCurrentZLevel() + 1));
+	}
+
 	public int visibleTileToWorldTileZ(int visibleX, int visibleY) {
 		return getCurrentZLevel() - getDepthValueAt(visibleX, visibleY);
 	}
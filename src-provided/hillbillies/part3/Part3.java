@@ -12,7 +12,7 @@ import hillbillies.part3.facade.Facade;
 import hillbillies.part3.facade.IFacade;
 import hillbillies.part2.internal.Part2Options;
 import hillbillies.part2.internal.map.GameMap;
-import hillbillies.part2.internal.map.GameMapReader;
+import hillbillies.part2.internal.map.StreamingGameMapReader;
 import hillbillies.part2.internal.ui.IHillbilliesView2;
 import hillbillies.part3.internal.controller.GameControllerPart3;
 import hillbillies.part3.internal.ui.HillbilliesViewPart3;
@@ -43,7 +43,7 @@ public class Part3 extends HillbilliesApplication<Part2Options, IFacade, IHillbi
 	protected GameControllerPart3 createController(IFacade facade, Part2Options options) throws ModelException {
 		GameMap map = null;
 		try {
-			map = new GameMapReader().readFromResource(LEVELS_PATH + levelFilename);
+			map = new StreamingGameMapReader().readFromResource(LEVELS_PATH + levelFilename);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -1,16 +1,15 @@
 package hillbillies.part3.internal.controller;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
 
 import hillbillies.model.Faction;
-import hillbillies.model.Scheduler;
 import hillbillies.model.Task;
 import hillbillies.model.Unit;
+import hillbillies.model.WorldSnapshot.TaskState;
+import hillbillies.model.WorldSnapshot.UnitState;
 import hillbillies.part2.internal.controller.GameObjectInfoProvider;
 import hillbillies.part3.facade.IFacade;
 import hillbillies.part3.internal.providers.IGameObjectInfoProvider3;
@@ -34,80 +33,40 @@ public class GameObjectInfoProvider3 extends GameObjectInfoProvider implements I
 
 	@Override
 	public Set<Faction> getActiveFactions() {
-		try {
-			Set<Faction> result = getFacade().getActiveFactions(getGame().getWorld());
-			if (result != null)
-				return result;
-		} catch (ModelException e) {
-			handleError(e);
-		}
-		return Collections.emptySet();
+		return getSnapshot().getActiveFactions();
 	}
 
 	@Override
 	public List<Task> getTasksForFaction(Faction faction) {
-		List<Task> result = new ArrayList<>();
-		try {
-			Scheduler scheduler = getFacade().getScheduler(faction);
-			if (scheduler != null) {
-				Iterator<Task> it = getFacade().getAllTasksIterator(scheduler);
-				while (it != null && it.hasNext()) {
-					result.add(it.next());
-				}
-			}
-		} catch (ModelException e) {
-			handleError(e);
-		}
-		return result;
+		return new ArrayList<>(getSnapshot().getTasks(faction));
 	}
 
 	@Override
 	public boolean getTaskAssigned(Task task) {
-		try {
-			return getFacade().getAssignedUnit(task) != null;
-		} catch (ModelException e) {
-			handleError(e);
-			return false;
-		}
+		return getAssignedUnit(task) != null;
 	}
 
 	@Override
 	public String getTaskName(Task task) {
-		try {
-			return getFacade().getName(task);
-		} catch (ModelException e) {
-			handleError(e);
-			return "";
-		}
+		TaskState state = getSnapshot().getState(task);
+		return state == null ? "" : state.getName();
 	}
 
 	@Override
 	public int getTaskPriority(Task task) {
-		try {
-			return getFacade().getPriority(task);
-		} catch (ModelException e) {
-			handleError(e);
-			return 0;
-		}
+		TaskState state = getSnapshot().getState(task);
+		return state == null ? 0 : state.getPriority();
 	}
 
 	@Override
 	public Unit getAssignedUnit(Task task) {
-		try {
-			return getFacade().getAssignedUnit(task);
-		} catch (ModelException e) {
-			handleError(e);
-			return null;
-		}
+		TaskState state = getSnapshot().getState(task);
+		return state == null ? null : state.getAssignedUnit();
 	}
 
 	@Override
 	public Task getAssignedTask(Unit unit) {
-		try {
-			return getFacade().getAssignedTask(unit);
-		} catch (ModelException e) {
-			handleError(e);
-			return null;
-		}
+		UnitState state = getState(unit);
+		return state == null ? null : state.getAssignedTask();
 	}
 }
@@ -31,6 +31,22 @@ public class ViewModelPart3 extends ViewModelPart2 {
 		return result;
 	}
 
+	@Override
+	public Set<Object> getVisibleObjects() {
+		Set<Object> result = super.getVisibleObjects();
+		int firstX = visibleTileToWorldTileX(0);
+		int firstY = visibleTileToWorldTileY(0);
+		for (SelectionMarker m : markers) {
+			int visibleX = (int) m.getX() - firstX;
+			int visibleY = (int) m.getY() - firstY;
+			if (0 <= visibleX && visibleX < getNbVisibleTilesX() && 0 <= visibleY && visibleY < getNbVisibleTilesY()
+					&& m.getZ() >= getLowestVisibleZ(visibleX, visibleY) && m.getZ() < getCurrentZLevel() + 1) {
+				result.add(m);
+			}
+		}
+		return result;
+	}
+
 	@Override
 	protected void setupSpriteFactory() {
 		super.setupSpriteFactory();
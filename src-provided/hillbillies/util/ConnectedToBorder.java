@@ -3,14 +3,8 @@ package hillbillies.util;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Deque;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.IntPredicate;
 
 /**
  * Interface for a (somewhat efficient) algorithm that determines whether a
@@ -25,12 +19,22 @@ import java.util.stream.Stream;
  * to be completely composed of SOLID tiles. Update the algorithm state using
  * the {@link #changeSolidToPassable(int, int, int)} method. At any point, use
  * the {@link #isSolidConnectedToBorder(int, int, int)} method to find out if a
- * cube is connected to the world.
+ * cube is connected to the world. To start from a world that is already
+ * loaded, use {@link #ConnectedToBorder(int, int, int, IntPredicate)} instead
+ * of making its passable cubes passable one by one.
  * 
  * @author Koen Yskout
  * 
  * @note The problem to solve is an instance of the 'decremental dynamic
  *       connectivity' graph problem; better algorithms probably exist.
+ * 
+ * @note Cubes are identified by a flat index (x + y * nbX + z * nbX * nbY)
+ *       internally. Every solid cube carries the label of its solid component,
+ *       and labels are merged in a union-find structure that also counts the
+ *       border cubes of every component. Making a cube solid is then a union of
+ *       the components of its neighbours, and making a cube passable only
+ *       re-labels the pieces that broke off from its component; cubes are only
+ *       enumerated when they are reported as (dis)connected.
  */
 
 public class ConnectedToBorder {
@@ -47,8 +51,45 @@ public class ConnectedToBorder {
 		this.nbX = nbX;
 		this.nbY = nbY;
 		this.nbZ = nbZ;
-		this.passable = new boolean[nbX * nbY * nbZ];
-		this.notConnected = new boolean[nbX * nbY * nbZ];
+		this.nbXY = nbX * nbY;
+		int nbCubes = nbX * nbY * nbZ;
+		this.passable = new boolean[nbCubes];
+		this.label = new int[nbCubes];
+		this.queue = new int[nbCubes];
+		this.visited = new int[nbCubes];
+		for (int search = 0; search < NB_DIRECTIONS; search++) {
+			this.searchQueues[search] = new int[INITIAL_SEARCH_CAPACITY];
+		}
+		// all cubes are solid, so they form a single component
+		int component = newComponent();
+		size[component] = nbCubes;
+		for (int index = 0; index < nbCubes; index++) {
+			if (isBorder(index)) {
+				borderCount[component]++;
+			}
+		}
+	}
+
+	/**
+	 * Create a new instance of the algorithm, initialized for a world of the
+	 * given dimensions where the cubes are solid as given.
+	 * 
+	 * @note The solid components are labelled in a single pass over the world,
+	 *       so this takes time linear in the number of cubes.
+	 * 
+	 * @param nbX
+	 * @param nbY
+	 * @param nbZ
+	 * @param isSolid
+	 *            Whether the cube with flat index x + y * nbX + z * nbX * nbY is
+	 *            solid.
+	 */
+	public ConnectedToBorder(int nbX, int nbY, int nbZ, IntPredicate isSolid) {
+		this(nbX, nbY, nbZ);
+		for (int index = 0; index < passable.length; index++) {
+			passable[index] = !isSolid.test(index);
+		}
+		labelComponents();
 	}
 
 	/**
@@ -56,7 +97,8 @@ public class ConnectedToBorder {
 	 * connected to a border of the world through other directly adjacent solid
 	 * cubes.
 	 * 
-	 * @note The result is pre-computed, so this query returns immediately.
+	 * @note The result is pre-computed, so this query returns (almost)
+	 *       immediately.
 	 * 
 	 * @param x
 	 *            The x-coordinate of the cube to test
@@ -68,7 +110,7 @@ public class ConnectedToBorder {
 	 */
 	public boolean isSolidConnectedToBorder(int x, int y, int z) {
 		int index = getIndex(x, y, z);
-		return isSolid(index) && !notConnected[index];
+		return isSolidConnected(index);
 	}
 
 	/**
@@ -76,8 +118,7 @@ public class ConnectedToBorder {
 	 * the list of coordinates that became connected to a border of the world
 	 * due to this change.
 	 * 
-	 * @note This operation possibly iterates over the whole world, so it could
-	 *       take some time.
+	 * @note This operation only iterates over the cubes that become connected.
 	 * 
 	 * @param x
 	 *            The x-coordinate of the cube to make solid
@@ -96,32 +137,53 @@ public class ConnectedToBorder {
 		if (isSolid(index)) {
 			return Collections.emptyList();
 		}
+		compactComponentsIfNeeded();
 		passable[index] = false;
-		List<Integer> coord = Arrays.asList(x, y, z);
-		// if the coordinate is at the border, or one of its solid neighbours is known to be connected, the coordinate becomes connected as well
-		// any adjacent non-connected neighbours now also become connected, and this repeats recursively
-		if (isBorder(coord) || getDirectlyAdjacentSolids(coord).stream().anyMatch(c -> isSolidConnectedToBorder(c.get(0), c.get(1), c.get(2)))) {
-			List<int[]> result = new ArrayList<>();
-			Set<List<Integer>> alreadyMadeConnected = new HashSet<>();
-			Queue<List<Integer>> stillToMakeConnected = new LinkedList<>();
-			stillToMakeConnected.add(coord);
-			while (!stillToMakeConnected.isEmpty()) {
-				List<Integer> coordToMakeConnected = stillToMakeConnected.poll();
-				if (alreadyMadeConnected.contains(coordToMakeConnected)) {
-					continue;
+		// the components of the solid neighbours are merged with the new cube
+		int nbRoots = 0;
+		boolean anchored = isBorder(index);
+		for (int direction = 0; direction < NB_DIRECTIONS; direction++) {
+			int neighbour = getNeighbour(index, direction);
+			if (neighbour >= 0 && isSolid(neighbour)) {
+				int root = find(label[neighbour]);
+				if (!contains(neighbourRoots, nbRoots, root)) {
+					neighbourRoots[nbRoots++] = root;
+					anchored |= borderCount[root] > 0;
 				}
-				notConnected[getIndex(coordToMakeConnected)] = false;
-				alreadyMadeConnected.add(coordToMakeConnected);
-				result.add(new int[] { coordToMakeConnected.get(0), coordToMakeConnected.get(1), coordToMakeConnected.get(2) });
-				for (List<Integer> neighbour : getDirectlyAdjacentSolids(coordToMakeConnected)) {
-					if (!alreadyMadeConnected.contains(neighbour) && !isSolidConnectedToBorder(neighbour.get(0), neighbour.get(1), neighbour.get(2))) {
-						stillToMakeConnected.add(neighbour);
+			}
+		}
+		List<int[]> result = Collections.emptyList();
+		if (anchored) {
+			// the new cube and all neighbouring components that were not yet
+			// connected become connected
+			int mark = nextMarks(1);
+			int tail = 0;
+			visited[index] = mark;
+			queue[tail++] = index;
+			for (int head = 0; head < tail; head++) {
+				int cube = queue[head];
+				for (int direction = 0; direction < NB_DIRECTIONS; direction++) {
+					int neighbour = getNeighbour(cube, direction);
+					if (neighbour >= 0 && isSolid(neighbour) && visited[neighbour] != mark
+							&& borderCount[find(label[neighbour])] == 0) {
+						visited[neighbour] = mark;
+						queue[tail++] = neighbour;
 					}
 				}
 			}
-			return result;
+			result = new ArrayList<>(tail);
+			appendCoordinates(result, queue, 0, tail);
+		}
+		int root = nbRoots == 0 ? newComponent() : neighbourRoots[0];
+		for (int i = 1; i < nbRoots; i++) {
+			root = union(root, neighbourRoots[i]);
 		}
-		return Collections.emptyList();
+		label[index] = root;
+		size[root]++;
+		if (isBorder(index)) {
+			borderCount[root]++;
+		}
+		return result;
 	}
 
 	
@@ -130,8 +192,9 @@ public class ConnectedToBorder {
 	 * the list of coordinates that are no longer connected to a border of the
 	 * world due to this change.
 	 * 
-	 * @note This operation possibly iterates over the whole world, so it could
-	 *       take some time.
+	 * @note This operation iterates over the pieces that break off from the
+	 *       component of the given cube (all but the largest one), and over the
+	 *       cubes that become disconnected.
 	 * 
 	 * @param x
 	 *            The x-coordinate of the cube to make passable
@@ -149,40 +212,81 @@ public class ConnectedToBorder {
 		if (passable[index])
 			return Collections.emptyList();
 
+		compactComponentsIfNeeded();
 		passable[index] = true;
-		notConnected[index] = true;
-
-		Set<List<Integer>> knownConnectedToBorder = new HashSet<>();
-		Set<List<Integer>> knownNotConnectedToBorder = new HashSet<>();
-		List<int[]> changed = new ArrayList<>();
-		// get all solid neighbours
-		for (List<Integer> neighbour : getDirectlyAdjacentSolids(Arrays.asList(x, y, z))) {
-			if (knownConnectedToBorder.contains(neighbour) || knownNotConnectedToBorder.contains(neighbour)) {
-				// if we already know the state of this neighbour, go to the
-				// next one
+		int root = find(label[index]);
+		boolean wasAnchored = borderCount[root] > 0;
+		size[root]--;
+		if (isBorder(index)) {
+			borderCount[root]--;
+		}
+
+		// start one search per solid neighbour; searches that meet belong to the
+		// same piece and are grouped together
+		int firstMark = nextMarks(NB_DIRECTIONS);
+		int nbSearches = 0;
+		for (int direction = 0; direction < NB_DIRECTIONS; direction++) {
+			int neighbour = getNeighbour(index, direction);
+			if (neighbour >= 0 && isSolid(neighbour)) {
+				int search = nbSearches++;
+				searchGroup[search] = search;
+				searchHead[search] = 0;
+				searchTail[search] = 0;
+				visited[neighbour] = firstMark + search;
+				push(search, neighbour);
+			}
+		}
+		// advance all searches in lockstep, until at most one group has not
+		// been exhausted; exhausted groups are the pieces that broke off
+		while (countActiveGroups(nbSearches) > 1) {
+			// this might take a long time - check if the impatient user has
+			// stopped us yet
+			if (Thread.currentThread().isInterrupted()) {
+				throw new IllegalStateException();
+			}
+			for (int search = 0; search < nbSearches; search++) {
+				if (searchHead[search] < searchTail[search]) {
+					expand(search, firstMark, nbSearches);
+				}
+			}
+		}
+		int keeper = findKeeperGroup(nbSearches);
+		List<int[]> changed = Collections.emptyList();
+		for (int group = 0; group < nbSearches; group++) {
+			if (findGroup(group) != group || group == keeper) {
 				continue;
-			} else {
-				// if we don't already know the state of this neighbour, try to
-				// find a path to the border
-				// We want to keep track of all cubes tested while trying to
-				// find a path.
-				Set<List<Integer>> testedWhenFindingPath = new HashSet<>();
-				if (!existsPathToBorder(neighbour, knownConnectedToBorder, knownNotConnectedToBorder,
-						testedWhenFindingPath)) {
-					// no path is found, so all tested cubes are definitely NOT
-					// connected to the border
-					for (List<Integer> testedCoord : testedWhenFindingPath) {
-						knownNotConnectedToBorder.add(testedCoord);
-						notConnected[getIndex(testedCoord)] = true;
-						changed.add(new int[] { testedCoord.get(0), testedCoord.get(1), testedCoord.get(2) });
+			}
+			int piece = newComponent();
+			for (int search = 0; search < nbSearches; search++) {
+				if (findGroup(search) == group) {
+					int[] searchQueue = searchQueues[search];
+					for (int i = 0; i < searchTail[search]; i++) {
+						int cube = searchQueue[i];
+						label[cube] = piece;
+						size[piece]++;
+						if (isBorder(cube)) {
+							borderCount[piece]++;
+						}
+					}
+				}
+			}
+			size[root] -= size[piece];
+			borderCount[root] -= borderCount[piece];
+			if (wasAnchored && borderCount[piece] == 0) {
+				changed = appendGroupCoordinates(changed, group, nbSearches);
+			}
+		}
+		if (keeper >= 0 && wasAnchored && borderCount[root] == 0) {
+			// the remaining piece is no longer connected, so it is enumerated
+			// completely
+			for (int search = 0; search < nbSearches; search++) {
+				if (findGroup(search) == keeper) {
+					while (searchHead[search] < searchTail[search]) {
+						expand(search, firstMark, nbSearches);
 					}
-				} else {
-					// neighbour is still connected via some path; don't
-					// change anything (but now we also know that all tested
-					// cubes are also definitely connected)
-					knownConnectedToBorder.addAll(testedWhenFindingPath);
 				}
 			}
+			changed = appendGroupCoordinates(changed, keeper, nbSearches);
 		}
 		return changed;
 	}
@@ -195,80 +299,308 @@ public class ConnectedToBorder {
 	private final int nbX;
 	private final int nbY;
 	private final int nbZ;
+	private final int nbXY;
 
 	private final boolean[] passable;
-	private final boolean[] notConnected;
 
-	private int getIndex(List<Integer> coord) {
-		return getIndex(coord.get(0), coord.get(1), coord.get(2));
-	}
+	/**
+	 * The component label of every solid cube; the component of a cube is the
+	 * union-find root of its label.
+	 */
+	private final int[] label;
+
+	/**
+	 * Union-find parents, sizes (in cubes) and number of border cubes, by
+	 * component label. Only the sizes and border counts of roots are
+	 * meaningful.
+	 */
+	private int[] parent = new int[INITIAL_COMPONENT_CAPACITY];
+	private int[] size = new int[INITIAL_COMPONENT_CAPACITY];
+	private int[] borderCount = new int[INITIAL_COMPONENT_CAPACITY];
+
+	private int nbComponentLabels = 0;
+
+	/**
+	 * Scratch queue for searches that enumerate cubes; it is large enough to
+	 * hold every cube of the world once.
+	 */
+	private final int[] queue;
+
+	/**
+	 * Visited marks for all searches. A cube is visited by a search if its mark
+	 * equals the mark of that search, so the marks never need to be cleared
+	 * between searches.
+	 */
+	private final int[] visited;
+
+	private int lastMark = 0;
+
+	/**
+	 * Scratch state of the (at most six) searches of changeSolidToPassable.
+	 */
+	private final int[][] searchQueues = new int[NB_DIRECTIONS][];
+	private final int[] searchHead = new int[NB_DIRECTIONS];
+	private final int[] searchTail = new int[NB_DIRECTIONS];
+	private final int[] searchGroup = new int[NB_DIRECTIONS];
+
+	private final int[] neighbourRoots = new int[NB_DIRECTIONS];
+
+	private static final int NB_DIRECTIONS = 6;
+
+	private static final int INITIAL_SEARCH_CAPACITY = 64;
+
+	private static final int INITIAL_COMPONENT_CAPACITY = 16;
 
 	private int getIndex(int x, int y, int z) {
-		return x + y * nbX + z * (nbX * nbY);
+		return x + y * nbX + z * nbXY;
 	}
 
 	private boolean isSolid(int index) {
 		return !passable[index];
 	}
 
-	private boolean isBorder(List<Integer> coord) {
-		int x = coord.get(0);
-		int y = coord.get(1);
-		int z = coord.get(2);
+	private boolean isSolidConnected(int index) {
+		return isSolid(index) && borderCount[find(label[index])] > 0;
+	}
+
+	private boolean isBorder(int index) {
+		int x = index % nbX;
+		int y = (index / nbX) % nbY;
+		int z = index / nbXY;
 		return x == 0 || x == nbX - 1 || y == 0 || y == nbY - 1 || z == 0 || z == nbZ - 1;
 	}
 
-	private final int[][] directAdjacentOffsets = new int[][] { { -1, 0, 0 }, { +1, 0, 0 }, { 0, -1, 0 }, { 0, +1, 0 },
-			{ 0, 0, -1 }, { 0, 0, +1 } };
-
-	private boolean existsPathToBorder(List<Integer> origin, Set<List<Integer>> knownAdjacent,
-			Set<List<Integer>> knownNonAdjacent, Set<List<Integer>> visited) {
-		// visited == part of solid blob connected to origin that has been
-		// visited (but not necessarily tested)
-		Deque<List<Integer>> cubesToVisit = new LinkedList<>();
-		cubesToVisit.add(origin);
-		visited.add(origin);
-		while (!cubesToVisit.isEmpty()) {
-			// this might take a long time - check if the impatient user has
-			// stopped us yet
-			if (Thread.currentThread().isInterrupted()) {
-				throw new IllegalStateException();
-			}
-			List<Integer> cube = cubesToVisit.pollFirst();
-			if (knownAdjacent.contains(cube)) {
+	/**
+	 * Return the index of the neighbour of the given cube in the given
+	 * direction (-x, +x, -y, +y, -z, +z), or -1 if it lies outside the world.
+	 */
+	private int getNeighbour(int index, int direction) {
+		switch (direction) {
+		case 0:
+			return index % nbX == 0 ? -1 : index - 1;
+		case 1:
+			return index % nbX == nbX - 1 ? -1 : index + 1;
+		case 2:
+			return (index / nbX) % nbY == 0 ? -1 : index - nbX;
+		case 3:
+			return (index / nbX) % nbY == nbY - 1 ? -1 : index + nbX;
+		case 4:
+			return index < nbXY ? -1 : index - nbXY;
+		default:
+			return index + nbXY >= passable.length ? -1 : index + nbXY;
+		}
+	}
+
+	private static boolean contains(int[] values, int count, int value) {
+		for (int i = 0; i < count; i++) {
+			if (values[i] == value) {
 				return true;
 			}
-			if (knownNonAdjacent.contains(cube)) {
-				return false;
+		}
+		return false;
+	}
+
+	/**
+	 * Reserve the given number of consecutive fresh visited marks, and return
+	 * the first one.
+	 */
+	private int nextMarks(int count) {
+		if (lastMark > Integer.MAX_VALUE - count) {
+			Arrays.fill(visited, 0);
+			lastMark = 0;
+		}
+		int first = lastMark + 1;
+		lastMark += count;
+		return first;
+	}
+
+	private int newComponent() {
+		if (nbComponentLabels == parent.length) {
+			int capacity = 2 * parent.length;
+			parent = Arrays.copyOf(parent, capacity);
+			size = Arrays.copyOf(size, capacity);
+			borderCount = Arrays.copyOf(borderCount, capacity);
+		}
+		int component = nbComponentLabels++;
+		parent[component] = component;
+		size[component] = 0;
+		borderCount[component] = 0;
+		return component;
+	}
+
+	private int find(int component) {
+		while (parent[component] != component) {
+			parent[component] = parent[parent[component]];
+			component = parent[component];
+		}
+		return component;
+	}
+
+	private int union(int first, int second) {
+		first = find(first);
+		second = find(second);
+		if (first == second) {
+			return first;
+		}
+		if (size[first] < size[second]) {
+			int tmp = first;
+			first = second;
+			second = tmp;
+		}
+		parent[second] = first;
+		size[first] += size[second];
+		borderCount[first] += borderCount[second];
+		return first;
+	}
+
+	/**
+	 * Every split hands out fresh labels, so once there are many more labels
+	 * than cubes, all components are labelled again from scratch.
+	 */
+	private void compactComponentsIfNeeded() {
+		if (nbComponentLabels <= 2 * passable.length + INITIAL_COMPONENT_CAPACITY) {
+			return;
+		}
+		labelComponents();
+	}
+
+	/**
+	 * Label all solid components from scratch, with a flood fill from every
+	 * solid cube that was not reached yet.
+	 */
+	private void labelComponents() {
+		nbComponentLabels = 0;
+		int mark = nextMarks(1);
+		for (int index = 0; index < passable.length; index++) {
+			if (passable[index] || visited[index] == mark) {
+				continue;
 			}
-			if (isBorder(cube)) {
-				knownAdjacent.add(cube);
-				return true;
+			int component = newComponent();
+			int tail = 0;
+			visited[index] = mark;
+			queue[tail++] = index;
+			for (int head = 0; head < tail; head++) {
+				int cube = queue[head];
+				label[cube] = component;
+				size[component]++;
+				if (isBorder(cube)) {
+					borderCount[component]++;
+				}
+				for (int direction = 0; direction < NB_DIRECTIONS; direction++) {
+					int neighbour = getNeighbour(cube, direction);
+					if (neighbour >= 0 && isSolid(neighbour) && visited[neighbour] != mark) {
+						visited[neighbour] = mark;
+						queue[tail++] = neighbour;
+					}
+				}
+			}
+		}
+	}
+
+	private void push(int search, int cube) {
+		if (searchTail[search] == searchQueues[search].length) {
+			searchQueues[search] = Arrays.copyOf(searchQueues[search], 2 * searchTail[search]);
+		}
+		searchQueues[search][searchTail[search]++] = cube;
+	}
+
+	private int findGroup(int search) {
+		while (searchGroup[search] != search) {
+			search = searchGroup[search];
+		}
+		return search;
+	}
+
+	/**
+	 * Visit the neighbours of the next cube in the queue of the given search.
+	 */
+	private void expand(int search, int firstMark, int nbSearches) {
+		int cube = searchQueues[search][searchHead[search]++];
+		for (int direction = 0; direction < NB_DIRECTIONS; direction++) {
+			int neighbour = getNeighbour(cube, direction);
+			if (neighbour < 0 || !isSolid(neighbour)) {
+				continue;
 			}
-			for (List<Integer> neighbour : getDirectlyAdjacentSolids(cube)) {
-				if (!visited.contains(neighbour)) {
-					visited.add(neighbour);
-					cubesToVisit.addFirst(neighbour);
+			int other = visited[neighbour] - firstMark;
+			if (other >= 0 && other < nbSearches) {
+				// the searches meet, so they explore the same piece
+				int group = findGroup(search);
+				int otherGroup = findGroup(other);
+				if (group != otherGroup) {
+					searchGroup[Math.max(group, otherGroup)] = Math.min(group, otherGroup);
 				}
+			} else {
+				visited[neighbour] = firstMark + search;
+				push(search, neighbour);
+			}
+		}
+	}
+
+	private int countActiveGroups(int nbSearches) {
+		int count = 0;
+		for (int group = 0; group < nbSearches; group++) {
+			if (findGroup(group) == group && isActiveGroup(group, nbSearches)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private boolean isActiveGroup(int group, int nbSearches) {
+		for (int search = 0; search < nbSearches; search++) {
+			if (findGroup(search) == group && searchHead[search] < searchTail[search]) {
+				return true;
 			}
 		}
 		return false;
 	}
 
-	private List<List<Integer>> getDirectlyAdjacentSolids(List<Integer> coord) {
-		return getDirectlyAdjacentCoordinates(coord).filter(c -> {
-			int x = c.get(0);
-			int y = c.get(1);
-			int z = c.get(2);
-			return x >= 0 && x < nbX && y >= 0 && y < nbY && z >= 0 && z < nbZ && isSolid(getIndex(c));
-		}).collect(Collectors.toList());
+	/**
+	 * Return the group that keeps the label of the original component: the
+	 * group that is still being explored, or else the largest one. Returns -1
+	 * if there are no groups at all.
+	 */
+	private int findKeeperGroup(int nbSearches) {
+		int keeper = -1;
+		int keeperSize = -1;
+		for (int group = 0; group < nbSearches; group++) {
+			if (findGroup(group) != group) {
+				continue;
+			}
+			if (isActiveGroup(group, nbSearches)) {
+				return group;
+			}
+			int groupSize = 0;
+			for (int search = 0; search < nbSearches; search++) {
+				if (findGroup(search) == group) {
+					groupSize += searchTail[search];
+				}
+			}
+			if (groupSize > keeperSize) {
+				keeper = group;
+				keeperSize = groupSize;
+			}
+		}
+		return keeper;
+	}
+
+	private List<int[]> appendGroupCoordinates(List<int[]> result, int group, int nbSearches) {
+		if (result.isEmpty()) {
+			result = new ArrayList<>();
+		}
+		for (int search = 0; search < nbSearches; search++) {
+			if (findGroup(search) == group) {
+				appendCoordinates(result, searchQueues[search], 0, searchTail[search]);
+			}
+		}
+		return result;
 	}
 
-	private Stream<List<Integer>> getDirectlyAdjacentCoordinates(List<Integer> coord) {
-		List<int[]> shuffledOffsets = new ArrayList<>(Arrays.asList(directAdjacentOffsets));
-		Collections.shuffle(shuffledOffsets);
-		return shuffledOffsets.stream().map(
-				offset -> Arrays.asList(coord.get(0) + offset[0], coord.get(1) + offset[1], coord.get(2) + offset[2]));
+	private void appendCoordinates(List<int[]> result, int[] cubes, int from, int to) {
+		for (int i = from; i < to; i++) {
+			int index = cubes[i];
+			result.add(new int[] { index % nbX, (index / nbX) % nbY, index / nbXY });
+		}
 	}
 
 	@Override
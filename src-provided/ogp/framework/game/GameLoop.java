@@ -1,10 +1,14 @@
 package ogp.framework.game;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
 import javafx.animation.AnimationTimer;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleDoubleProperty;
+import javafx.event.EventDispatcher;
 
 public class GameLoop {
 	private final AnimationTimer mainLoop;
@@ -14,11 +18,26 @@ public class GameLoop {
 
 	private final double DEFAULT_MAX_IN_GAME_TIMESTEP = Double.POSITIVE_INFINITY;
 
+	/**
+	 * The longest time a frame waits for the simulation to finish its current
+	 * step before the display is refreshed; after that, the frame is shown
+	 * without refreshing.
+	 */
+	private static final long MAX_REFRESH_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(4);
+
 	private double maxTimeStep;
 
+	private final SimulationThread simulation;
+
+	/**
+	 * Creates a game loop that updates the game on the JavaFX application
+	 * thread, right before every frame, by the real time since the previous
+	 * frame (in steps of at most the maximum time step).
+	 */
 	public GameLoop(IGameController<?> game) {
 		IGameView view = game.getView();
 		this.maxTimeStep = DEFAULT_MAX_IN_GAME_TIMESTEP;
+		this.simulation = null;
 		mainLoop = new AnimationTimer() {
 			private long previous = 0;
 
@@ -27,12 +46,14 @@ public class GameLoop {
 				if (!paused.get()) {
 					if (previous > 0) {
 						double dt = (now - previous) / 1e9;
-						double dtStep = Math.min(dt, getMaxTimeStep());
-						for (int i = 0; i < dtStep / dt; i++) {
+						int nbSteps = Math.max(1, (int) Math.ceil(dt / getMaxTimeStep()));
+						double dtStep = dt / nbSteps;
+						for (int i = 0; i < nbSteps; i++) {
 							inGameTime.set(inGameTime.get() + dtStep);
 							game.updateGame(dtStep);
 						}
 					}
+					game.prepareDisplay();
 					view.refreshDisplay();
 				}
 				previous = now;
@@ -40,14 +61,97 @@ public class GameLoop {
 		};
 	}
 
+	/**
+	 * Creates a game loop that updates the game on a {@link SimulationThread}
+	 * of its own, in steps of the given time, catching up on at most the given
+	 * lag. Frames only refresh the display, so rendering goes on at full speed
+	 * when the game falls behind. A game displayed from snapshots is
+	 * refreshed without waiting for the lock of the simulation thread. When a
+	 * step fails, the simulation thread stops and the error is shown in the
+	 * status text of the view.
+	 */
+	public GameLoop(IGameController<?> game, double timeStep, double maxLag) {
+		IGameView view = game.getView();
+		this.maxTimeStep = timeStep;
+		this.simulation = new SimulationThread(game, timeStep, maxLag);
+		paused.addListener((observable, wasPaused, isPaused) -> simulation.setPaused(isPaused));
+		mainLoop = new AnimationTimer() {
+			private boolean failureReported = false;
+
+			@Override
+			public void handle(long now) {
+				inGameTime.set(simulation.getStatus().getInGameTime());
+				RuntimeException failure = simulation.getFailure();
+				if (failure != null && !failureReported) {
+					failureReported = true;
+					view.setStatusText("ERROR: the game stopped: " + failure);
+					failure.printStackTrace();
+				}
+				if (!paused.get() && game.isDisplayedFromSnapshots()) {
+					game.prepareDisplay();
+					view.refreshDisplay();
+				} else if (!paused.get()) {
+					ReentrantLock lock = simulation.getLock();
+					boolean locked = false;
+					try {
+						locked = lock.tryLock(MAX_REFRESH_WAIT_NANOS, TimeUnit.NANOSECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					if (locked) {
+						try {
+							game.prepareDisplay();
+							view.refreshDisplay();
+						} finally {
+							lock.unlock();
+						}
+					}
+				}
+			}
+		};
+	}
+
 	protected double getMaxTimeStep() {
 		return maxTimeStep;
 	}
 
 	public void setMaxTimeStep(double maxTimeStep) {
+		if (simulation != null)
+			throw new IllegalStateException("the time step of a simulation thread is fixed");
 		this.maxTimeStep = maxTimeStep;
 	}
 
+	/**
+	 * Returns the simulation thread updating the game, or null if the game is
+	 * updated on the JavaFX application thread.
+	 */
+	public SimulationThread getSimulation() {
+		return simulation;
+	}
+
+	/**
+	 * Returns an event dispatcher that dispatches events with the given
+	 * dispatcher while holding the lock of the simulation thread, so event
+	 * handlers can safely read and change the game. Events are handled in the
+	 * order they arrive. The lock is fair and taken per step, so an event waits
+	 * for at most the step in progress, never for the steps that catch up on
+	 * lag. Returns the given dispatcher itself if the game is updated on the
+	 * JavaFX application thread.
+	 */
+	public EventDispatcher guard(EventDispatcher dispatcher) {
+		if (simulation == null)
+			return dispatcher;
+		return (event, tail) -> {
+			ReentrantLock lock = simulation.getLock();
+			lock.lock();
+			try {
+				return dispatcher.dispatchEvent(event, tail);
+			} finally {
+				lock.unlock();
+			}
+		};
+	}
+
 	public DoubleProperty inGameTimeProperty() {
 		return inGameTime;
 	}
@@ -58,10 +162,14 @@ public class GameLoop {
 
 	public void start() {
 		mainLoop.start();
+		if (simulation != null)
+			simulation.start();
 	}
 
 	public void stop() {
 		mainLoop.stop();
+		if (simulation != null)
+			simulation.stop();
 	}
 
 	public void togglePause() {
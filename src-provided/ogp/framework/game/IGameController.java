@@ -6,6 +6,23 @@ public interface IGameController<V extends IGameView> {
 
 	public void updateGame(double inGameTime);
 
+	/**
+	 * Called on the JavaFX application thread right before the display is
+	 * refreshed, at a moment the game is not being updated. Work that touches
+	 * the user interface as a consequence of updating the game, which may run
+	 * on another thread, is done here.
+	 */
+	public default void prepareDisplay() {
+	}
+
+	/**
+	 * Returns whether the display only reads immutable snapshots of the game,
+	 * so it can be refreshed while the game is being updated on another thread.
+	 */
+	public default boolean isDisplayedFromSnapshots() {
+		return false;
+	}
+
 	public void exit();
 
 }
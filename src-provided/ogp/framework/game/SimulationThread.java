@@ -0,0 +1,162 @@
+package ogp.framework.game;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Advances a game on its own thread, in steps of a fixed in-game time.
+ *
+ * The real time that passes is accumulated and consumed in fixed steps, so a
+ * slow step is caught up with by taking the next steps right away. The
+ * accumulated time is capped at a maximum lag: when the game can't keep up,
+ * the time beyond that cap is dropped, so the game slows down instead of
+ * falling ever further behind.
+ *
+ * The game is only updated while the lock of this thread is held; code on
+ * other threads that reads or changes the game must hold it as well. After
+ * every step, the in-game time and step count are published as an immutable
+ * {@link Status}, which can be read at any time without the lock. A step that
+ * throws an exception stops the thread; the exception is kept as its failure.
+ */
+public class SimulationThread {
+
+	public SimulationThread(IGameController<?> game, double timeStep, double maxLag) {
+		if (!(timeStep > 0) || maxLag < timeStep)
+			throw new IllegalArgumentException("invalid time step or maximum lag");
+		this.game = game;
+		this.timeStep = timeStep;
+		this.maxLag = maxLag;
+		this.thread = new Thread(this::run, "Simulation");
+		this.thread.setDaemon(true);
+	}
+
+	private final IGameController<?> game;
+	private final double timeStep;
+	private final double maxLag;
+	private final Thread thread;
+
+	/**
+	 * A fair lock, so a thread waiting for it gets it between two steps.
+	 */
+	private final ReentrantLock lock = new ReentrantLock(true);
+
+	private volatile boolean running = false;
+	private volatile boolean paused = false;
+	private volatile Status status = new Status(0, 0, 0);
+	private volatile RuntimeException failure = null;
+
+	/**
+	 * An immutable summary of the progress of a simulation thread.
+	 */
+	public static final class Status {
+
+		private Status(double inGameTime, long steps, double droppedTime) {
+			this.inGameTime = inGameTime;
+			this.steps = steps;
+			this.droppedTime = droppedTime;
+		}
+
+		private final double inGameTime;
+		private final long steps;
+		private final double droppedTime;
+
+		/**
+		 * Returns the in-game time the game has been advanced by.
+		 */
+		public double getInGameTime() {
+			return inGameTime;
+		}
+
+		/**
+		 * Returns the number of steps the game has been advanced in.
+		 */
+		public long getSteps() {
+			return steps;
+		}
+
+		/**
+		 * Returns the real time, in seconds, that was dropped because the game
+		 * could not keep up.
+		 */
+		public double getDroppedTime() {
+			return droppedTime;
+		}
+	}
+
+	public double getTimeStep() {
+		return timeStep;
+	}
+
+	public double getMaxLag() {
+		return maxLag;
+	}
+
+	public ReentrantLock getLock() {
+		return lock;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns the exception thrown by the step that stopped this thread, or null
+	 * if no step failed.
+	 */
+	public RuntimeException getFailure() {
+		return failure;
+	}
+
+	public boolean isPaused() {
+		return paused;
+	}
+
+	public void setPaused(boolean paused) {
+		this.paused = paused;
+	}
+
+	public void start() {
+		running = true;
+		thread.start();
+	}
+
+	public void stop() {
+		running = false;
+		LockSupport.unpark(thread);
+	}
+
+	private void run() {
+		long previous = System.nanoTime();
+		double lag = 0;
+		while (running) {
+			long now = System.nanoTime();
+			if (!paused)
+				lag += (now - previous) / 1e9;
+			previous = now;
+			if (lag > maxLag) {
+				status = new Status(status.getInGameTime(), status.getSteps(),
+						status.getDroppedTime() + lag - maxLag);
+				lag = maxLag;
+			}
+			while (lag >= timeStep && running && !paused) {
+				lock.lock();
+				try {
+					game.updateGame(timeStep);
+				} catch (RuntimeException e) {
+					// the game may be left halfway through a step, so it is not updated any further
+					failure = e;
+					running = false;
+					return;
+				} finally {
+					lock.unlock();
+				}
+				lag -= timeStep;
+				status = new Status(status.getInGameTime() + timeStep, status.getSteps() + 1,
+						status.getDroppedTime());
+			}
+			// sleep until the next step is due
+			LockSupport.parkNanos(paused ? TimeUnit.MILLISECONDS.toNanos(10) : (long) ((timeStep - lag) * 1e9));
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package hillbillies.model;
+
+/**
+ * The phases of an advance of the time of a world, in the order the world goes
+ * through them.
+ */
+public enum AdvancePhase {
+    LANDINGS,
+    CUBES,
+    PLANNING,
+    UNITS,
+    MATERIALS,
+    SNAPSHOT;
+}
@@ -11,8 +11,7 @@ public class Boulder extends Material {
      *            The position to initialize this boulder with.
      */
     public Boulder(Position position, World world) {
-        this.position = position;
-        this.world = world;
+        super(position, world);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package hillbillies.model;
+
+/**
+ * A class of indices over the vertical columns of a world, registering per column
+ * which cubes are solid and which cubes have a solid neighbour, as bits in longs,
+ * so that the cube a falling unit or material lands in is found with a few bit
+ * operations instead of by walking down the column cube by cube.
+ *
+ * @note      Bit z of the words of a column describes the cube at height z of that
+ *            column; the world keeps both bit sets up to date when terrain changes.
+ */
+class ColumnSupport {
+
+    /**
+     * Initialize this new index for a world of the given size, in which no cube is
+     * solid or has a solid neighbour.
+     *
+     * @param nbX
+     *            The number of cubes of the world in the x-direction.
+     * @param nbY
+     *            The number of cubes of the world in the y-direction.
+     * @param nbZ
+     *            The number of cubes of the world in the z-direction.
+     */
+    ColumnSupport(int nbX, int nbY, int nbZ) {
+        this.nbX = nbX;
+        this.wordsPerColumn = (nbZ + 63) >>> 6;
+        this.solid = new long[nbX * nbY * this.wordsPerColumn];
+        this.supported = new long[nbX * nbY * this.wordsPerColumn];
+    }
+
+    private final int nbX;
+    private final int wordsPerColumn;
+
+    /**
+     * Variables registering, per column, the cubes that are solid and the cubes that
+     * have a solid neighbour.
+     */
+    private final long[] solid;
+    private final long[] supported;
+
+    /**
+     * Registers whether the cube at the given coordinates is solid.
+     */
+    void setSolid(int x, int y, int z, boolean isSolid) {
+        set(this.solid, x, y, z, isSolid);
+    }
+
+    /**
+     * Registers whether the cube at the given coordinates has a solid neighbour.
+     */
+    void setSupported(int x, int y, int z, boolean isSupported) {
+        set(this.supported, x, y, z, isSupported);
+    }
+
+    /**
+     * Returns the height of the highest solid cube of the column (x, y) strictly below
+     * the given height, or -1 if there is none.
+     */
+    int getHighestSolidBelow(int x, int y, int z) {
+        return this.getHighestAtOrBelow(this.solid, x, y, z - 1);
+    }
+
+    /**
+     * Returns the height of the highest cube of the column (x, y) with a solid neighbour,
+     * at or below the given height, or -1 if there is none.
+     */
+    int getHighestSupportedAtOrBelow(int x, int y, int z) {
+        return this.getHighestAtOrBelow(this.supported, x, y, z);
+    }
+
+    private void set(long[] bits, int x, int y, int z, boolean value) {
+        int word = this.getFirstWord(x, y) + (z >>> 6);
+        if (value)
+            bits[word] |= 1L << z;
+        else
+            bits[word] &= ~(1L << z);
+    }
+
+    private int getHighestAtOrBelow(long[] bits, int x, int y, int z) {
+        if (z < 0)
+            return -1;
+        int first = this.getFirstWord(x, y);
+        int word = z >>> 6;
+        // keep the bits up to and including z in the word of z
+        long masked = bits[first + word] & (-1L >>> (63 - (z & 63)));
+        while (true) {
+            if (masked != 0)
+                return (word << 6) + 63 - Long.numberOfLeadingZeros(masked);
+            if (--word < 0)
+                return -1;
+            masked = bits[first + word];
+        }
+    }
+
+    private int getFirstWord(int x, int y) {
+        return (x + this.nbX * y) * this.wordsPerColumn;
+    }
+}
@@ -3,15 +3,13 @@ package hillbillies.model;
 import hillbillies.model.terrain.*;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ThreadLocalRandom;
 
 public class Cube {
 
     /**
-     * Creates a new cube and initializes it with given position, terrain type and associated world.
+     * Creates a new cube view on the cube at the given position in the given world.
      *
 	 * @param x
 	 * 			X-coordinate for this new cube
@@ -19,84 +17,69 @@ public class Cube {
 	 * 			Y-coordinate for this new cube
 	 * @param z
 	 * 			Z-coordinate for this new cube
-	 * @param type
-	 * 			The terrain type for this new cube, encoded as integer.
      * @param world
      *          The world this cube is part of.
 	 *
-	 * @post An new cube is created and initialized with the given position, terrain type and world.
-	 *
+	 * @post An new cube is created for the given position and world.
+	 * @note The terrain, materials and occupants of a cube are stored in its world,
+	 *       so cubes are cheap views that can be created whenever they are needed.
 	 */
-	public Cube(int x, int y, int z, int type, World world){
-        this.setPosition(new Position(new int[] {x,y,z}));
-        this.setTerrain(type, true);
-        this.setWorld(world);
+	Cube(int x, int y, int z, World world){
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.world = world;
 	}
 
 	public Log getLog() {
-		return log;
+		return this.getWorld().getLogAt(this.getIndex());
 	}
 
 	public void setLog(Log log) {
-		this.log = log;
+		this.getWorld().setLogAt(this.getIndex(), log);
 	}
 
-	public Log log;
-	
 	public Boulder getBoulder() {
-		return boulder;
+		return this.getWorld().getBoulderAt(this.getIndex());
 	}
 
 	public void setBoulder(Boulder boulder) {
-		this.boulder = boulder;
+		this.getWorld().setBoulderAt(this.getIndex(), boulder);
 	}
 
-	public Boulder boulder;
-    /**
-     * Variable registering the terrain type of this cube.
-     */
-	private Terrain terrain;
-
-    /**
-     * Variable registering the directly adjacent cubes of this cube.
-     */
-    private Set<Cube> directlyAdjacentCubes = new HashSet<>();
-
     /**
-     * Variable registering the position of this cube.
+     * Variables registering the cube coordinates of this cube.
      */
-    private Position position;
+    private final int x;
+    private final int y;
+    private final int z;
 
     /**
      * Variable registering the world this cube is in.
      */
-    private World world;
+    private final World world;
 
     /**
-     * Variable registering the units currently present on this cube.
+     * Return the position of this cube.
+     *
+     * @return The position of this cube.
      */
-    private Set<Unit> unit = new HashSet<>();
+    public Position getPosition() {
+        return new Position(this.getCoordinates());
+    }
 
     /**
-     * Set the position of this cube to the given position.
-     *
-     * @post      The position of this cube is equal to the given position.
-     *          | new.getposition() == position
-     *
-     * @param     position
-     *            The position to set.
+     * Return the coordinates of this cube, packed as in {@link CubeCoordinates}.
      */
-    private void setPosition(Position position) {
-        this.position = position;
+    long getCoordinates() {
+        return CubeCoordinates.pack(this.x, this.y, this.z);
     }
 
     /**
-     * Return the position of this cube.
-     *
-     * @return The position of this cube.
+     * Returns the index of this cube in the terrain of its world.
      */
-    public Position getPosition() {
-        return position;
+    private int getIndex() {
+        return this.getWorld().getIndex(this.x, this.y, this.z);
     }
 
     /**
@@ -108,128 +91,55 @@ public class Cube {
      *          The terrain type encoded as an integer value as described in IFacade.
      */
     public void setTerrain(int type, boolean constructing){
-        switch (type) {
-            case 0:
-                this.terrain = new Air();
-                break;
-            case 1:
-                this.terrain = new Rock();
-                break;
-            case 2:
-                this.terrain = new Tree();
-                break;
-            case 3:
-                this.terrain = new Workshop();
-                break;
-        }
+        boolean wasSolid = this.isSolid();
+        this.getWorld().setTerrainCode(this.getIndex(), type);
         if (!constructing) {
-            this.getWorld().notifyTerrainChangeListener(
-                    this.getPosition().getCubeCoordinates()[0],
-                    this.getPosition().getCubeCoordinates()[1],
-                    this.getPosition().getCubeCoordinates()[2]
-            );
-            //this.getWorld().calculateConnectedToBorder();
+            this.getWorld().terrainChanged(this.x, this.y, this.z, wasSolid, this.isSolid());
         }
     }
+
     /**
      * Returns the terrain type of this cube.
      *
      * @return The terrain type of this cube.
      */
     public Terrain getTerrain(){
-        return this.terrain;
+        return Terrain.fromCode(this.getWorld().getCubeType(this.x, this.y, this.z));
     }
 
-	/**
-	 * @param world
-	 */
-	private void setWorld(World world) {
-		this.world = world;
-		
-	}
-
     /**
-     *
-     *
-     * @return
+     * Returns the world this cube is part of.
      */
 	private World getWorld() {
 		return this.world;
 	}
-
-    /**
-     * Calculates the directly adjacent cubes for this cube.
-     *
-     * @post      The set of directly adjacent cubes for this cube is updated.
-     */
-    private void calculateDirectlyAdjacentCubes() {
-        int thisX = this.getPosition().getCubeCoordinates()[0];
-        int thisY = this.getPosition().getCubeCoordinates()[1];
-        int thisZ = this.getPosition().getCubeCoordinates()[2];
-        Cube left = this.getWorld()
-                .getCube(
-                        thisX-1,
-                        thisY,
-                        thisZ
-                );
-        Cube right = this.getWorld()
-                .getCube(
-                        thisX+1,
-                        thisY,
-                        thisZ
-                );
-        Cube front = this.getWorld()
-                .getCube(
-                        thisX,
-                        thisY+1,
-                        thisZ
-                );
-        Cube back = this.getWorld()
-                .getCube(
-                        thisX,
-                        thisY-1,
-                        thisZ
-                );
-        Cube under = this.getWorld()
-                .getCube(
-                        thisX,
-                        thisY,
-                        thisZ-1
-                );
-        Cube over = this.getWorld()
-                .getCube(
-                        thisX,
-                        thisY,
-                        thisZ+1
-                );
-        this.directlyAdjacentCubes.add(left);
-        this.directlyAdjacentCubes.add(right);
-        this.directlyAdjacentCubes.add(front);
-        this.directlyAdjacentCubes.add(back);
-        this.directlyAdjacentCubes.add(under);
-        this.directlyAdjacentCubes.add(over);
-	}
 	
 	/**
 	 * Method that's invoked when a solid cube is not connected to border.
-	 * 			
-	 * @post ...
+	 *
+	 * @post This cube is made of air, possibly leaving a boulder or log behind.
+	 * @effect The cubes that got disconnected by this cave-in are scheduled
+	 *         to cave in as well.
+	 *       | this.setTerrain(0, false)
 	 */
     void caveIn() {
+        boolean wasTree = this.getTerrain() == Terrain.TREE;
+        this.getWorld().deactivateCube(this);
         this.setTerrain(0, false);
-        if (ThreadLocalRandom.current().nextInt(5) == 0) {
-            this.spawnBoulderOrLog();
+        if (this.getWorld().getRandom().nextInt(5) == 0) {
+            this.spawnBoulderOrLog(wasTree);
         }
-       this.getWorld().calculateConnectedToBorder();
 	}
 
     /**
      * Spawns a blouder on an Rock cube and a log on a Tree cube
-     * 
+     *
+     * @param wasTree
+     *            Whether or not this cube was a tree before it caved in.
      * @post Material is spawned on this cube.
      */
-    private void spawnBoulderOrLog() {
-    	if (this.getTerrain() instanceof Tree) {
+    private void spawnBoulderOrLog(boolean wasTree) {
+    	if (wasTree) {
         	Log log = new Log(this.getPosition(), this.getWorld());
             this.getWorld().addLog(log);
             this.setLog(log);
@@ -247,7 +157,7 @@ public class Cube {
      *          false otherwise.
 	 */
 	public boolean hasSolidNeighboringCubes() {
-		return this.getNeighboringCubes().stream().anyMatch(Cube::isSolid);
+		return this.getWorld().getNeighbourMask(this.getIndex()) != 0;
 	}
 
 	public boolean isNeighboringCube(Position positionToLook){
@@ -261,7 +171,7 @@ public class Cube {
      *            The unit to add to this cube.
      */
 	public void setUnit(Unit unit) {
-		this.unit.add(unit);
+		this.getWorld().addOccupantAt(this.getIndex(), unit);
 	}
 
     /**
@@ -270,7 +180,7 @@ public class Cube {
      * @return A set of units present on this cube, empty set when none such exist.
      */
 	private Set<Unit> getUnits() {
-		return unit;
+		return this.getWorld().getOccupantsAt(this.getIndex());
 	}
 
 	/**
@@ -280,7 +190,7 @@ public class Cube {
      *         false otherwise.
 	 */
 	public boolean isSolid() {
-		return (this.getTerrain() instanceof Solid);
+		return this.getWorld().isSolid(this.getIndex());
 	}
 
     /**
@@ -298,21 +208,22 @@ public class Cube {
      *
      * @param     dt
      *            The time period, in seconds, by which to advance the cube's state.
+     * @note    The world only advances its active cubes, so this cube caves in
+     *          if it is still solid and not connected to the border, and
+     *          deactivates itself otherwise.
      */
-    public void advanceTime(double dt) {
-        if (!this.getWorld().isSolidConnectedToBorder(
-                this.getPosition().getCubeCoordinates()[0],
-                this.getPosition().getCubeCoordinates()[1],
-                this.getPosition().getCubeCoordinates()[2])
-                && this.isSolid()) {
+    void advanceTime(double dt) {
+        if (this.isSolid() && !this.getWorld().isSolidConnectedToBorder(this.x, this.y, this.z)) {
         		this.caveIn();
+        } else {
+            this.getWorld().deactivateCube(this);
         }
     }
 
 	public List<Cube> getNeighboringCubes() {
-        int posX = this.getPosition().getCubeCoordinates()[0];
-        int posY = this.getPosition().getCubeCoordinates()[1];
-        int posZ = this.getPosition().getCubeCoordinates()[2];
+        int posX = this.x;
+        int posY = this.y;
+        int posZ = this.z;
         int[][] allNeighboringCubePositions =  new int[][]{
                 {posX-1, posY, posZ},
                 {posX+1, posY, posZ},
@@ -341,13 +252,15 @@ public class Cube {
 	 * | 	(coordinates[2] >= 0) && (coordinates[2] < 50)
 	 */
 	private boolean isValidPosition(int[] cubeCoordinates) {
-		return	(cubeCoordinates[0] >= 0) && (cubeCoordinates[0] < this.getWorld().getNbCubesX()) &&
-				(cubeCoordinates[1] >= 0) && (cubeCoordinates[1] < this.getWorld().getNbCubesY()) &&
-				(cubeCoordinates[2] >= 0) && (cubeCoordinates[2] < this.getWorld().getNbCubesZ());
+		return this.isValidPosition(cubeCoordinates[0], cubeCoordinates[1], cubeCoordinates[2]);
 	}
-    
-    private double timeToCaveInCounter;
 
+	private boolean isValidPosition(int x, int y, int z) {
+		return	(x >= 0) && (x < this.getWorld().getNbCubesX()) &&
+				(y >= 0) && (y < this.getWorld().getNbCubesY()) &&
+				(z >= 0) && (z < this.getWorld().getNbCubesZ());
+	}
+    
 	/**
 	 * @return
 	 */
@@ -366,24 +279,18 @@ public class Cube {
 		return true;
 	}
 
-	/**
-	 * Return the timeToCaveInCounter of this Cube.
-	 */
-	public double getTimeToCaveInCounter() {
-		return timeToCaveInCounter;
-	}
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Cube))
+            return false;
+        Cube cube = (Cube) other;
+        return cube.world == this.world && cube.x == this.x && cube.y == this.y && cube.z == this.z;
+    }
 
-	/**
-	 * Set the timeToCaveInCounter of this Cube to the given timeToCaveInCounter.
-	 *
-	 * @param  timeToCaveInCounter
-	 *         The timeToCaveInCounter to set.
-	 * @post   The timeToCaveInCounter of this of this Cube is equal to the given timeToCaveInCounter.
-	 *       | new.gettimeToCaveInCounter() == timeToCaveInCounter
-	 */
-	public void setTimeToCaveInCounter(double timeToCaveInCounter) {
-		this.timeToCaveInCounter = timeToCaveInCounter;
-	}
+    @Override
+    public int hashCode() {
+        return this.getIndex();
+    }
 
     @Override
     public String toString() {
@@ -0,0 +1,81 @@
+package hillbillies.model;
+
+/**
+ * A class of helpers packing the coordinates of a cube into a single long, so that
+ * cube coordinates can be passed around, compared and hashed without allocating
+ * an array for every query.
+ *
+ * @note      Every coordinate takes 21 bits and is stored in two's complement, so
+ *            coordinates from -2^20 up to 2^20 - 1 can be packed; this includes the
+ *            coordinates just outside a world that neighbour lookups produce.
+ */
+public final class CubeCoordinates {
+
+    private CubeCoordinates() {
+    }
+
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+
+    /**
+     * Returns the given cube coordinates packed into a single long.
+     *
+     * @param     x
+     *            The x-coordinate of the cube.
+     * @param     y
+     *            The y-coordinate of the cube.
+     * @param     z
+     *            The z-coordinate of the cube.
+     * @return  | getX(result) == x && getY(result) == y && getZ(result) == z
+     */
+    public static long pack(int x, int y, int z) {
+        return ((x & MASK) << (2 * BITS)) | ((y & MASK) << BITS) | (z & MASK);
+    }
+
+    /**
+     * Returns the given cube coordinates, given as an array {x, y, z}, packed into a
+     * single long.
+     *
+     * @return  | result == pack(coordinates[0], coordinates[1], coordinates[2])
+     */
+    public static long pack(int[] coordinates) {
+        return pack(coordinates[0], coordinates[1], coordinates[2]);
+    }
+
+    /**
+     * Returns the x-coordinate of the given packed cube coordinates.
+     */
+    public static int getX(long packed) {
+        return (int) ((packed << (64 - 3 * BITS)) >> (64 - BITS));
+    }
+
+    /**
+     * Returns the y-coordinate of the given packed cube coordinates.
+     */
+    public static int getY(long packed) {
+        return (int) ((packed << (64 - 2 * BITS)) >> (64 - BITS));
+    }
+
+    /**
+     * Returns the z-coordinate of the given packed cube coordinates.
+     */
+    public static int getZ(long packed) {
+        return (int) ((packed << (64 - BITS)) >> (64 - BITS));
+    }
+
+    /**
+     * Returns the given packed cube coordinates moved over the given offsets.
+     *
+     * @return  | result == pack(getX(packed) + dx, getY(packed) + dy, getZ(packed) + dz)
+     */
+    public static long offset(long packed, int dx, int dy, int dz) {
+        return pack(getX(packed) + dx, getY(packed) + dy, getZ(packed) + dz);
+    }
+
+    /**
+     * Returns the given packed cube coordinates as an array {x, y, z}.
+     */
+    public static int[] toArray(long packed) {
+        return new int[] {getX(packed), getY(packed), getZ(packed)};
+    }
+}
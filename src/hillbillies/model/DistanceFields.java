@@ -0,0 +1,572 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A class of distance fields over the cubes of a world units can stand in. A field
+ * registers, for every cube, the walking distance to the nearest cube of a class of
+ * targets (logs, boulders, workshops or the enemies of a faction) and which target
+ * cube that is, so that any number of units can look up their nearest reachable
+ * target at once.
+ *
+ * @note      A field is computed with a breadth-first search from all its targets at
+ *            the same time, through directly adjacent standable cubes (the moves of the
+ *            path finder), the first time it is asked for. After that it is repaired
+ *            locally: a new target, or a cube that became standable, lowers distances
+ *            by a search from that cube only; a target that disappears, or a cube that
+ *            can no longer be stood in, clears the cubes that were nearest to the
+ *            target it relied on, and fills them in again from the cubes around them.
+ * @note      Every cube that registers a target relies on a neighbour one step closer
+ *            to that same target, so the cubes nearest to a target are always
+ *            connected to it, and can be found by a search from the target.
+ * @note      A unit entering another cube moves its source in the enemy fields of the
+ *            other factions by the same repairs, as long as it moves at most
+ *            {@link #MOVE_RADIUS} cubes along every axis. A farther jump marks those
+ *            fields out of date; such a field is computed again on lookup at most once
+ *            every {@link #REBUILD_INTERVAL} ticks, and answers from its last state in
+ *            between.
+ * @note      A field that is not looked up for {@link #IDLE_TICKS} ticks is dropped,
+ *            so that it is neither kept in memory nor repaired while no unit needs it.
+ */
+class DistanceFields {
+
+    /**
+     * Initialize this new set of distance fields for the given world.
+     *
+     * @param world
+     *            The world to compute distance fields for.
+     */
+    DistanceFields(World world) {
+        this.world = world;
+        this.nbX = world.getNbCubesX();
+        this.nbY = world.getNbCubesY();
+        this.nbCubes = this.nbX * this.nbY * world.getNbCubesZ();
+        this.queue = new int[this.nbCubes];
+        this.marked = new BitSet(this.nbCubes);
+    }
+
+    /**
+     * The field kinds of the targets that do not depend on a faction.
+     */
+    static final int LOG = 0;
+    static final int BOULDER = 1;
+    static final int WORKSHOP = 2;
+
+    /**
+     * The field kind of the enemies of a faction.
+     */
+    private static final int ENEMY = 3;
+
+    /**
+     * The distance of cubes from which no target can be reached.
+     */
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * The number of cubes along every axis a unit may move at once for its source in
+     * the enemy fields to be moved rather than computed again.
+     */
+    static final int MOVE_RADIUS = 2;
+
+    /**
+     * The number of ticks between two computations of the same out of date field.
+     */
+    static final int REBUILD_INTERVAL = 5;
+
+    /**
+     * The number of ticks a field is kept without being looked up.
+     */
+    static final int IDLE_TICKS = 50;
+
+    private final World world;
+    private final int nbX;
+    private final int nbY;
+    private final int nbCubes;
+    private final int[] queue;
+    private final BitSet marked;
+    private long[] seeds = new long[64];
+
+    /**
+     * Variable registering the fields of the targets that do not depend on a faction,
+     * by kind; a field is only created once it is asked for.
+     */
+    private final Field[] fields = new Field[3];
+
+    /**
+     * Variable registering the fields of the enemies of every faction.
+     */
+    private final Map<Faction, Field> enemyFields = new HashMap<>();
+
+    /**
+     * Variables registering the cube and the faction of every unit of the world, as
+     * the sources of the enemy fields know them.
+     */
+    private final Map<Unit, Integer> unitCubes = new HashMap<>();
+    private final Map<Unit, Faction> unitFactions = new HashMap<>();
+
+    /**
+     * A class of distance fields: the distance to, and the index of, the nearest
+     * target of every cube.
+     */
+    private final class Field {
+
+        Field(int kind, Faction faction) {
+            this.kind = kind;
+            this.faction = faction;
+            this.distance = new int[DistanceFields.this.nbCubes];
+            this.nearest = new int[DistanceFields.this.nbCubes];
+        }
+
+        final int kind;
+        final Faction faction;
+        final int[] distance;
+        final int[] nearest;
+
+        /**
+         * The number of enemies in every cube holding one, for enemy fields.
+         */
+        final Map<Integer, Integer> enemies = new HashMap<>();
+
+        boolean outOfDate = true;
+        long builtTick = -REBUILD_INTERVAL;
+        long queriedTick;
+    }
+
+    /**
+     * Variable registering the number of ticks the world has been advanced in.
+     */
+    private long tick = 0;
+
+    /**
+     * Start the next tick of the world, dropping the fields that were not looked up
+     * for {@link #IDLE_TICKS} ticks.
+     */
+    void nextTick() {
+        this.tick++;
+        for (int kind = 0; kind < this.fields.length; kind++)
+            if (this.fields[kind] != null && this.isIdle(this.fields[kind]))
+                this.fields[kind] = null;
+        for (Iterator<Field> it = this.enemyFields.values().iterator(); it.hasNext(); )
+            if (this.isIdle(it.next()))
+                it.remove();
+    }
+
+    private boolean isIdle(Field field) {
+        return this.tick - field.queriedTick > IDLE_TICKS;
+    }
+
+    /**
+     * Returns the index of the target of the given kind nearest to the cube with the
+     * given index, or -1 if no such target can be reached from that cube.
+     */
+    int getNearestTarget(int kind, int index) {
+        Field field = this.getField(kind);
+        return field.distance[index] == UNREACHABLE ? -1 : field.nearest[index];
+    }
+
+    /**
+     * Returns the walking distance from the cube with the given index to the nearest
+     * target of the given kind, or {@link #UNREACHABLE} if no such target can be reached.
+     */
+    int getDistanceToTarget(int kind, int index) {
+        return this.getField(kind).distance[index];
+    }
+
+    /**
+     * Returns the index of the enemy cube, of a unit of the given faction, nearest to
+     * the cube with the given index, or -1 if no enemy can be reached from that cube.
+     */
+    int getNearestEnemy(Faction faction, int index) {
+        Field field = this.getEnemyField(faction);
+        return field.distance[index] == UNREACHABLE ? -1 : field.nearest[index];
+    }
+
+    /**
+     * Update the fields after a target of the given kind appeared in the cube with the
+     * given index.
+     */
+    void targetAdded(int kind, int index) {
+        Field field = this.fields[kind];
+        if (field != null && !field.outOfDate)
+            this.lowerFrom(field, index);
+    }
+
+    /**
+     * Update the fields after a target of the given kind disappeared from the cube with
+     * the given index.
+     */
+    void targetRemoved(int kind, int index) {
+        Field field = this.fields[kind];
+        if (field != null && !field.outOfDate)
+            this.raise(field, index);
+    }
+
+    /**
+     * Update the fields after the terrain of the cube with the given index changed.
+     */
+    void terrainChanged(int index) {
+        for (Field field : this.fields)
+            if (field != null && !field.outOfDate)
+                this.repairAround(field, index);
+        for (Field field : this.enemyFields.values())
+            if (!field.outOfDate)
+                this.repairAround(field, index);
+    }
+
+    /**
+     * Update the fields after the given unit joined the world.
+     */
+    void unitAdded(Unit unit) {
+        if (this.unitCubes.containsKey(unit))
+            return;
+        int cube = this.getCubeOf(unit);
+        this.unitCubes.put(unit, cube);
+        this.unitFactions.put(unit, unit.getFaction());
+        for (Field field : this.enemyFields.values())
+            if (field.faction != unit.getFaction())
+                this.addEnemy(field, cube);
+    }
+
+    /**
+     * Update the fields after the given unit left the world.
+     */
+    void unitRemoved(Unit unit) {
+        Integer cube = this.unitCubes.remove(unit);
+        if (cube == null)
+            return;
+        Faction faction = this.unitFactions.remove(unit);
+        for (Field field : this.enemyFields.values())
+            if (field.faction != faction)
+                this.removeEnemy(field, cube);
+    }
+
+    /**
+     * Update the fields after the given unit entered another cube.
+     */
+    void unitMoved(Unit unit) {
+        Integer from = this.unitCubes.get(unit);
+        if (from == null)
+            return;
+        int to = this.getCubeOf(unit);
+        if (from == to)
+            return;
+        this.unitCubes.put(unit, to);
+        boolean far = !this.isNear(from, to);
+        Faction faction = this.unitFactions.get(unit);
+        for (Field field : this.enemyFields.values()) {
+            if (field.faction != faction) {
+                if (far)
+                    field.outOfDate = true;
+                this.addEnemy(field, to);
+                this.removeEnemy(field, from);
+            }
+        }
+    }
+
+    /**
+     * Update the fields after the given unit joined another faction.
+     */
+    void factionChanged(Unit unit) {
+        Integer cube = this.unitCubes.get(unit);
+        if (cube == null)
+            return;
+        Faction previous = this.unitFactions.put(unit, unit.getFaction());
+        for (Field field : this.enemyFields.values()) {
+            boolean wasEnemy = field.faction != previous;
+            boolean isEnemy = field.faction != unit.getFaction();
+            if (isEnemy && !wasEnemy)
+                this.addEnemy(field, cube);
+            else if (wasEnemy && !isEnemy)
+                this.removeEnemy(field, cube);
+        }
+    }
+
+    private int getCubeOf(Unit unit) {
+        Position position = unit.getPosition();
+        return this.world.getIndex(position.getCubeX(), position.getCubeY(), position.getCubeZ());
+    }
+
+    /**
+     * Returns whether the cubes with the given indices lie at most {@link #MOVE_RADIUS}
+     * cubes apart along every axis.
+     */
+    private boolean isNear(int from, int to) {
+        int nbXY = this.nbX * this.nbY;
+        return Math.abs(from % this.nbX - to % this.nbX) <= MOVE_RADIUS
+                && Math.abs((from / this.nbX) % this.nbY - (to / this.nbX) % this.nbY) <= MOVE_RADIUS
+                && Math.abs(from / nbXY - to / nbXY) <= MOVE_RADIUS;
+    }
+
+    private void addEnemy(Field field, int cube) {
+        if (field.enemies.merge(cube, 1, Integer::sum) == 1 && !field.outOfDate)
+            this.lowerFrom(field, cube);
+    }
+
+    private void removeEnemy(Field field, int cube) {
+        Integer count = field.enemies.get(cube);
+        if (count == null)
+            return;
+        if (count > 1) {
+            field.enemies.put(cube, count - 1);
+        } else {
+            field.enemies.remove(cube);
+            if (!field.outOfDate)
+                this.raise(field, cube);
+        }
+    }
+
+    private Field getField(int kind) {
+        Field field = this.fields[kind];
+        if (field == null) {
+            field = new Field(kind, null);
+            this.fields[kind] = field;
+        }
+        field.queriedTick = this.tick;
+        if (field.outOfDate)
+            this.build(field);
+        return field;
+    }
+
+    private Field getEnemyField(Faction faction) {
+        Field field = this.enemyFields.get(faction);
+        if (field == null) {
+            field = new Field(ENEMY, faction);
+            this.enemyFields.put(faction, field);
+        }
+        field.queriedTick = this.tick;
+        if (field.outOfDate && this.tick - field.builtTick >= REBUILD_INTERVAL)
+            this.build(field);
+        return field;
+    }
+
+    /**
+     * Compute the given field from scratch.
+     */
+    private void build(Field field) {
+        Arrays.fill(field.distance, UNREACHABLE);
+        field.outOfDate = false;
+        field.builtTick = this.tick;
+        this.tail = 0;
+        switch (field.kind) {
+            case LOG:
+                for (int index : this.world.getLogCubes())
+                    this.addSource(field, index);
+                break;
+            case BOULDER:
+                for (int index : this.world.getBoulderCubes())
+                    this.addSource(field, index);
+                break;
+            case WORKSHOP:
+                for (int index = 0; index < this.nbCubes; index++)
+                    if (this.world.isWorkshop(index))
+                        this.addSource(field, index);
+                break;
+            default:
+                field.enemies.clear();
+                for (Map.Entry<Unit, Integer> entry : this.unitCubes.entrySet()) {
+                    if (this.unitFactions.get(entry.getKey()) != field.faction) {
+                        field.enemies.merge(entry.getValue(), 1, Integer::sum);
+                        this.addSource(field, entry.getValue());
+                    }
+                }
+        }
+        this.spread(field);
+    }
+
+    /**
+     * Returns whether the cube with the given index holds a target of the given field.
+     */
+    private boolean isSource(Field field, int index) {
+        switch (field.kind) {
+            case LOG:
+                return this.world.getLogAt(index) != null;
+            case BOULDER:
+                return this.world.getBoulderAt(index) != null;
+            case WORKSHOP:
+                return this.world.isWorkshop(index);
+            default:
+                return field.enemies.containsKey(index);
+        }
+    }
+
+    private int tail;
+
+    private void addSource(Field field, int index) {
+        if (field.distance[index] == 0)
+            return;
+        field.distance[index] = 0;
+        field.nearest[index] = index;
+        this.queue[this.tail++] = index;
+    }
+
+    /**
+     * Spread the distances of the field from the cubes in the queue, breadth first.
+     */
+    private void spread(Field field) {
+        for (int head = 0; head < this.tail; head++) {
+            int cube = this.queue[head];
+            int distance = field.distance[cube] + 1;
+            for (int direction = 0; direction < 6; direction++) {
+                int neighbour = this.getNeighbour(cube, direction);
+                if (neighbour >= 0 && field.distance[neighbour] > distance && this.world.isStandable(neighbour)) {
+                    field.distance[neighbour] = distance;
+                    field.nearest[neighbour] = field.nearest[cube];
+                    this.queue[this.tail++] = neighbour;
+                }
+            }
+        }
+        this.tail = 0;
+    }
+
+    /**
+     * Lower the distances of the given up-to-date field around a new target in the cube
+     * with the given index.
+     */
+    private void lowerFrom(Field field, int index) {
+        this.tail = 0;
+        this.addSource(field, index);
+        this.spread(field);
+    }
+
+    /**
+     * Clear the distances of the cubes of the given up-to-date field nearest to the
+     * target in the cube with the given index, and fill them in again from the cubes
+     * around them, and from that target if it is still there.
+     */
+    private void raise(Field field, int index) {
+        if (field.distance[index] == UNREACHABLE || field.nearest[index] != index)
+            return;
+        // clear the cubes nearest to the target, which are connected to it
+        int size = 0;
+        field.distance[index] = UNREACHABLE;
+        this.queue[size++] = index;
+        for (int head = 0; head < size; head++) {
+            int cube = this.queue[head];
+            for (int direction = 0; direction < 6; direction++) {
+                int neighbour = this.getNeighbour(cube, direction);
+                if (neighbour >= 0 && field.distance[neighbour] != UNREACHABLE && field.nearest[neighbour] == index) {
+                    field.distance[neighbour] = UNREACHABLE;
+                    this.queue[size++] = neighbour;
+                }
+            }
+        }
+        // the cubes around them that still reach a target seed the search, by distance
+        int nbSeeds = 0;
+        if (this.isSource(field, index)) {
+            field.distance[index] = 0;
+            this.marked.set(index);
+            this.seeds[nbSeeds++] = index;
+        }
+        for (int i = 0; i < size; i++) {
+            int cube = this.queue[i];
+            for (int direction = 0; direction < 6; direction++) {
+                int neighbour = this.getNeighbour(cube, direction);
+                if (neighbour >= 0 && field.distance[neighbour] != UNREACHABLE && !this.marked.get(neighbour)
+                        && (this.world.isStandable(neighbour) || this.isSource(field, neighbour))) {
+                    this.marked.set(neighbour);
+                    if (nbSeeds == this.seeds.length)
+                        this.seeds = Arrays.copyOf(this.seeds, 2 * nbSeeds);
+                    this.seeds[nbSeeds++] = (long) field.distance[neighbour] << 32 | neighbour;
+                }
+            }
+        }
+        for (int i = 0; i < nbSeeds; i++)
+            this.marked.clear((int) this.seeds[i]);
+        Arrays.sort(this.seeds, 0, nbSeeds);
+        this.spreadFrom(field, nbSeeds);
+    }
+
+    /**
+     * Spread the distances of the field from the given number of seeds, sorted by
+     * distance, merging them with the cubes they reach so that every cube is reached
+     * at its shortest distance first.
+     */
+    private void spreadFrom(Field field, int nbSeeds) {
+        int head = 0;
+        int next = 0;
+        this.tail = 0;
+        while (next < nbSeeds || head < this.tail) {
+            int cube;
+            if (head == this.tail || (next < nbSeeds && (int) (this.seeds[next] >>> 32) <= field.distance[this.queue[head]]))
+                cube = (int) this.seeds[next++];
+            else
+                cube = this.queue[head++];
+            int distance = field.distance[cube] + 1;
+            for (int direction = 0; direction < 6; direction++) {
+                int neighbour = this.getNeighbour(cube, direction);
+                if (neighbour >= 0 && field.distance[neighbour] > distance && this.world.isStandable(neighbour)) {
+                    field.distance[neighbour] = distance;
+                    field.nearest[neighbour] = field.nearest[cube];
+                    this.queue[this.tail++] = neighbour;
+                }
+            }
+        }
+        this.tail = 0;
+    }
+
+    /**
+     * Repair the given up-to-date field after the terrain of the cube with the given
+     * index changed, which changes whether it and its neighbours can be stood in.
+     */
+    private void repairAround(Field field, int index) {
+        if (field.kind == WORKSHOP) {
+            boolean wasSource = field.distance[index] == 0 && field.nearest[index] == index;
+            if (this.world.isWorkshop(index) && !wasSource)
+                this.lowerFrom(field, index);
+            else if (!this.world.isWorkshop(index) && wasSource)
+                this.raise(field, index);
+        }
+        // cubes that can no longer be stood in clear the cubes nearest to their target
+        for (int direction = -1; direction < 6; direction++) {
+            int cube = direction < 0 ? index : this.getNeighbour(index, direction);
+            if (cube >= 0 && field.distance[cube] != UNREACHABLE && !this.world.isStandable(cube)
+                    && !this.isSource(field, cube))
+                this.raise(field, field.nearest[cube]);
+        }
+        // cubes that can be stood in take the distance of their nearest neighbour
+        for (int direction = -1; direction < 6; direction++) {
+            int cube = direction < 0 ? index : this.getNeighbour(index, direction);
+            if (cube < 0 || !this.world.isStandable(cube))
+                continue;
+            for (int other = 0; other < 6; other++) {
+                int neighbour = this.getNeighbour(cube, other);
+                if (neighbour >= 0 && field.distance[neighbour] != UNREACHABLE
+                        && field.distance[neighbour] + 1 < field.distance[cube]) {
+                    field.distance[cube] = field.distance[neighbour] + 1;
+                    field.nearest[cube] = field.nearest[neighbour];
+                }
+            }
+            if (field.distance[cube] != UNREACHABLE) {
+                this.tail = 0;
+                this.queue[this.tail++] = cube;
+                this.spread(field);
+            }
+        }
+    }
+
+    /**
+     * Return the index of the neighbour of the given cube in the given direction
+     * (-x, +x, -y, +y, -z, +z), or -1 if it lies outside the world.
+     */
+    private int getNeighbour(int index, int direction) {
+        int nbXY = this.nbX * this.nbY;
+        switch (direction) {
+            case 0:
+                return index % this.nbX == 0 ? -1 : index - 1;
+            case 1:
+                return index % this.nbX == this.nbX - 1 ? -1 : index + 1;
+            case 2:
+                return (index / this.nbX) % this.nbY == 0 ? -1 : index - this.nbX;
+            case 3:
+                return (index / this.nbX) % this.nbY == this.nbY - 1 ? -1 : index + this.nbX;
+            case 4:
+                return index < nbXY ? -1 : index - nbXY;
+            default:
+                return index + nbXY >= this.nbCubes ? -1 : index + nbXY;
+        }
+    }
+}
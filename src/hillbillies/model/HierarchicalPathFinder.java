@@ -0,0 +1,578 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * A class of hierarchical path finders (HPA*), planning long walks over an abstract
+ * graph of clusters instead of over all cubes of a world.
+ *
+ * The world is chunked into cubic clusters. Wherever units can cross from one
+ * cluster into a neighbouring one, every contiguous stretch of such crossings on
+ * the shared face gets one entrance: a pair of cubes on either side, connected by
+ * a single step. Within a cluster, the walking distances between its entrances are
+ * precomputed. A long path is found over this graph and then refined into cubes one
+ * cluster at a time; short paths are left to the flat A* search.
+ *
+ * @note      Clusters are built lazily, when a search first enters them, and a terrain
+ *            change only marks the clusters around the changed cube to be rebuilt.
+ *            Searches on different threads only wait for each other while they build
+ *            clusters.
+ */
+public class HierarchicalPathFinder extends PathFinder {
+
+    /**
+     * Initialize this new hierarchical path finder for the given world, using
+     * clusters of the default size.
+     *
+     * @param world
+     *            The world to find paths in.
+     * @effect | this(world, DEFAULT_CLUSTER_SIZE)
+     */
+    public HierarchicalPathFinder(World world) {
+        this(world, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * Initialize this new hierarchical path finder for the given world, using
+     * clusters of the given size.
+     *
+     * @param world
+     *            The world to find paths in.
+     * @param clusterSize
+     *            The number of cubes along each side of a cluster.
+     * @throws IllegalArgumentException
+     *            The given cluster size is not strictly positive.
+     *          | clusterSize <= 0
+     */
+    public HierarchicalPathFinder(World world, int clusterSize) throws IllegalArgumentException {
+        super(world);
+        if (clusterSize <= 0)
+            throw new IllegalArgumentException();
+        this.clusterSize = clusterSize;
+        this.nbClustersX = (world.getNbCubesX() + clusterSize - 1) / clusterSize;
+        this.nbClustersY = (world.getNbCubesY() + clusterSize - 1) / clusterSize;
+        this.nbClustersZ = (world.getNbCubesZ() + clusterSize - 1) / clusterSize;
+        int nbClusters = this.nbClustersX * this.nbClustersY * this.nbClustersZ;
+        this.clusters = new Cluster[nbClusters];
+        this.faces = new int[3 * nbClusters][];
+    }
+
+    /**
+     * The default number of cubes along each side of a cluster.
+     */
+    public static final int DEFAULT_CLUSTER_SIZE = 8;
+
+    /**
+     * Variable registering the number of cubes along each side of a cluster.
+     */
+    private final int clusterSize;
+
+    private final int nbClustersX;
+    private final int nbClustersY;
+    private final int nbClustersZ;
+
+    /**
+     * Variable registering the clusters of this path finder, by cluster index;
+     * null for clusters that still have to be (re)built.
+     */
+    private final Cluster[] clusters;
+
+    /**
+     * Variable registering the entrances on the faces between clusters, as
+     * consecutive pairs of cube indices {inside, outside}. The face with index
+     * 3 * cluster + direction is the face between the cluster and its neighbour
+     * in the positive x, y or z direction; null for faces that still have to be
+     * (re)computed.
+     */
+    private final int[][] faces;
+
+    /**
+     * Returns the number of cubes along each side of a cluster.
+     */
+    public int getClusterSize() {
+        return this.clusterSize;
+    }
+
+    /**
+     * Find a path from the given start cube to the given goal cube.
+     *
+     * @param start
+     *            The cube coordinates to start from.
+     * @param goal
+     *            The cube coordinates to walk to.
+     * @return The cube coordinates of a path, starting with the given start and
+     *         ending with the given goal, where every cube but the goal is a cube
+     *         a unit can stand in; or null if no such path exists. Paths between
+     *         nearby cubes are shortest paths, longer paths are close to shortest.
+     */
+    @Override
+    public List<int[]> findPath(int[] start, int[] goal) {
+        int distance = Math.abs(start[0] - goal[0]) + Math.abs(start[1] - goal[1]) + Math.abs(start[2] - goal[2]);
+        if (distance <= 2 * this.getClusterSize() || this.getClusterOf(start[0], start[1], start[2])
+                == this.getClusterOf(goal[0], goal[1], goal[2]))
+            return super.findPath(start, goal);
+        if (this.getWorld().isSolid(goal[0], goal[1], goal[2]))
+            return null;
+        return this.findAbstractPath(start, goal);
+    }
+
+    /**
+     * Mark the clusters whose entrances or distances can be affected by a terrain
+     * change of the cube at the given coordinates to be rebuilt.
+     *
+     * @param x
+     *            The x-coordinate of the changed cube.
+     * @param y
+     *            The y-coordinate of the changed cube.
+     * @param z
+     *            The z-coordinate of the changed cube.
+     * @note  Whether a unit can stand in a cube depends on its neighbours, so the
+     *        clusters of the changed cube and of its neighbours are affected.
+     */
+    @Override
+    public synchronized void terrainChanged(int x, int y, int z) {
+        this.invalidateCluster(this.getClusterOf(x, y, z));
+        for (int[] offset : OFFSETS) {
+            int nx = x + offset[0];
+            int ny = y + offset[1];
+            int nz = z + offset[2];
+            if (this.isInWorld(nx, ny, nz))
+                this.invalidateCluster(this.getClusterOf(nx, ny, nz));
+        }
+    }
+
+    /**
+     * Mark the given cluster, its faces and its neighbouring clusters (which share
+     * those faces) to be rebuilt.
+     */
+    private void invalidateCluster(int cluster) {
+        this.clusters[cluster] = null;
+        for (int direction = 0; direction < 3; direction++) {
+            this.faces[3 * cluster + direction] = null;
+            int previous = this.getNeighbourCluster(cluster, direction, -1);
+            if (previous >= 0) {
+                this.faces[3 * previous + direction] = null;
+                this.clusters[previous] = null;
+            }
+            int next = this.getNeighbourCluster(cluster, direction, 1);
+            if (next >= 0)
+                this.clusters[next] = null;
+        }
+    }
+
+    /**
+     * Find a path over the abstract graph of entrances and refine it into cubes.
+     */
+    private List<int[]> findAbstractPath(int[] start, int[] goal) {
+        ClusterSearch search = CLUSTER_SEARCH.get();
+        int nbX = this.getWorld().getNbCubesX();
+        int nbY = this.getWorld().getNbCubesY();
+        int startIndex = start[0] + start[1] * nbX + start[2] * nbX * nbY;
+        int goalIndex = goal[0] + goal[1] * nbX + goal[2] * nbX * nbY;
+        int startCluster = this.getClusterOf(startIndex);
+        int goalCluster = this.getClusterOf(goalIndex);
+
+        // the distances from the goal to the entrances of its cluster
+        Cluster goalNodes = this.getCluster(goalCluster);
+        this.searchCluster(search, goalIndex, goalCluster, goalIndex);
+        Map<Integer, Integer> goalDistances = new HashMap<>();
+        for (int node : goalNodes.nodes) {
+            int nodeDistance = this.getSearchDistance(search, node, goalCluster);
+            if (nodeDistance >= 0)
+                goalDistances.put(node, nodeDistance);
+        }
+        if (goalDistances.isEmpty())
+            return null;
+
+        Map<Integer, Integer> costs = new HashMap<>();
+        Map<Integer, Integer> parents = new HashMap<>();
+        Set<Integer> closed = new HashSet<>();
+        PriorityQueue<long[]> open = new PriorityQueue<>((first, second) -> Long.compare(first[0], second[0]));
+
+        Cluster startNodes = this.getCluster(startCluster);
+        this.searchCluster(search, startIndex, startCluster, -1);
+        for (int node : startNodes.nodes) {
+            int nodeDistance = this.getSearchDistance(search, node, startCluster);
+            if (nodeDistance >= 0)
+                this.relax(open, costs, parents, startIndex, node, nodeDistance, goal);
+        }
+        while (!open.isEmpty()) {
+            int current = (int) open.poll()[1];
+            if (!closed.add(current))
+                continue;
+            if (current == goalIndex)
+                return this.refine(search, parents, startIndex, goalIndex);
+            int cost = costs.get(current);
+            Integer toGoal = goalDistances.get(current);
+            if (toGoal != null)
+                this.relax(open, costs, parents, current, goalIndex, cost + toGoal, goal);
+            Cluster cluster = this.getCluster(this.getClusterOf(current));
+            int slot = cluster.slots.get(current);
+            for (int other = 0; other < cluster.nodes.length; other++) {
+                int otherDistance = cluster.distances[slot][other];
+                if (otherDistance > 0)
+                    this.relax(open, costs, parents, current, cluster.nodes[other], cost + otherDistance, goal);
+            }
+            for (int partner : cluster.partners[slot])
+                this.relax(open, costs, parents, current, partner, cost + 1, goal);
+        }
+        return null;
+    }
+
+    private void relax(PriorityQueue<long[]> open, Map<Integer, Integer> costs, Map<Integer, Integer> parents,
+                       int from, int to, int cost, int[] goal) {
+        Integer known = costs.get(to);
+        if (known != null && known <= cost)
+            return;
+        costs.put(to, cost);
+        parents.put(to, from);
+        int nbX = this.getWorld().getNbCubesX();
+        int nbY = this.getWorld().getNbCubesY();
+        int heuristic = Math.abs(to % nbX - goal[0]) + Math.abs((to / nbX) % nbY - goal[1])
+                + Math.abs(to / (nbX * nbY) - goal[2]);
+        open.add(new long[]{cost + heuristic, to});
+    }
+
+    /**
+     * Turn the abstract path ending in the given goal into the cubes to walk through.
+     */
+    private List<int[]> refine(ClusterSearch search, Map<Integer, Integer> parents, int startIndex, int goalIndex) {
+        List<Integer> abstractPath = new ArrayList<>();
+        // the start has itself as parent if it is an entrance
+        for (int node = goalIndex; node != startIndex; node = parents.get(node))
+            abstractPath.add(node);
+        abstractPath.add(startIndex);
+        Collections.reverse(abstractPath);
+
+        List<int[]> path = new ArrayList<>();
+        path.add(this.toCoordinates(startIndex));
+        for (int i = 1; i < abstractPath.size(); i++) {
+            int from = abstractPath.get(i - 1);
+            int to = abstractPath.get(i);
+            if (this.getClusterOf(from) != this.getClusterOf(to)) {
+                // crossing an entrance is a single step
+                path.add(this.toCoordinates(to));
+                continue;
+            }
+            int cluster = this.getClusterOf(from);
+            this.searchCluster(search, from, cluster, to);
+            List<int[]> segment = new ArrayList<>();
+            for (int local = this.toLocal(to, cluster); search.parent[local] >= 0; local = search.parent[local])
+                segment.add(this.toCoordinates(this.toGlobal(local, cluster)));
+            Collections.reverse(segment);
+            path.addAll(segment);
+        }
+        return path;
+    }
+
+    /**
+     * Returns the cluster with the given index, (re)building it if needed.
+     *
+     * @note  Clusters are never changed once built, so they can be searched
+     *        outside the lock of this path finder.
+     */
+    private synchronized Cluster getCluster(int cluster) {
+        if (this.clusters[cluster] == null)
+            this.clusters[cluster] = this.buildCluster(cluster);
+        return this.clusters[cluster];
+    }
+
+    /**
+     * Collect the entrances on all six faces of the given cluster, and compute the
+     * walking distances between them within the cluster.
+     */
+    private Cluster buildCluster(int cluster) {
+        Map<Integer, List<Integer>> partnersByNode = new LinkedHashMap<>();
+        for (int direction = 0; direction < 3; direction++) {
+            int[] face = this.getFace(3 * cluster + direction);
+            for (int i = 0; i < face.length; i += 2)
+                partnersByNode.computeIfAbsent(face[i], node -> new ArrayList<>()).add(face[i + 1]);
+            int previous = this.getNeighbourCluster(cluster, direction, -1);
+            if (previous >= 0) {
+                face = this.getFace(3 * previous + direction);
+                for (int i = 0; i < face.length; i += 2)
+                    partnersByNode.computeIfAbsent(face[i + 1], node -> new ArrayList<>()).add(face[i]);
+            }
+        }
+        int nbNodes = partnersByNode.size();
+        Cluster result = new Cluster(nbNodes);
+        int slot = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : partnersByNode.entrySet()) {
+            result.nodes[slot] = entry.getKey();
+            result.slots.put(entry.getKey(), slot);
+            result.partners[slot] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            slot++;
+        }
+        ClusterSearch search = CLUSTER_SEARCH.get();
+        for (int from = 0; from < nbNodes; from++) {
+            this.searchCluster(search, result.nodes[from], cluster, -1);
+            for (int to = 0; to < nbNodes; to++)
+                result.distances[from][to] = this.getSearchDistance(search, result.nodes[to], cluster);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the entrances on the face with the given index, (re)computing them if needed.
+     */
+    private int[] getFace(int face) {
+        if (this.faces[face] == null)
+            this.faces[face] = this.computeFace(face / 3, face % 3);
+        return this.faces[face];
+    }
+
+    /**
+     * Compute the entrances on the face between the given cluster and its neighbour
+     * in the given positive direction: one per contiguous stretch of cubes on the
+     * face from which units can step into the neighbour.
+     */
+    private int[] computeFace(int cluster, int direction) {
+        if (this.getNeighbourCluster(cluster, direction, 1) < 0)
+            return new int[0];
+        int[] origin = this.getClusterOrigin(cluster);
+        int[] limit = this.getClusterLimit(cluster);
+        // the two axes spanning the face
+        int uAxis = direction == 0 ? 1 : 0;
+        int vAxis = direction == 2 ? 1 : 2;
+        int nbU = limit[uAxis] - origin[uAxis];
+        int nbV = limit[vAxis] - origin[vAxis];
+        boolean[] crossing = new boolean[nbU * nbV];
+        int[] inside = new int[nbU * nbV];
+        int[] coordinates = new int[3];
+        for (int u = 0; u < nbU; u++) {
+            for (int v = 0; v < nbV; v++) {
+                coordinates[direction] = limit[direction] - 1;
+                coordinates[uAxis] = origin[uAxis] + u;
+                coordinates[vAxis] = origin[vAxis] + v;
+                boolean canCross = this.isStandable(coordinates[0], coordinates[1], coordinates[2]);
+                inside[u + v * nbU] = this.toIndex(coordinates);
+                coordinates[direction]++;
+                crossing[u + v * nbU] = canCross && this.isStandable(coordinates[0], coordinates[1], coordinates[2]);
+            }
+        }
+        int[] delta = new int[3];
+        delta[direction] = 1;
+        int step = this.toIndex(delta);
+        List<Integer> entrances = new ArrayList<>();
+        int[] queue = new int[nbU * nbV];
+        for (int cell = 0; cell < crossing.length; cell++) {
+            if (!crossing[cell])
+                continue;
+            // flood the stretch of crossings, and pick its middle cube as entrance
+            int tail = 0;
+            crossing[cell] = false;
+            queue[tail++] = cell;
+            for (int head = 0; head < tail; head++) {
+                int current = queue[head];
+                int u = current % nbU;
+                int v = current / nbU;
+                int[] neighbours = {u > 0 ? current - 1 : -1, u < nbU - 1 ? current + 1 : -1,
+                        v > 0 ? current - nbU : -1, v < nbV - 1 ? current + nbU : -1};
+                for (int neighbour : neighbours) {
+                    if (neighbour >= 0 && crossing[neighbour]) {
+                        crossing[neighbour] = false;
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+            int entrance = inside[queue[tail / 2]];
+            entrances.add(entrance);
+            entrances.add(entrance + step);
+        }
+        return entrances.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * The cluster search buffers of every thread, grown to the largest cluster searched in.
+     */
+    private static final ThreadLocal<ClusterSearch> CLUSTER_SEARCH = ThreadLocal.withInitial(ClusterSearch::new);
+
+    /**
+     * A class of reusable breadth-first search buffers for a single cluster. The
+     * results of the last search stay available by local index within the cluster;
+     * an entry is only meaningful if its stamp equals the stamp of that search.
+     */
+    private static final class ClusterSearch {
+
+        private int[] stamp = new int[0];
+        private int[] distance = new int[0];
+        private int[] parent = new int[0];
+        private int[] queue = new int[0];
+        private int currentStamp = 0;
+
+        /**
+         * Prepare these buffers for a new search over the given number of cubes, and
+         * return the stamp of that search.
+         */
+        private int reset(int nbCubes) {
+            if (this.stamp.length < nbCubes) {
+                this.stamp = new int[nbCubes];
+                this.distance = new int[nbCubes];
+                this.parent = new int[nbCubes];
+                this.queue = new int[nbCubes];
+                this.currentStamp = 0;
+            }
+            if (this.currentStamp == Integer.MAX_VALUE) {
+                Arrays.fill(this.stamp, 0);
+                this.currentStamp = 0;
+            }
+            return ++this.currentStamp;
+        }
+    }
+
+    /**
+     * Search the cubes of the given cluster that can be reached from the given origin
+     * through cubes a unit can stand in, using the given buffers; the given extra cube
+     * (or -1) can be entered as well, even if a unit can't stand in it.
+     */
+    private void searchCluster(ClusterSearch search, int origin, int cluster, int extra) {
+        int size = this.getClusterSize();
+        int stamp = search.reset(size * size * size);
+        int[] low = this.getClusterOrigin(cluster);
+        int[] high = this.getClusterLimit(cluster);
+        int nbX = this.getWorld().getNbCubesX();
+        int nbXY = nbX * this.getWorld().getNbCubesY();
+        int tail = 0;
+        int originLocal = this.toLocal(origin, cluster);
+        search.stamp[originLocal] = stamp;
+        search.distance[originLocal] = 0;
+        search.parent[originLocal] = -1;
+        search.queue[tail++] = originLocal;
+        for (int head = 0; head < tail; head++) {
+            int local = search.queue[head];
+            int x = low[0] + local % size;
+            int y = low[1] + (local / size) % size;
+            int z = low[2] + local / (size * size);
+            int index = x + y * nbX + z * nbXY;
+            if (index == extra && index != origin)
+                continue;
+            for (int[] offset : OFFSETS) {
+                int nx = x + offset[0];
+                int ny = y + offset[1];
+                int nz = z + offset[2];
+                if (nx < low[0] || nx >= high[0] || ny < low[1] || ny >= high[1] || nz < low[2] || nz >= high[2])
+                    continue;
+                int neighbourLocal = local + offset[0] + offset[1] * size + offset[2] * size * size;
+                if (search.stamp[neighbourLocal] == stamp)
+                    continue;
+                if (nx + ny * nbX + nz * nbXY != extra && !this.isStandable(nx, ny, nz))
+                    continue;
+                search.stamp[neighbourLocal] = stamp;
+                search.distance[neighbourLocal] = search.distance[local] + 1;
+                search.parent[neighbourLocal] = local;
+                search.queue[tail++] = neighbourLocal;
+            }
+        }
+    }
+
+    /**
+     * Returns the distance of the given cube in the last cluster search in the given
+     * buffers, or -1 if it was not reached.
+     */
+    private int getSearchDistance(ClusterSearch search, int index, int cluster) {
+        int local = this.toLocal(index, cluster);
+        return search.stamp[local] == search.currentStamp ? search.distance[local] : -1;
+    }
+
+    private boolean isInWorld(int x, int y, int z) {
+        return x >= 0 && x < this.getWorld().getNbCubesX() && y >= 0 && y < this.getWorld().getNbCubesY()
+                && z >= 0 && z < this.getWorld().getNbCubesZ();
+    }
+
+    private int toIndex(int[] coordinates) {
+        int nbX = this.getWorld().getNbCubesX();
+        return coordinates[0] + coordinates[1] * nbX + coordinates[2] * nbX * this.getWorld().getNbCubesY();
+    }
+
+    private int[] toCoordinates(int index) {
+        int nbX = this.getWorld().getNbCubesX();
+        int nbY = this.getWorld().getNbCubesY();
+        return new int[]{index % nbX, (index / nbX) % nbY, index / (nbX * nbY)};
+    }
+
+    private int getClusterOf(int x, int y, int z) {
+        int size = this.getClusterSize();
+        return x / size + (y / size) * this.nbClustersX + (z / size) * this.nbClustersX * this.nbClustersY;
+    }
+
+    private int getClusterOf(int index) {
+        int[] cube = this.toCoordinates(index);
+        return this.getClusterOf(cube[0], cube[1], cube[2]);
+    }
+
+    /**
+     * Returns the neighbour of the given cluster in the given direction (0, 1 or 2
+     * for x, y or z) and sign, or -1 if there is none.
+     */
+    private int getNeighbourCluster(int cluster, int direction, int sign) {
+        int[] position = {cluster % this.nbClustersX, (cluster / this.nbClustersX) % this.nbClustersY,
+                cluster / (this.nbClustersX * this.nbClustersY)};
+        int[] counts = {this.nbClustersX, this.nbClustersY, this.nbClustersZ};
+        position[direction] += sign;
+        if (position[direction] < 0 || position[direction] >= counts[direction])
+            return -1;
+        return position[0] + position[1] * this.nbClustersX + position[2] * this.nbClustersX * this.nbClustersY;
+    }
+
+    /**
+     * Returns the coordinates of the lowest cube of the given cluster.
+     */
+    private int[] getClusterOrigin(int cluster) {
+        int size = this.getClusterSize();
+        return new int[]{(cluster % this.nbClustersX) * size, ((cluster / this.nbClustersX) % this.nbClustersY) * size,
+                (cluster / (this.nbClustersX * this.nbClustersY)) * size};
+    }
+
+    /**
+     * Returns the coordinates just beyond the highest cube of the given cluster.
+     */
+    private int[] getClusterLimit(int cluster) {
+        int[] origin = this.getClusterOrigin(cluster);
+        int size = this.getClusterSize();
+        return new int[]{Math.min(origin[0] + size, this.getWorld().getNbCubesX()),
+                Math.min(origin[1] + size, this.getWorld().getNbCubesY()),
+                Math.min(origin[2] + size, this.getWorld().getNbCubesZ())};
+    }
+
+    private int toLocal(int index, int cluster) {
+        int[] cube = this.toCoordinates(index);
+        int[] origin = this.getClusterOrigin(cluster);
+        int size = this.getClusterSize();
+        return (cube[0] - origin[0]) + (cube[1] - origin[1]) * size + (cube[2] - origin[2]) * size * size;
+    }
+
+    private int toGlobal(int local, int cluster) {
+        int[] origin = this.getClusterOrigin(cluster);
+        int size = this.getClusterSize();
+        return this.toIndex(new int[]{origin[0] + local % size, origin[1] + (local / size) % size,
+                origin[2] + local / (size * size)});
+    }
+
+    /**
+     * A class of clusters in the abstract graph, with their entrance cubes, the
+     * entrance cubes of neighbouring clusters they lead to, and the walking distances
+     * between their entrances.
+     */
+    private static final class Cluster {
+
+        private Cluster(int nbNodes) {
+            this.nodes = new int[nbNodes];
+            this.partners = new int[nbNodes][];
+            this.distances = new int[nbNodes][nbNodes];
+        }
+
+        private final int[] nodes;
+        private final int[][] partners;
+        private final int[][] distances;
+        private final Map<Integer, Integer> slots = new HashMap<>();
+    }
+}
@@ -11,7 +11,6 @@ public class Log extends Material {
      *            The position to initialize this log with.
      */
     public Log(Position position, World world) {
-        this.position = position;
-        this.world = world;
+        super(position, world);
     }
 }
\ No newline at end of file
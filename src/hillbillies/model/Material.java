@@ -1,17 +1,28 @@
 package hillbillies.model;
 
-import hillbillies.model.terrain.Passable;
-import hillbillies.model.terrain.Solid;
-import hillbillies.model.terrain.Workshop;
-
-import java.util.concurrent.ThreadLocalRandom;
+import hillbillies.model.terrain.Terrain;
 
 public abstract class Material extends GameObject {
 
+	/**
+	 * Initialize this new material with the given position and world, and a random
+	 * weight between 10 and 50.
+	 *
+	 * @param position
+	 *            The position to initialize this material with.
+	 * @param world
+	 *            The world this material is in, which makes the random choice.
+	 */
+	Material(Position position, World world) {
+		this.position = position;
+		this.world = world;
+		this.weight = 10 + world.getRandom().nextInt(41);
+	}
+
 	/**
 	 * Variable registering the weight of this material.
 	 */
-	final double weight = ThreadLocalRandom.current().nextInt(10,51);
+	final double weight;
 
 	/**
 	 * Variable registering the position of this material.
@@ -30,11 +41,17 @@ public abstract class Material extends GameObject {
      */
     World world;
 
+	/**
+	 * Variables registering where and when the current fall of this material started,
+	 * and at which height and time it lands.
+	 */
 	private Position startPosition;
 
-	private double fallDistance = 0;
+	private double fallStartTime;
+
+	private int landingZ;
 
-	private int floorsToFall = 0;
+	private double landingTime;
 
     /**
      * Returns the weight of this material.
@@ -48,9 +65,16 @@ public abstract class Material extends GameObject {
     /**
      * Returns the position object for this material.
      *
-     * @return This material's position.
+     * @return This material's position; while it falls, the position it has reached
+     *         at the current game time of its world.
      */
     public Position getPosition() {
+        if (this.isFalling()) {
+            double distance = Math.min(this.startPosition.getCubeZ() - this.landingZ,
+                    this.fallingSpeed * (this.world.getTime() - this.fallStartTime));
+            return new Position(this.startPosition.getDoubleX(), this.startPosition.getDoubleY(),
+                    this.startPosition.getDoubleZ() - distance);
+        }
         return this.position;
     }
 
@@ -76,98 +100,94 @@ public abstract class Material extends GameObject {
 		this.falling = falling;
 	}
 	
-	private boolean getFalling(){
-		return this.falling;
-	}
     /**
      * Returns whether or not this material is currently above a solid cube.
      *
      * @return Whether or not this material is currently above a solid cube.
      */
 	public boolean isAboveSolidCube() {
-        int[] positionCoordinates = this.getPosition().getCubeCoordinates();
-		if(positionCoordinates[2]==0)
+        Position position = this.getPosition();
+		if(position.getCubeZ()==0)
 			return true;
-		if(this.world.getCube(positionCoordinates[0], positionCoordinates[1], positionCoordinates[2]).getTerrain() instanceof Workshop)
+		if(this.world.getCubeType(position.getCubeX(), position.getCubeY(), position.getCubeZ()) == Terrain.WORKSHOP.getCode())
 			return true;
-        return (this.world.getCube(positionCoordinates[0], positionCoordinates[1], positionCoordinates[2]-1).getTerrain() instanceof Solid);
+        return this.world.isSolid(position.getCubeX(), position.getCubeY(), position.getCubeZ()-1);
 	}
 
+	/**
+	 * Advance the state of this material by the given time period.
+	 *
+	 * @note The world only advances materials that are falling or may have lost their
+	 *       support; a material that rests after this call is not advanced any more,
+	 *       until the terrain of its cube or of the cube beneath it changes.
+	 */
 	public void advanceTime(double dt) {
-		// TODO - implement Material.advanceTime
         if ((!this.isAboveSolidCube()) && isFalling() == false) {
-            this.setFalling(true);
-            this.calculateFloorsTofall();
-            startPosition = this.getPosition();
-            if (this instanceof Log) {
-            	world.getCube(this.getPosition().getCubeCoordinates()[0],
-                		this.getPosition().getCubeCoordinates()[1], 
-                		this.getPosition().getCubeCoordinates()[2]).setLog(null);
-            } else {
-            	world.getCube(this.getPosition().getCubeCoordinates()[0],
-            		this.getPosition().getCubeCoordinates()[1], 
-            		this.getPosition().getCubeCoordinates()[2]).setBoulder(null);
-            }
-        }
-        if(this.getFalling()){
-        	fall(dt);
+            this.startFalling();
+        } else if (!this.isFalling()) {
+        	this.world.materialSettled(this);
         }
 	}
-	
+
 	/**
-	 * 
+	 * Makes this material fall from its current cube down to the first cube with a
+	 * solid cube beneath it, or to the bottom of the world.
+	 *
+	 * @note The height and time of the landing are computed once; the world lands this
+	 *       material at that time, and does not advance it until then.
 	 */
-	private void calculateFloorsTofall() {
-		int[] positionCoordinates = this.getPosition().getCubeCoordinates();
-		while(true){
-			if(positionCoordinates[2]==0)
-				break;
-			if((this.world.getCube(positionCoordinates[0], positionCoordinates[1], --positionCoordinates[2]).getTerrain() instanceof Passable))
-				floorsToFall  += 1;
-			else
-				break;
+	private void startFalling() {
+		Cube cube = world.getCube(this.position.getCubeX(), this.position.getCubeY(), this.position.getCubeZ());
+		if (this instanceof Log) {
+			cube.setLog(null);
+		} else {
+			cube.setBoulder(null);
 		}
-		
+		this.startPosition = this.position;
+		this.fallStartTime = this.world.getTime();
+		this.setFalling(true);
+		this.fallTo(this.world.getMaterialLandingZ(this.position.getCubeX(), this.position.getCubeY(),
+				this.position.getCubeZ()));
+		this.world.materialFalling(this);
 	}
 
 	/**
-	 * @param dt 
-	 * 
+	 * Lets this falling material land at the given height instead.
 	 */
-	private void fall(double dt) {
-		if(Math.abs(this.getFalldistance()) >= floorsToFall){
-			position = new Position(new double[]{startPosition.getDoubleCoordinates()[0],
-					startPosition.getDoubleCoordinates()[1],
-					startPosition.getDoubleCoordinates()[2] -floorsToFall});
-					setFalldistance(0);
-					this.setFalling(false);
-					if(this instanceof Log) {
-						world.getCube(startPosition.getCubeCoordinates()[0],
-							startPosition.getCubeCoordinates()[1],
-							startPosition.getCubeCoordinates()[2] -floorsToFall).setLog((Log) this);
-					} else {
-						world.getCube(startPosition.getCubeCoordinates()[0],
-								startPosition.getCubeCoordinates()[1],
-								startPosition.getCubeCoordinates()[2] -floorsToFall).setBoulder((Boulder) this);
-					}
-					floorsToFall=0;
-					
-		}else
-			this.setFalldistance(this.getFalldistance() + this.fallingSpeed*dt);
-		position = new Position(new double[]{this.getPosition().getDoubleCoordinates()[0],
-				this.getPosition().getDoubleCoordinates()[1],
-				this.getPosition().getDoubleCoordinates()[2] + this.fallingSpeed*dt});
+	void fallTo(int landingZ) {
+		this.landingZ = landingZ;
+		this.landingTime = this.fallStartTime + (this.startPosition.getCubeZ() - landingZ) / this.fallingSpeed;
 	}
 
 	/**
-	 * @return
+	 * Returns the height at which this falling material lands.
 	 */
-	private double getFalldistance() {
-		return fallDistance;
+	int getLandingZ() {
+		return this.landingZ;
 	}
-	private void setFalldistance(double distance){
-		this.fallDistance = distance;
+
+	/**
+	 * Returns the game time at which this falling material lands.
+	 */
+	double getLandingTime() {
+		return this.landingTime;
 	}
+
+	/**
+	 * Ends the fall of this material, on the cube it was falling to.
+	 */
+	void land() {
+		this.setFalling(false);
+		this.position = new Position(this.startPosition.getDoubleX(), this.startPosition.getDoubleY(),
+				this.startPosition.getDoubleZ() - (this.startPosition.getCubeZ() - this.landingZ));
+		Cube cube = world.getCube(this.position.getCubeX(), this.position.getCubeY(), this.landingZ);
+		if (this instanceof Log) {
+			cube.setLog((Log) this);
+		} else {
+			cube.setBoulder((Boulder) this);
+		}
+	}
+
 	public void setPosition(Position position){
 		this.position = position;
 	}
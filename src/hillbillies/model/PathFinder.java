@@ -0,0 +1,264 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A class of path finders, planning the shortest walk between two cubes of a world
+ * using A* over the directly adjacent cubes a unit can stand in.
+ *
+ * @note      Cubes are identified by their flat index (x + y * nbX + z * nbX * nbY),
+ *            the open set is a binary heap over primitive arrays and all search
+ *            buffers are reused per thread, so a search only allocates its result.
+ */
+public class PathFinder {
+
+    /**
+     * Initialize this new path finder for the given world.
+     *
+     * @param world
+     *            The world to find paths in.
+     * @post  The world of this new path finder is equal to the given world.
+     *      | new.getWorld() == world
+     */
+    public PathFinder(World world) {
+        this.world = world;
+    }
+
+    /**
+     * Variable registering the world this path finder plans paths in.
+     */
+    private final World world;
+
+    /**
+     * Returns the world this path finder plans paths in.
+     */
+    public World getWorld() {
+        return this.world;
+    }
+
+    /**
+     * Find a shortest path from the given start cube to the given goal cube.
+     *
+     * @param start
+     *            The cube coordinates to start from.
+     * @param goal
+     *            The cube coordinates to walk to.
+     * @return The cube coordinates of a shortest path, starting with the given start
+     *         and ending with the given goal, where every cube but the goal is a cube
+     *         a unit can stand in (passable with a solid neighbouring cube);
+     *         or null if no such path exists.
+     */
+    public List<int[]> findPath(int[] start, int[] goal) {
+        int nbX = this.getWorld().getNbCubesX();
+        int nbY = this.getWorld().getNbCubesY();
+        int nbZ = this.getWorld().getNbCubesZ();
+        int startIndex = start[0] + start[1] * nbX + start[2] * nbX * nbY;
+        int goalIndex = goal[0] + goal[1] * nbX + goal[2] * nbX * nbY;
+        if (this.getWorld().isSolid(goal[0], goal[1], goal[2]))
+            return null;
+
+        Scratch scratch = SCRATCH.get();
+        scratch.reset(nbX * nbY * nbZ);
+        scratch.open(startIndex, 0, this.heuristic(startIndex, goal, nbX, nbY), -1);
+        while (scratch.heapSize > 0) {
+            int current = scratch.poll();
+            if (current == goalIndex)
+                return this.toCoordinates(scratch, goalIndex, nbX, nbY);
+            int x = current % nbX;
+            int y = (current / nbX) % nbY;
+            int z = current / (nbX * nbY);
+            int cost = scratch.cost[current] + 1;
+            for (int[] offset : OFFSETS) {
+                int nx = x + offset[0];
+                int ny = y + offset[1];
+                int nz = z + offset[2];
+                if (nx < 0 || nx >= nbX || ny < 0 || ny >= nbY || nz < 0 || nz >= nbZ)
+                    continue;
+                int neighbour = nx + ny * nbX + nz * nbX * nbY;
+                if (scratch.isClosed(neighbour) || (scratch.isSeen(neighbour) && scratch.cost[neighbour] <= cost))
+                    continue;
+                if (neighbour != goalIndex && !this.isStandable(nx, ny, nz))
+                    continue;
+                scratch.open(neighbour, cost, this.heuristic(neighbour, goal, nbX, nbY), current);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Update the state of this path finder after a terrain change of the cube at
+     * the given coordinates.
+     *
+     * @param x
+     *            The x-coordinate of the changed cube.
+     * @param y
+     *            The y-coordinate of the changed cube.
+     * @param z
+     *            The z-coordinate of the changed cube.
+     * @note  This path finder keeps no state between searches, so nothing changes.
+     */
+    public void terrainChanged(int x, int y, int z) {
+    }
+
+    /**
+     * Returns the Manhattan distance from the cube with the given index to the goal,
+     * which never overestimates the number of steps to the goal.
+     */
+    private int heuristic(int index, int[] goal, int nbX, int nbY) {
+        return Math.abs(index % nbX - goal[0]) + Math.abs((index / nbX) % nbY - goal[1])
+                + Math.abs(index / (nbX * nbY) - goal[2]);
+    }
+
+    /**
+     * Returns whether a unit can stand in the cube at the given coordinates,
+     * i.e. whether it is passable and has a solid neighbouring cube.
+     */
+    boolean isStandable(int x, int y, int z) {
+        return this.getWorld().isStandable(this.getWorld().getIndex(x, y, z));
+    }
+
+    private List<int[]> toCoordinates(Scratch scratch, int goalIndex, int nbX, int nbY) {
+        List<int[]> path = new ArrayList<>(scratch.cost[goalIndex] + 1);
+        for (int index = goalIndex; index != -1; index = scratch.parent[index])
+            path.add(new int[]{index % nbX, (index / nbX) % nbY, index / (nbX * nbY)});
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * The offsets of the directly adjacent cubes.
+     */
+    static final int[][] OFFSETS = {
+            {-1, 0, 0}, {1, 0, 0}, {0, -1, 0}, {0, 1, 0}, {0, 0, -1}, {0, 0, 1}
+    };
+
+    /**
+     * The search buffers of every thread, grown to the largest world searched in.
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * A class of reusable A* search buffers. The entries of a cube are only
+     * meaningful if its stamp equals the stamp of the current search, so the
+     * buffers never need to be cleared.
+     */
+    private static final class Scratch {
+
+        private int[] stamp = new int[0];
+        private int[] cost = new int[0];
+        private int[] estimate = new int[0];
+        private int[] parent = new int[0];
+        private int[] heapPosition = new int[0];
+        private int[] heap = new int[0];
+        private int heapSize = 0;
+        private int currentStamp = 0;
+
+        /**
+         * Prepare these buffers for a new search over the given number of cubes.
+         */
+        private void reset(int nbCubes) {
+            if (this.stamp.length < nbCubes) {
+                this.stamp = new int[nbCubes];
+                this.cost = new int[nbCubes];
+                this.estimate = new int[nbCubes];
+                this.parent = new int[nbCubes];
+                this.heapPosition = new int[nbCubes];
+                this.heap = new int[nbCubes];
+                this.currentStamp = 0;
+            }
+            if (this.currentStamp >= Integer.MAX_VALUE - 2) {
+                Arrays.fill(this.stamp, 0);
+                this.currentStamp = 0;
+            }
+            // a seen cube carries the current stamp, a closed one the next
+            this.currentStamp += 2;
+            this.heapSize = 0;
+        }
+
+        private boolean isSeen(int index) {
+            return this.stamp[index] == this.currentStamp;
+        }
+
+        private boolean isClosed(int index) {
+            return this.stamp[index] == this.currentStamp + 1;
+        }
+
+        /**
+         * Add the given cube to the open set, or lower its cost if it already is.
+         */
+        private void open(int index, int cost, int heuristic, int parent) {
+            this.cost[index] = cost;
+            this.estimate[index] = cost + heuristic;
+            this.parent[index] = parent;
+            if (this.isSeen(index)) {
+                this.siftUp(this.heapPosition[index]);
+            } else {
+                this.stamp[index] = this.currentStamp;
+                this.heap[this.heapSize] = index;
+                this.heapPosition[index] = this.heapSize;
+                this.siftUp(this.heapSize++);
+            }
+        }
+
+        /**
+         * Remove the cube with the lowest estimate from the open set, close it and return it.
+         */
+        private int poll() {
+            int result = this.heap[0];
+            this.heapSize--;
+            if (this.heapSize > 0) {
+                this.move(this.heap[this.heapSize], 0);
+                this.siftDown(0);
+            }
+            this.stamp[result] = this.currentStamp + 1;
+            return result;
+        }
+
+        /**
+         * Returns whether the first cube goes before the second: a lower estimate first,
+         * and among equal estimates the one that got furthest.
+         */
+        private boolean before(int first, int second) {
+            if (this.estimate[first] != this.estimate[second])
+                return this.estimate[first] < this.estimate[second];
+            return this.cost[first] > this.cost[second];
+        }
+
+        private void siftUp(int position) {
+            int index = this.heap[position];
+            while (position > 0) {
+                int parentPosition = (position - 1) >>> 1;
+                int parentIndex = this.heap[parentPosition];
+                if (!this.before(index, parentIndex))
+                    break;
+                this.move(parentIndex, position);
+                position = parentPosition;
+            }
+            this.move(index, position);
+        }
+
+        private void siftDown(int position) {
+            int index = this.heap[position];
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= this.heapSize)
+                    break;
+                if (child + 1 < this.heapSize && this.before(this.heap[child + 1], this.heap[child]))
+                    child++;
+                if (!this.before(this.heap[child], index))
+                    break;
+                this.move(this.heap[child], position);
+                position = child;
+            }
+            this.move(index, position);
+        }
+
+        private void move(int index, int position) {
+            this.heap[position] = index;
+            this.heapPosition[index] = position;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package hillbillies.model;
+
+import java.util.List;
+
+/**
+ * A class of path plans, i.e. the sequence of cubes a unit walks through to
+ * reach its target, planned once and consumed step by step.
+ */
+class PathPlan {
+
+    /**
+     * Initialize this new path plan with the given cubes.
+     *
+     * @param cubes
+     *            The cube coordinates of the path, starting with the cube the unit
+     *            is standing in and ending with the target cube.
+     * @post  The unit following this plan is in the first cube of the path.
+     * @throws IllegalArgumentException
+     *            The given path is empty.
+     */
+    PathPlan(List<int[]> cubes) throws IllegalArgumentException {
+        if (cubes.isEmpty())
+            throw new IllegalArgumentException();
+        this.cubes = cubes.toArray(new int[cubes.size()][]);
+    }
+
+    /**
+     * Variable registering the cube coordinates of this path.
+     */
+    private final int[][] cubes;
+
+    /**
+     * Variable registering the index of the cube the unit following this path is in.
+     */
+    private int current = 0;
+
+    /**
+     * Variable registering whether or not this path can still be followed.
+     */
+    private boolean valid = true;
+
+    /**
+     * Returns the target cube of this path.
+     */
+    int[] getTarget() {
+        return this.cubes[this.cubes.length - 1];
+    }
+
+    /**
+     * Returns the number of cubes of this path.
+     */
+    int getLength() {
+        return this.cubes.length;
+    }
+
+    /**
+     * Returns the cube at the given index of this path.
+     */
+    int[] getCube(int index) {
+        return this.cubes[index];
+    }
+
+    /**
+     * Returns the next cube to move to, or null if the target has been reached.
+     */
+    int[] getNextCube() {
+        if (this.isFinished())
+            return null;
+        return this.cubes[this.current + 1];
+    }
+
+    /**
+     * Returns whether or not the unit following this path reached its target.
+     */
+    boolean isFinished() {
+        return this.current == this.cubes.length - 1;
+    }
+
+    /**
+     * Returns whether or not this path can still be followed.
+     */
+    boolean isValid() {
+        return this.valid;
+    }
+
+    /**
+     * Marks this path as no longer followable.
+     *
+     * @post  | !new.isValid()
+     */
+    void invalidate() {
+        this.valid = false;
+    }
+
+    /**
+     * Update the progress along this path to the given cube.
+     *
+     * @param cube
+     *            The cube the unit following this path is standing in.
+     * @return true if the given cube is the current or the next cube of this path;
+     *         false otherwise, in which case the unit left this path.
+     */
+    boolean advanceTo(int[] cube) {
+        if (sameCube(this.cubes[this.current], cube))
+            return true;
+        if (!this.isFinished() && sameCube(this.cubes[this.current + 1], cube)) {
+            this.current++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether or not the given cube is the current or the next cube of this
+     * path, without updating the progress along it.
+     */
+    boolean isOn(int[] cube) {
+        return sameCube(this.cubes[this.current], cube)
+                || (!this.isFinished() && sameCube(this.cubes[this.current + 1], cube));
+    }
+
+    /**
+     * Returns whether or not a terrain change of the cube at the given coordinates
+     * can affect the remainder of this path, i.e. whether the changed cube is on
+     * that remainder or directly adjacent to it (which can change whether a unit
+     * can stand there).
+     */
+    boolean isTouchedBy(int x, int y, int z) {
+        for (int i = this.current; i < this.cubes.length; i++) {
+            int[] cube = this.cubes[i];
+            if (Math.abs(cube[0] - x) <= 1 && Math.abs(cube[1] - y) <= 1 && Math.abs(cube[2] - z) <= 1)
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean sameCube(int[] first, int[] second) {
+        return first[0] == second[0] && first[1] == second[1] && first[2] == second[2];
+    }
+}
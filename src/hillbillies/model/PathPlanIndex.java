@@ -0,0 +1,139 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A class of indices of the path plans of the units of a world by the cells they
+ * cross. The world is divided into cells of cellSize x cellSize x cellSize cubes, like
+ * a {@link UnitGrid}, and every cell lists the units whose path plan has a cube in it,
+ * so that a terrain change only looks at the units whose plan may be touched by it.
+ *
+ * @note      A plan stays registered in all the cells it crosses until it is replaced,
+ *            even after the unit walked past some of them; the units returned are
+ *            therefore only candidates, to be checked against their plan.
+ */
+class PathPlanIndex {
+
+    /**
+     * Initialize this new index for a world of the given size.
+     *
+     * @param nbX
+     *            The number of cubes of the world in the x-direction.
+     * @param nbY
+     *            The number of cubes of the world in the y-direction.
+     * @param nbZ
+     *            The number of cubes of the world in the z-direction.
+     * @param cellSize
+     *            The number of cubes along every side of a cell.
+     * @throws IllegalArgumentException
+     *            The given cell size is not strictly positive.
+     */
+    PathPlanIndex(int nbX, int nbY, int nbZ, int cellSize) throws IllegalArgumentException {
+        if (cellSize <= 0)
+            throw new IllegalArgumentException("cell size must be positive");
+        this.cellSize = cellSize;
+        this.cellsX = (nbX + cellSize - 1) / cellSize;
+        this.cellsY = (nbY + cellSize - 1) / cellSize;
+        this.cellsZ = (nbZ + cellSize - 1) / cellSize;
+        this.cells = new ArrayList<?>[this.cellsX * this.cellsY * this.cellsZ];
+    }
+
+    private final int cellSize;
+    private final int cellsX;
+    private final int cellsY;
+    private final int cellsZ;
+
+    /**
+     * Variable registering the units whose plan crosses every cell; the list of a cell
+     * is only created once a plan crosses it.
+     */
+    private final ArrayList<?>[] cells;
+
+    /**
+     * Variable registering the cells crossed by the plan of every unit in this index.
+     */
+    private final Map<Unit, int[]> cellsOfUnit = new HashMap<>();
+
+    /**
+     * Register the given plan as the path plan of the given unit, replacing its
+     * previous plan; a null plan removes the unit from this index.
+     */
+    void register(Unit unit, PathPlan plan) {
+        this.remove(unit);
+        if (plan == null)
+            return;
+        int[] crossed = new int[plan.getLength()];
+        for (int i = 0; i < crossed.length; i++) {
+            int[] cube = plan.getCube(i);
+            crossed[i] = this.getCell(this.clamp(cube[0], this.cellsX), this.clamp(cube[1], this.cellsY),
+                    this.clamp(cube[2], this.cellsZ));
+        }
+        Arrays.sort(crossed);
+        int nbCells = 0;
+        for (int i = 0; i < crossed.length; i++)
+            if (i == 0 || crossed[i] != crossed[i - 1])
+                crossed[nbCells++] = crossed[i];
+        crossed = Arrays.copyOf(crossed, nbCells);
+        for (int cell : crossed)
+            this.getUnitsIn(cell, true).add(unit);
+        this.cellsOfUnit.put(unit, crossed);
+    }
+
+    /**
+     * Remove the plan of the given unit from this index.
+     */
+    void remove(Unit unit) {
+        int[] crossed = this.cellsOfUnit.remove(unit);
+        if (crossed != null)
+            for (int cell : crossed)
+                this.getUnitsIn(cell, true).remove(unit);
+    }
+
+    /**
+     * Returns the units of this index whose plan crosses a cell holding the cube at the
+     * given coordinates or one of the cubes directly around it.
+     */
+    Set<Unit> getUnitsNear(int x, int y, int z) {
+        Set<Unit> result = new LinkedHashSet<>();
+        int lowX = this.clamp(x - 1, this.cellsX);
+        int lowY = this.clamp(y - 1, this.cellsY);
+        int lowZ = this.clamp(z - 1, this.cellsZ);
+        int highX = this.clamp(x + 1, this.cellsX);
+        int highY = this.clamp(y + 1, this.cellsY);
+        int highZ = this.clamp(z + 1, this.cellsZ);
+        for (int cx = lowX; cx <= highX; cx++)
+            for (int cy = lowY; cy <= highY; cy++)
+                for (int cz = lowZ; cz <= highZ; cz++)
+                    result.addAll(this.getUnitsIn(this.getCell(cx, cy, cz), false));
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Unit> getUnitsIn(int cell, boolean create) {
+        if (this.cells[cell] == null) {
+            if (!create)
+                return Collections.emptyList();
+            this.cells[cell] = new ArrayList<Unit>();
+        }
+        return (List<Unit>) this.cells[cell];
+    }
+
+    /**
+     * Returns the cell coordinate of the given cube coordinate, clamped to the given
+     * number of cells.
+     */
+    private int clamp(int coordinate, int nbCells) {
+        return Math.max(0, Math.min(nbCells - 1, Math.floorDiv(coordinate, this.cellSize)));
+    }
+
+    private int getCell(int cx, int cy, int cz) {
+        return cx + this.cellsX * (cy + this.cellsY * cz);
+    }
+}
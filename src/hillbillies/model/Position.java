@@ -5,8 +5,6 @@ import be.kuleuven.cs.som.annotate.Immutable;
 import be.kuleuven.cs.som.annotate.Raw;
 import be.kuleuven.cs.som.annotate.Value;
 
-import java.util.Arrays;
-
 @Value
 public class Position {
 
@@ -17,12 +15,23 @@ public class Position {
      *			  The coordinates for this position.
 	 */
 	public Position(int[] initialPosition) {
-		this.cubeX = initialPosition[0];
-		this.cubeY = initialPosition[1];
-		this.cubeZ = initialPosition[2];
+		this.cube = CubeCoordinates.pack(initialPosition);
 		this.setDoubleCoordinates(initialPosition);
 	}
 
+	/**
+	 * Creates a new position at the centre of the cube with the given packed coordinates.
+	 *
+	 * @param 	  cube
+	 *			  The packed coordinates of the cube, as in {@link CubeCoordinates}.
+	 */
+	public Position(long cube) {
+		this.cube = cube;
+		this.doubleX = CubeCoordinates.getX(cube) + CUBE_SIDE_LENGTH / 2;
+		this.doubleY = CubeCoordinates.getY(cube) + CUBE_SIDE_LENGTH / 2;
+		this.doubleZ = CubeCoordinates.getZ(cube) + CUBE_SIDE_LENGTH / 2;
+	}
+
 	/**
 	 * Creates a new position from given double coordinates.
 	 *
@@ -30,10 +39,24 @@ public class Position {
 	 *			  The coordinates for this position.
 	 */
     public Position(double[] initialPosition) {
-        this.doubleX = initialPosition[0];
-        this.doubleY = initialPosition[1];
-        this.doubleZ = initialPosition[2];
-        this.setCubeCoordinates(initialPosition);
+        this(initialPosition[0], initialPosition[1], initialPosition[2]);
+    }
+
+	/**
+	 * Creates a new position from the given double coordinates.
+	 *
+	 * @param 	  x
+	 *			  The x-coordinate for this position.
+	 * @param 	  y
+	 *			  The y-coordinate for this position.
+	 * @param 	  z
+	 *			  The z-coordinate for this position.
+	 */
+    public Position(double x, double y, double z) {
+        this.doubleX = x;
+        this.doubleY = y;
+        this.doubleZ = z;
+        this.cube = CubeCoordinates.pack((int) x, (int) y, (int) z);
     }
 
 	/**
@@ -49,17 +72,10 @@ public class Position {
 	 */
 	private double doubleZ;
 	/**
-	 * Variables registering the cube coordinates of this unit position.
-	 */
-	private int cubeX;
-	/**
-	 * Variables registering the cube coordinates of this unit position.
-	 */
-	private int cubeY;
-	/**
-	 * Variables registering the cube coordinates of this unit position.
+	 * Variable registering the cube coordinates of this unit position, packed as in
+	 * {@link CubeCoordinates}.
 	 */
-	private int cubeZ;
+	private final long cube;
 
 	/**
 	 * Variable registering the length of a cube side in meters.
@@ -78,18 +94,6 @@ public class Position {
 
 	}
 
-    /**
-	 * Sets the cube coordinates of this position from the given double coordinates.
-	 *
-     * @param 	  initialPosition
-     */
-    private void setCubeCoordinates(double[] initialPosition) {
-        this.cubeX = (int) initialPosition[0];
-        this.cubeY = (int) initialPosition[1];
-        this.cubeZ = (int) initialPosition[2];
-
-    }
-
 	/**
 	 * Return the unit coordinates of this unit position.
 	 *
@@ -113,7 +117,76 @@ public class Position {
 	@Raw
     @Immutable
 	public int[] getCubeCoordinates() {
-		return new int[] {this.cubeX,this.cubeY,this.cubeZ};
+		return CubeCoordinates.toArray(this.cube);
+	}
+
+	/**
+	 * Returns this position's cube coordinates, packed as in {@link CubeCoordinates}.
+	 */
+	@Basic
+	@Immutable
+	public long getCube() {
+		return this.cube;
+	}
+
+	/**
+	 * Returns the x-coordinate of this position's cube.
+	 *
+	 * @return 	| result == getCubeCoordinates()[0]
+	 */
+	@Immutable
+	public int getCubeX() {
+		return CubeCoordinates.getX(this.cube);
+	}
+
+	/**
+	 * Returns the y-coordinate of this position's cube.
+	 *
+	 * @return 	| result == getCubeCoordinates()[1]
+	 */
+	@Immutable
+	public int getCubeY() {
+		return CubeCoordinates.getY(this.cube);
+	}
+
+	/**
+	 * Returns the z-coordinate of this position's cube.
+	 *
+	 * @return 	| result == getCubeCoordinates()[2]
+	 */
+	@Immutable
+	public int getCubeZ() {
+		return CubeCoordinates.getZ(this.cube);
+	}
+
+	/**
+	 * Returns the x-coordinate of this position.
+	 *
+	 * @return 	| result == getDoubleCoordinates()[0]
+	 */
+	@Immutable
+	public double getDoubleX() {
+		return this.doubleX;
+	}
+
+	/**
+	 * Returns the y-coordinate of this position.
+	 *
+	 * @return 	| result == getDoubleCoordinates()[1]
+	 */
+	@Immutable
+	public double getDoubleY() {
+		return this.doubleY;
+	}
+
+	/**
+	 * Returns the z-coordinate of this position.
+	 *
+	 * @return 	| result == getDoubleCoordinates()[2]
+	 */
+	@Immutable
+	public double getDoubleZ() {
+		return this.doubleZ;
 	}
 
 	/**
@@ -129,22 +202,22 @@ public class Position {
 
 	@Override
     public boolean equals(Object o) {
-        return o instanceof Position && Arrays.equals(this.getCubeCoordinates(), ((Position) o).getCubeCoordinates());
+        return o instanceof Position && this.cube == ((Position) o).cube;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(this.getCubeCoordinates());
+        return Long.hashCode(this.cube);
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        sb.append(this.getCubeCoordinates()[0]).
+        sb.append(this.getCubeX()).
                 append(",").
-                append(this.getCubeCoordinates()[1]).
+                append(this.getCubeY()).
                 append(",").
-                append(this.getCubeCoordinates()[2]
+                append(this.getCubeZ()
                 );
         return sb.toString();
     }
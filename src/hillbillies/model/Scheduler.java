@@ -9,26 +9,44 @@ import java.util.stream.Collectors;
 public class Scheduler implements Iterable<Task> {
 
 	private List<Task> tasks = new ArrayList<>();
+
+	/**
+	 * Variable registering the number of times the tasks of this scheduler changed.
+	 */
+	private long version = 0;
+
+	/**
+	 * Return the number of times the tasks of this scheduler changed, so that views on
+	 * them can tell whether they are still up to date.
+	 */
+	long getVersion() {
+		return this.version;
+	}
 	
 	public void add(Task task){
 		this.tasks.add(task);
+		this.version++;
 	}
 	
 	public void addAll(List<Task> tasks){
 		this.tasks.addAll(tasks);
+		this.version++;
 	}
 
 	public void remove(Task task) {
 		this.tasks.remove(task);
+		this.version++;
 	}
 	
 	public void removeCollection(Collection<Task> tasks) {
 		this.tasks.removeAll(tasks);
+		this.version++;
 	}
 	
 	public void replace(Task original, Task replacement){
 		this.tasks.remove(original);
 		this.tasks.add(replacement);
+		this.version++;
 	}
 	
 	public boolean hasAsTask(Task task){
@@ -54,6 +72,7 @@ public class Scheduler implements Iterable<Task> {
 	
 	public void markAssigned(Task task, Unit unit) {
 		this.tasks.remove(task);
+		this.version++;
 		task.assignTo(unit);
 	}
 
@@ -69,8 +88,25 @@ public class Scheduler implements Iterable<Task> {
 	}
 
 	public Iterator<Task> iterator() {
-		return this.tasks.iterator();
+		Iterator<Task> iterator = this.tasks.iterator();
+		return new Iterator<Task>() {
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public Task next() {
+				return iterator.next();
+			}
 
+			@Override
+			public void remove() {
+				iterator.remove();
+				version++;
+			}
+		};
 	}
 	public boolean isEmpty(){
 		return this.tasks.isEmpty();
@@ -0,0 +1,354 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+
+/**
+ * A class labelling the regions of a world units can walk around in: the connected
+ * components (through directly adjacent cubes) of the cubes a unit can stand in,
+ * i.e. passable cubes with a solid neighbouring cube.
+ *
+ * @note      Labels are merged in a union-find structure, so a cube becoming standable
+ *            only joins the regions around it. A cube that is no longer standable can
+ *            split its region; unless its neighbours are still connected close by,
+ *            that region is marked dirty, and its pieces get fresh labels one by one
+ *            when they are queried.
+ */
+class StandableRegions {
+
+    /**
+     * Initialize this new labelling for the given world.
+     *
+     * @param world
+     *            The world to label the regions of.
+     */
+    StandableRegions(World world) {
+        this.world = world;
+        this.nbX = world.getNbCubesX();
+        this.nbY = world.getNbCubesY();
+        this.nbZ = world.getNbCubesZ();
+        int nbCubes = this.nbX * this.nbY * this.nbZ;
+        this.standable = new boolean[nbCubes];
+        this.label = new int[nbCubes];
+        this.queue = new int[nbCubes];
+        this.visited = new int[nbCubes];
+        for (int index = 0; index < nbCubes; index++)
+            this.standable[index] = this.computeStandable(index);
+        this.relabelAll();
+    }
+
+    /**
+     * Variable registering the world of this labelling.
+     */
+    private final World world;
+
+    private final int nbX;
+    private final int nbY;
+    private final int nbZ;
+
+    /**
+     * Variable registering, for every cube, whether a unit can stand in it.
+     */
+    private final boolean[] standable;
+
+    /**
+     * Variable registering the region label of every standable cube; the region of
+     * a cube is the union-find root of its label.
+     */
+    private final int[] label;
+
+    /**
+     * Variable registering the union-find parents and whether the region of a root
+     * may consist of several pieces, by label.
+     */
+    private int[] parent = new int[INITIAL_CAPACITY];
+    private boolean[] dirty = new boolean[INITIAL_CAPACITY];
+    private int nbLabels = 0;
+
+    private final int[] queue;
+    private final int[] visited;
+    private int lastMark = 0;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The distance around a changed cube within which the neighbours of cubes that
+     * are no longer standable are checked to still be connected.
+     */
+    private static final int LOCAL_RADIUS = 2;
+
+    /**
+     * Returns whether a unit can stand in the cube at the given coordinates.
+     */
+    boolean isStandable(int x, int y, int z) {
+        return this.standable[this.getIndex(x, y, z)];
+    }
+
+    /**
+     * Returns whether a unit can stand in the cube with the given index.
+     */
+    boolean isStandable(int index) {
+        return this.standable[index];
+    }
+
+    /**
+     * Returns whether a unit standing in the given start cube can walk to the given
+     * target cube.
+     *
+     * @param start
+     *            The cube coordinates of the cube the unit stands in.
+     * @param target
+     *            The cube coordinates to walk to.
+     * @return If the start cube is not standable, true (the unit is falling and its
+     *         region is not known yet). Otherwise, if the target is standable, whether
+     *         it lies in the region of the start cube; if not, whether it is passable
+     *         and directly adjacent to a cube of the region of the start cube.
+     */
+    boolean isReachable(int[] start, int[] target) {
+        int startIndex = this.getIndex(start[0], start[1], start[2]);
+        if (!this.standable[startIndex])
+            return true;
+        int region = this.getRegion(startIndex);
+        int targetIndex = this.getIndex(target[0], target[1], target[2]);
+        if (this.standable[targetIndex])
+            return this.getRegion(targetIndex) == region;
+        if (this.isSolid(targetIndex))
+            return false;
+        for (int direction = 0; direction < 6; direction++) {
+            int neighbour = this.getNeighbour(targetIndex, direction);
+            if (neighbour >= 0 && this.standable[neighbour] && this.getRegion(neighbour) == region)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Update this labelling after a terrain change of the cube at the given coordinates.
+     *
+     * @param x
+     *            The x-coordinate of the changed cube.
+     * @param y
+     *            The y-coordinate of the changed cube.
+     * @param z
+     *            The z-coordinate of the changed cube.
+     */
+    void terrainChanged(int x, int y, int z) {
+        if (this.nbLabels > 2 * this.standable.length + INITIAL_CAPACITY)
+            this.relabelAll();
+        int changed = this.getIndex(x, y, z);
+        // the changed cube and its neighbours can change standability
+        int[] affected = new int[7];
+        int nbAffected = 0;
+        affected[nbAffected++] = changed;
+        for (int direction = 0; direction < 6; direction++) {
+            int neighbour = this.getNeighbour(changed, direction);
+            if (neighbour >= 0)
+                affected[nbAffected++] = neighbour;
+        }
+        // removals first, so that joins only connect cubes that stay standable
+        int[] removed = new int[nbAffected];
+        int nbRemoved = 0;
+        boolean[] now = new boolean[nbAffected];
+        for (int i = 0; i < nbAffected; i++) {
+            now[i] = this.computeStandable(affected[i]);
+            if (this.standable[affected[i]] && !now[i]) {
+                this.standable[affected[i]] = false;
+                removed[nbRemoved++] = affected[i];
+            }
+        }
+        for (int i = 0; i < nbAffected; i++) {
+            if (!this.standable[affected[i]] && now[i]) {
+                this.standable[affected[i]] = true;
+                this.join(affected[i]);
+            }
+        }
+        if (nbRemoved > 0 && !this.areNeighboursConnectedLocally(changed, removed, nbRemoved))
+            for (int i = 0; i < nbRemoved; i++)
+                for (int direction = 0; direction < 6; direction++) {
+                    int neighbour = this.getNeighbour(removed[i], direction);
+                    if (neighbour >= 0 && this.standable[neighbour])
+                        this.dirty[this.find(this.label[neighbour])] = true;
+                }
+    }
+
+    /**
+     * Returns the region of the given standable cube, giving its piece a fresh label
+     * first if its region is dirty.
+     */
+    private int getRegion(int index) {
+        int root = this.find(this.label[index]);
+        if (!this.dirty[root])
+            return root;
+        int region = this.newLabel();
+        this.flood(index, region, this.nextMark());
+        return region;
+    }
+
+    /**
+     * Label the newly standable given cube, joining the regions of its standable
+     * neighbours.
+     */
+    private void join(int index) {
+        int root = -1;
+        for (int direction = 0; direction < 6; direction++) {
+            int neighbour = this.getNeighbour(index, direction);
+            if (neighbour >= 0 && this.standable[neighbour]) {
+                int other = this.find(this.label[neighbour]);
+                root = root < 0 ? other : this.union(root, other);
+            }
+        }
+        this.label[index] = root < 0 ? this.newLabel() : root;
+    }
+
+    /**
+     * Returns whether all standable neighbours of the given cubes, which are no
+     * longer standable, are still connected to each other near the changed cube.
+     */
+    private boolean areNeighboursConnectedLocally(int changed, int[] removed, int nbRemoved) {
+        int cx = changed % this.nbX;
+        int cy = (changed / this.nbX) % this.nbY;
+        int cz = changed / (this.nbX * this.nbY);
+        int mark = this.nextMark();
+        int nbWitnesses = 0;
+        int first = -1;
+        for (int i = 0; i < nbRemoved; i++) {
+            for (int direction = 0; direction < 6; direction++) {
+                int neighbour = this.getNeighbour(removed[i], direction);
+                if (neighbour >= 0 && this.standable[neighbour] && this.visited[neighbour] != mark) {
+                    this.visited[neighbour] = mark;
+                    nbWitnesses++;
+                    first = neighbour;
+                }
+            }
+        }
+        if (nbWitnesses <= 1)
+            return true;
+        // search the box around the changed cube from one witness, counting the others
+        int searchMark = this.nextMark();
+        int tail = 0;
+        int found = 1;
+        this.visited[first] = searchMark;
+        this.queue[tail++] = first;
+        for (int head = 0; head < tail && found < nbWitnesses; head++) {
+            int cube = this.queue[head];
+            for (int direction = 0; direction < 6; direction++) {
+                int neighbour = this.getNeighbour(cube, direction);
+                if (neighbour < 0 || !this.standable[neighbour] || this.visited[neighbour] == searchMark)
+                    continue;
+                int x = neighbour % this.nbX;
+                int y = (neighbour / this.nbX) % this.nbY;
+                int z = neighbour / (this.nbX * this.nbY);
+                if (Math.abs(x - cx) > LOCAL_RADIUS || Math.abs(y - cy) > LOCAL_RADIUS
+                        || Math.abs(z - cz) > LOCAL_RADIUS)
+                    continue;
+                if (this.visited[neighbour] == mark)
+                    found++;
+                this.visited[neighbour] = searchMark;
+                this.queue[tail++] = neighbour;
+            }
+        }
+        return found == nbWitnesses;
+    }
+
+    /**
+     * Give all standable cubes connected to the given one the given label, marking
+     * them with the given visited mark.
+     */
+    private void flood(int origin, int region, int mark) {
+        int tail = 0;
+        this.visited[origin] = mark;
+        this.queue[tail++] = origin;
+        for (int head = 0; head < tail; head++) {
+            int cube = this.queue[head];
+            this.label[cube] = region;
+            for (int direction = 0; direction < 6; direction++) {
+                int neighbour = this.getNeighbour(cube, direction);
+                if (neighbour >= 0 && this.standable[neighbour] && this.visited[neighbour] != mark) {
+                    this.visited[neighbour] = mark;
+                    this.queue[tail++] = neighbour;
+                }
+            }
+        }
+    }
+
+    /**
+     * Label all regions from scratch.
+     */
+    private void relabelAll() {
+        this.nbLabels = 0;
+        int mark = this.nextMark();
+        for (int index = 0; index < this.standable.length; index++)
+            if (this.standable[index] && this.visited[index] != mark)
+                this.flood(index, this.newLabel(), mark);
+    }
+
+    private int nextMark() {
+        if (this.lastMark == Integer.MAX_VALUE) {
+            Arrays.fill(this.visited, 0);
+            this.lastMark = 0;
+        }
+        return ++this.lastMark;
+    }
+
+    private int newLabel() {
+        if (this.nbLabels == this.parent.length) {
+            this.parent = Arrays.copyOf(this.parent, 2 * this.parent.length);
+            this.dirty = Arrays.copyOf(this.dirty, 2 * this.dirty.length);
+        }
+        int result = this.nbLabels++;
+        this.parent[result] = result;
+        this.dirty[result] = false;
+        return result;
+    }
+
+    private int find(int region) {
+        while (this.parent[region] != region) {
+            this.parent[region] = this.parent[this.parent[region]];
+            region = this.parent[region];
+        }
+        return region;
+    }
+
+    private int union(int first, int second) {
+        first = this.find(first);
+        second = this.find(second);
+        if (first == second)
+            return first;
+        this.parent[second] = first;
+        this.dirty[first] |= this.dirty[second];
+        return first;
+    }
+
+    private boolean isSolid(int index) {
+        return this.world.isSolid(index);
+    }
+
+    private boolean computeStandable(int index) {
+        return this.world.isStandable(index);
+    }
+
+    private int getIndex(int x, int y, int z) {
+        return x + y * this.nbX + z * this.nbX * this.nbY;
+    }
+
+    /**
+     * Return the index of the neighbour of the given cube in the given direction
+     * (-x, +x, -y, +y, -z, +z), or -1 if it lies outside the world.
+     */
+    private int getNeighbour(int index, int direction) {
+        int nbXY = this.nbX * this.nbY;
+        switch (direction) {
+            case 0:
+                return index % this.nbX == 0 ? -1 : index - 1;
+            case 1:
+                return index % this.nbX == this.nbX - 1 ? -1 : index + 1;
+            case 2:
+                return (index / this.nbX) % this.nbY == 0 ? -1 : index - this.nbX;
+            case 3:
+                return (index / this.nbX) % this.nbY == this.nbY - 1 ? -1 : index + this.nbX;
+            case 4:
+                return index < nbXY ? -1 : index - nbXY;
+            default:
+                return index + nbXY >= this.standable.length ? -1 : index + nbXY;
+        }
+    }
+}
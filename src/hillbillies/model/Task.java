@@ -35,6 +35,20 @@ public class Task{
 
 	private Set<Scheduler> schedulers;
 
+	/**
+	 * Variable registering the number of times the name, priority or assigned unit of
+	 * this task changed.
+	 */
+	private long version = 0;
+
+	/**
+	 * Return the number of times the name, priority or assigned unit of this task
+	 * changed, so that views on them can tell whether they are still up to date.
+	 */
+	long getVersion() {
+		return this.version;
+	}
+
 	public Task(String name, int priority, Statement activities) {
 		this.name = name;
 		this.priority = priority;
@@ -77,6 +91,7 @@ public class Task{
 	 */
 	public void setPriority(int priority) {
 		this.priority = priority;
+		this.version++;
 	}
 
 	/**
@@ -96,6 +111,7 @@ public class Task{
 	 */
 	public void setName(String name) {
 		this.name = name;
+		this.version++;
 	}
 	
 	@Override
@@ -129,11 +145,13 @@ public class Task{
 	}	
 	public  void setAssignedUnit(Unit unit) {
 		this.assignedUnit = unit;
+		this.version++;
 	}
 	
 
 	public void assignTo(Unit unit) {
 		this.assignedUnit = unit;
+		this.version++;
 	}
 
 	public Set<Scheduler> getSchedulers() {
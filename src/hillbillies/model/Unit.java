@@ -4,10 +4,9 @@ import be.kuleuven.cs.som.annotate.Basic;
 import be.kuleuven.cs.som.annotate.Immutable;
 import be.kuleuven.cs.som.annotate.Raw;
 import hillbillies.model.exceptions.IllegalCoordinateException;
-import hillbillies.model.terrain.Passable;
-import hillbillies.model.terrain.Rock;
-import hillbillies.model.terrain.Tree;
-import hillbillies.model.terrain.Workshop;
+import hillbillies.model.statements.Statement;
+import hillbillies.model.statements.StatementSequence;
+import hillbillies.model.terrain.Terrain;
 
 import java.util.*;
 
@@ -108,6 +107,27 @@ public class Unit {
 	 */
 	private int[] newTargetPosition = null;
 
+	/**
+	 * Variable registering the path this unit follows to reach its target position,
+	 * or null if no path has been planned yet.
+	 */
+	private PathPlan pathPlan = null;
+
+	/**
+	 * Variables registering the path planned ahead for this unit by its world, and the
+	 * start, target and terrain version it was planned for.
+	 */
+	private boolean hasPreparedPlan = false;
+	private PathPlan preparedPlan = null;
+	private int[] preparedStart;
+	private int[] preparedTarget;
+	private long preparedTerrainVersion;
+
+	/**
+	 * Variable registering the random generator of this unit.
+	 */
+	private Random random = new Random();
+
 	/**
 	 * Variable registering whether this unit is
 	 * conducting a sprint.
@@ -242,8 +262,13 @@ public class Unit {
     private World world;
 
     /**
-     * Variable registering the current position for this unit.
+     * Variables registering the current position for this unit. The coordinates change
+     * whenever this unit moves, so the position object itself is only created when
+     * it is asked for.
      */
+    private double positionX;
+    private double positionY;
+    private double positionZ;
     private Position position;
 
     /**
@@ -301,9 +326,11 @@ public class Unit {
     private int floorsToFall = 0;
 
     /**
-     * Variable registering ...
+     * Variables registering the game time at which this unit started
+     * its current fall, and the height it fell from.
      */
-    private double fallDistance = 0;
+    private double fallStartTime;
+    private double fallStartZ;
 
     /**
      * Variable registering the unit to attack
@@ -437,7 +464,38 @@ public class Unit {
      *          | new.getPosition() == position
      */
     private void setPosition(Position position) {
+        boolean otherCube = this.isOtherCube(position.getDoubleX(), position.getDoubleY(), position.getDoubleZ());
+        this.positionX = position.getDoubleX();
+        this.positionY = position.getDoubleY();
+        this.positionZ = position.getDoubleZ();
         this.position = position;
+        if (otherCube && this.getWorld() != null)
+            this.getWorld().unitMoved(this);
+    }
+
+    /**
+     * Set the position of this unit to the given coordinates.
+     *
+     * @post      The new position of this unit is at the given coordinates.
+     *          | new.getPosition().equals(new Position(x, y, z))
+     */
+    private void setPosition(double x, double y, double z) {
+        boolean otherCube = this.isOtherCube(x, y, z);
+        this.positionX = x;
+        this.positionY = y;
+        this.positionZ = z;
+        this.position = null;
+        if (otherCube && this.getWorld() != null)
+            this.getWorld().unitMoved(this);
+    }
+
+    /**
+     * Returns whether the given coordinates lie in another cube than the current
+     * position of this unit.
+     */
+    private boolean isOtherCube(double x, double y, double z) {
+        return (int) x != (int) this.positionX || (int) y != (int) this.positionY
+                || (int) z != (int) this.positionZ;
     }
 
 	/**
@@ -897,17 +955,19 @@ public class Unit {
 	 * TODO Document: Iwein
 	 */
 	private void hasToFall() {
-		if(! this.getWorld().getCube(this.getPosition().getCubeCoordinates()[0],
-						 this.getPosition().getCubeCoordinates()[1], 
-						 this.getPosition().getCubeCoordinates()[2]).hasSolidNeighboringCubes() && !this.isFalling()
+		if(! this.getWorld().getCube(this.getPosition().getCubeX(),
+						 this.getPosition().getCubeY(), 
+						 this.getPosition().getCubeZ()).hasSolidNeighboringCubes() && !this.isFalling()
 						 ){
 			this.setStartPosition(new int[]{
-					this.getPosition().getCubeCoordinates()[0],
-					this.getPosition().getCubeCoordinates()[1],
-					this.getPosition().getCubeCoordinates()[2]
+					this.getPosition().getCubeX(),
+					this.getPosition().getCubeY(),
+					this.getPosition().getCubeZ()
 			});
 			this.setState(State.NONE);
 			this.setFalling(true);
+			this.fallStartTime = this.getWorld().getTime();
+			this.fallStartZ = this.positionZ;
 			this.calculateFloorsToFall();
 		}
 	}
@@ -927,7 +987,9 @@ public class Unit {
      * @return    The current position of this unit.
      */
     public Position getPosition() {
-        return position;
+        if (this.position == null)
+            this.position = new Position(this.positionX, this.positionY, this.positionZ);
+        return this.position;
     }
 
     /**
@@ -955,70 +1017,37 @@ public class Unit {
     }
 
     /**
-	 * TODO Document: Iwein
+	 * Computes the number of floors this unit falls, down to the first cube
+	 * with a solid neighbour or the bottom of the world.
 	 */
 	private void calculateFloorsToFall() {
 		int[] positionCoordinates = this.getPosition().getCubeCoordinates();
-		this.setFloorsToFall(0);
-		while(true){
-			if(positionCoordinates[2]<=0)
-				break;
-			if((!this.getWorld().getCube(positionCoordinates[0], positionCoordinates[1], positionCoordinates[2]--).hasSolidNeighboringCubes())
-					&& this.getWorld().getCube(positionCoordinates[0], positionCoordinates[1], positionCoordinates[2]).getTerrain() instanceof Passable)
-				this.setFloorsToFall(this.getFloorsToFall()+1);
-			else
-				break;
-		}
-		
-		
+		this.setFloorsToFall(positionCoordinates[2] - this.getWorld().getUnitLandingZ(
+				positionCoordinates[0], positionCoordinates[1], positionCoordinates[2]));
 	}
 
 	/**
 	 * Performs the fall action.
+	 *
+	 * @note The height of this unit follows from the game time elapsed since
+	 *       its fall started, so no fall distance is accumulated tick by tick.
 	 */
 	private void fall(double dt) {
-		if(Math.abs(this.getFallDistance()) >= this.getFloorsToFall()){
+		double fallDistance = FALLING_SPEED * (this.getWorld().getTime() - this.fallStartTime);
+		if(fallDistance >= this.getFloorsToFall()){
 			this.setPosition(new Position(new int[]{
                     this.getStartPosition()[0],
                     this.getStartPosition()[1],
                     this.getStartPosition()[2] - this.getFloorsToFall()})
             );
-					this.setFallDistance(0);
 					this.setFalling(false);
 					this.setCurrentHitPoints(this.getCurrentHitPoints()-10*this.getFloorsToFall());
 						
 		}else{
-			this.setFallDistance(this.getFallDistance() + FALLING_SPEED *dt);
-			this.setPosition(new Position(new double[]{this.getPosition().getDoubleCoordinates()[0],
-												   this.getPosition().getDoubleCoordinates()[1],
-												   this.getPosition().getDoubleCoordinates()[2] - FALLING_SPEED *dt}));
+			this.setPosition(this.positionX, this.positionY, this.fallStartZ - fallDistance);
 		}
 	}
 
-    /**
-     * Set the current fall distance of this unit to
-     * the given fall distance.
-     *
-     * @param falldistance
-     * 			  The fall distance of the unit
-     * @post	  The current fall distance is equal to the given fall distance.
-     * 			| new.fallDistance == falldistance
-     */
-	private void setFallDistance(double falldistance) {
-		this.fallDistance  = falldistance;
-		
-	}
-
-	/**
-     * Returns the fall distance for this unit.
-     *
-	 * @return    The fall distance for this unit.
-     *          | result == this.fallDistance
-	 */
-	private double getFallDistance() {
-		return fallDistance;
-	}
-
     /**
      * Return the startPosition of this Unit.
      *
@@ -1070,11 +1099,9 @@ public class Unit {
 			this.setCurrentSpeed(this.getUnitWalkSpeed());
 		}
 		if(!this.isDefending())
-			this.setOrientation((float) Math.atan2(this.getUnitVelocity()[1], this.getUnitVelocity()[0]));
+			this.setOrientation((float) Math.atan2(this.getUnitVelocity(1), this.getUnitVelocity(0)));
 
-		this.walking(this.getWorld().getCube(this.getTargetPosition()[0],
-											this.getTargetPosition()[1],
-											this.getTargetPosition()[2]));
+		this.followPathPlan();
 		if (this.getState()!=State.NONE) {
 			this.updatePosition(dt);
 		}		
@@ -1272,21 +1299,14 @@ public class Unit {
 	}
 
 	/**
-	 * @return	  a double array of the velocity in the x,y and z axis
-	 * 			| result == new double[]{
-	 *			|	this.getUnitWalkSpeed() * (this.getNeighboringCubeToMoveTo()[0])/ distance,
-	 *			|	this.getUnitWalkSpeed() * (this.getNeighboringCubeToMoveTo()[1])/ distance,
-	 *			|	this.getUnitWalkSpeed() * (this.getNeighboringCubeToMoveTo()[2])/ distance,}
-	 * 	
+	 * @param axis
+	 * 			  The axis (0 for x, 1 for y and 2 for z) to return the velocity along.
+	 * @return	  the velocity of this unit along the given axis
+	 * 			| result ==
+	 *			|	this.getUnitWalkSpeed() * (this.getNeighboringCubeToMoveTo()[axis])/ distance
 	 */
-	private double[] getUnitVelocity() {
-		double distance = getDistance();
-		return new double[]
-				{
-						this.getUnitWalkSpeed() * (this.getNeighboringCubeToMoveTo()[0])/ distance,
-						this.getUnitWalkSpeed() * (this.getNeighboringCubeToMoveTo()[1])/ distance,
-						this.getUnitWalkSpeed() * (this.getNeighboringCubeToMoveTo()[2])/ distance,
-				};
+	private double getUnitVelocity(int axis) {
+		return this.getUnitWalkSpeed() * (this.getNeighboringCubeToMoveTo()[axis])/ getDistance();
 	}
 
 	/**
@@ -1319,33 +1339,36 @@ public class Unit {
 	 * @return	  The displacement of this unit when moving.
 	 *
 	 */
-	private int[] getMovementChange(Position postitionToMoveTo) {
+	private int[] getMovementChange(int[] cubeToMoveTo) {
 		int dx;
 		int dy;
 		int dz;
 
-		if(startPosition[0]== postitionToMoveTo.getCubeCoordinates()[0]){
+		if(startPosition[0]== cubeToMoveTo[0]){
 			dx = 0;
-		}else if(startPosition[0]< postitionToMoveTo.getCubeCoordinates()[0]){
+		}else if(startPosition[0]< cubeToMoveTo[0]){
 			dx = 1;
 		}else{
 			dx = -1;
 		}
-		if(startPosition[1]== postitionToMoveTo.getCubeCoordinates()[1]){
+		if(startPosition[1]== cubeToMoveTo[1]){
 			dy = 0;
-		}else if(startPosition[1]< postitionToMoveTo.getCubeCoordinates()[1]){
+		}else if(startPosition[1]< cubeToMoveTo[1]){
 
 			dy = 1;
 		}else{
 			dy = -1;
 		}
-		if(startPosition[2]== postitionToMoveTo.getCubeCoordinates()[2]){
+		if(startPosition[2]== cubeToMoveTo[2]){
 			dz = 0;
-		}else if(startPosition[2]< postitionToMoveTo.getCubeCoordinates()[2]){
+		}else if(startPosition[2]< cubeToMoveTo[2]){
 			dz = 1;
 		}else{
 			dz = -1;
 		}
+		int[] current = this.getNeighboringCubeToMoveTo();
+		if (current != null && current[0] == dx && current[1] == dy && current[2] == dz)
+			return current;
 		return new int[]{dx,dy,dz};
 	}
 
@@ -1356,22 +1379,18 @@ public class Unit {
 	 * 		  Difference in time
 	 */
 	private void updatePosition(double dt) {
+		double velocityX = this.getUnitVelocity(0);
+		double velocityY = this.getUnitVelocity(1);
+		double velocityZ = this.getUnitVelocity(2);
 		this.setPosition(
-                new Position(
-                        new double[]{
-                        		this.getPosition().getDoubleCoordinates()[0] + (this.getUnitVelocity()[0] * dt),
-                                this.getPosition().getDoubleCoordinates()[1] + (this.getUnitVelocity()[1] * dt),
-                                this.getPosition().getDoubleCoordinates()[2] + (this.getUnitVelocity()[2] * dt)
-                        }
-                )
+                this.positionX + (velocityX * dt),
+                this.positionY + (velocityY * dt),
+                this.positionZ + (velocityZ * dt)
         );
-		this.setInitialPosition(
-				new double[]{
-						this.getInitialPosition()[0] + (this.getUnitVelocity()[0] * dt),
-						this.getInitialPosition()[1] + (this.getUnitVelocity()[1] * dt),
-						this.getInitialPosition()[2] + (this.getUnitVelocity()[2] * dt)
-				}
-		);
+		double[] initialPosition = this.getInitialPosition();
+		initialPosition[0] += velocityX * dt;
+		initialPosition[1] += velocityY * dt;
+		initialPosition[2] += velocityZ * dt;
 		if (Math.abs(this.getNeighboringCubeToMoveTo()[0]) - Math.abs(this.getInitialPosition()[0]) <= 0 &&
 				Math.abs(this.getNeighboringCubeToMoveTo()[1]) - Math.abs(this.getInitialPosition()[1]) <= 0 &&
 				Math.abs(this.getNeighboringCubeToMoveTo()[2]) - Math.abs(this.getInitialPosition()[2]) <= 0) {
@@ -1407,9 +1426,9 @@ public class Unit {
 					
 				}
 			setStartPosition(new int[]{
-					this.getPosition().getCubeCoordinates()[0],
-					this.getPosition().getCubeCoordinates()[1],
-					this.getPosition().getCubeCoordinates()[2]
+					this.getPosition().getCubeX(),
+					this.getPosition().getCubeY(),
+					this.getPosition().getCubeZ()
 			});
 			this.setNewTargetPosition(null);
 			this.setInitialPosition(new double[]{0, 0, 0});
@@ -1598,16 +1617,16 @@ public class Unit {
 	private void advanceWhileWorking(double dt) {
 		this.setWorkCounter(this.getWorkCounter()-dt);
 		this.setOrientation((float) Math.atan2(
-				this.getCubeToWorkOn()[1]+0.5 - this.getPosition().getDoubleCoordinates()[1],
-				this.getCubeToWorkOn()[0]+0.5 - this.getPosition().getDoubleCoordinates()[0]));
+				this.getCubeToWorkOn()[1]+0.5 - this.getPosition().getDoubleY(),
+				this.getCubeToWorkOn()[0]+0.5 - this.getPosition().getDoubleX()));
 		if (this.getWorkActivity()== WorkActivity.WORKING){
 			//Increase Toughens
 			this.AttributeValueIncrease(2);
 			//Increase Weight
 			this.AttributeValueIncrease(3);
-			world.getLogs().remove(world.getCube(getCubeToWorkOn()[0], getCubeToWorkOn()[1], getCubeToWorkOn()[2]).getLog());
+			world.removeLog(world.getCube(getCubeToWorkOn()[0], getCubeToWorkOn()[1], getCubeToWorkOn()[2]).getLog());
 			world.getCube(getCubeToWorkOn()[0], getCubeToWorkOn()[1], getCubeToWorkOn()[2]).setLog(null);
-			world.getBoulders().remove(world.getCube(getCubeToWorkOn()[0], getCubeToWorkOn()[1], getCubeToWorkOn()[2]).getBoulder());
+			world.removeBoulder(world.getCube(getCubeToWorkOn()[0], getCubeToWorkOn()[1], getCubeToWorkOn()[2]).getBoulder());
 			world.getCube(getCubeToWorkOn()[0], getCubeToWorkOn()[1], getCubeToWorkOn()[2]).setBoulder(null);
 			this.setCurrentExperiencePoints(this.getCurrentExperiencePoints()+10);
 			this.setWorkActivity(WorkActivity.NONE);
@@ -1621,21 +1640,21 @@ public class Unit {
 			if (this.getWorkActivity() == WorkActivity.PICKING_UP_LOG) {
 				this.setMaterial((Log) world.getCube(getCubeToWorkOn()[0], getCubeToWorkOn()[1], getCubeToWorkOn()[2]).getLog());
 				world.getCube(getCubeToWorkOn()[0], getCubeToWorkOn()[1], getCubeToWorkOn()[2]).setLog(null);
-				world.getLogs().remove(this.getMaterial());
+				world.removeLog((Log) this.getMaterial());
 			}if (this.getWorkActivity() == WorkActivity.PICKING_UP_BOULDER) {
 				this.setMaterial((Boulder) world.getCube(getCubeToWorkOn()[0], getCubeToWorkOn()[1], getCubeToWorkOn()[2]).getBoulder());
 				world.getCube(getCubeToWorkOn()[0], getCubeToWorkOn()[1], getCubeToWorkOn()[2]).setBoulder(null);
-				world.getBoulders().remove(this.getMaterial());
+				world.removeBoulder((Boulder) this.getMaterial());
 			}
 			if (this.getWorkActivity() == WorkActivity.DROPPING_BOULDER){
 				this.getMaterial().setPosition(world.getCube(getCubeToWorkOn()[0], getCubeToWorkOn()[1], getCubeToWorkOn()[2]).getPosition());
 				world.getCube(getCubeToWorkOn()[0], getCubeToWorkOn()[1], getCubeToWorkOn()[2]).setBoulder((Boulder) this.getMaterial());
-                this.getWorld().getBoulders().add((Boulder) this.getMaterial()); // TODO Correct use of set methods
+                this.getWorld().addBoulder((Boulder) this.getMaterial());
 				this.setMaterial(null);
 			}if (this.getWorkActivity() == WorkActivity.DROPPING_LOG){
 				this.getMaterial().setPosition(world.getCube(getCubeToWorkOn()[0], getCubeToWorkOn()[1], getCubeToWorkOn()[2]).getPosition());
 				world.getCube(getCubeToWorkOn()[0], getCubeToWorkOn()[1], getCubeToWorkOn()[2]).setLog((Log) this.getMaterial());
-                this.getWorld().getLogs().add((Log) this.getMaterial()); // TODO Correct use of set methods
+                this.getWorld().addLog((Log) this.getMaterial());
 				this.setMaterial(null);
 			}
 			if(this.getWorkActivity()== WorkActivity.DIGGING){
@@ -1738,11 +1757,11 @@ public class Unit {
 	 */
 	private void advanceWhileAttacking(double dt) {
 		this.setOrientation((float) Math.atan2(
-				this.getDefender().getPosition().getDoubleCoordinates()[1] - this.getPosition().getDoubleCoordinates()[1],
-				this.getDefender().getPosition().getDoubleCoordinates()[0] - this.getPosition().getDoubleCoordinates()[0]));
+				this.getDefender().getPosition().getDoubleY() - this.getPosition().getDoubleY(),
+				this.getDefender().getPosition().getDoubleX() - this.getPosition().getDoubleX()));
 		this.getDefender().setOrientation((float) Math.atan2(
-				this.getPosition().getDoubleCoordinates()[1] - this.getDefender().getPosition().getDoubleCoordinates()[1],
-				this.getPosition().getDoubleCoordinates()[0] - this.getDefender().getPosition().getDoubleCoordinates()[0])
+				this.getPosition().getDoubleY() - this.getDefender().getPosition().getDoubleY(),
+				this.getPosition().getDoubleX() - this.getDefender().getPosition().getDoubleX())
 		);
 		this.setFightCounter(this.getFightCounter() -dt);
 		if (this.getFightCounter() <= 0) {
@@ -1885,63 +1904,105 @@ public class Unit {
 		return this.defaultBehaviorEnabled;
 	}
 	
-	private void walking(Cube goal) {
-        PriorityQueue<QueueElement> openSet = new PriorityQueue<>(new Comparator<QueueElement>(){
-			@Override
-			public int compare(QueueElement arg0, QueueElement arg1) {
-				return(arg0.cost+arg0.heuristic) - (arg1.cost+arg1.heuristic);
-			}
-        });
-        List<QueueElement> closedSet = new LinkedList<>();
-        openSet.add(new QueueElement(goal.getPosition(), 0, null));
-        while (! openSet.isEmpty()) {
-            QueueElement current = openSet.poll();
-            if (current.position.equals(new Position(startPosition))) {
-            	if(current.previous == null)
-            		return;
-                this.setNeighboringCubeToMoveTo(this.getMovementChange(current.previous.position));
-                return;
-            }
-            closedSet.add(current);
-            for (Cube neighbor : this.getWorld().getCube(current.position).getNeighboringCubes()) {
-            	QueueElement element = new QueueElement(neighbor.getPosition(), current.cost+1, current);
-            	if(closedSet.contains(element)){
-            		continue;
-            	}
-                if (((!closedSet.contains(neighbor)) || (!openSet.contains(neighbor))) && (!neighbor.isSolid()) && neighbor.hasSolidNeighboringCubes()) {
-                    openSet.add(new QueueElement(neighbor.getPosition(), (current.cost + 1), current));
-                }
-            }
-        }
-        this.setState(State.NONE);
+	/**
+	 * Set the next neighbouring cube to move to, following the path plan of this unit.
+	 * The path is only planned again if there is no plan yet, the target changed,
+	 * this unit left the planned path or a terrain change invalidated it.
+	 *
+	 * @post	  If no path to the target position exists, the state of this unit is NONE.
+	 * 			| if (planPath(getTargetPosition()) == null)
+	 * 			|	then new.getState() == State.NONE
+	 */
+	private void followPathPlan() {
+		PathPlan plan = this.pathPlan;
+		if (plan == null || !plan.isValid() || !Arrays.equals(plan.getTarget(), this.getTargetPosition())
+				|| !plan.advanceTo(this.getStartPosition())) {
+			plan = this.takePathPlan();
+			this.pathPlan = plan;
+			this.getWorld().pathPlanChanged(this, plan);
+		}
+		if (plan == null) {
+			this.setState(State.NONE);
+			return;
+		}
+		if (!plan.isFinished())
+			this.setNeighboringCubeToMoveTo(this.getMovementChange(plan.getNextCube()));
 	}
 
-	private class QueueElement {
-
-        QueueElement previous;
-        Position position;
-        int cost;
-        int heuristic;
+	/**
+	 * Invalidates the path plan of this unit if a terrain change of the cube at
+	 * the given coordinates affects it.
+	 *
+	 * @param x
+	 * 			  The x-coordinate of the changed cube.
+	 * @param y
+	 * 			  The y-coordinate of the changed cube.
+	 * @param z
+	 * 			  The z-coordinate of the changed cube.
+	 */
+	void terrainChanged(int x, int y, int z) {
+		if (this.pathPlan != null && this.pathPlan.isTouchedBy(x, y, z))
+			this.pathPlan.invalidate();
+	}
 
+	/**
+	 * Plans ahead the path this unit needs when it is advanced next, if it is moving
+	 * and its current path plan can't be followed any more.
+	 *
+	 * @note  This method only reads the state of this unit and its world, so a world
+	 *        lets many of its units do this at the same time before it advances them.
+	 *        The planned path is only used if the start, the target and the terrain
+	 *        are still the same then, so the outcome is the same as planning it then.
+	 */
+	void prepareAdvance() {
+		this.hasPreparedPlan = false;
+		this.preparedPlan = null;
+		if (this.isFalling() || this.getState() != State.MOVING)
+			return;
+		PathPlan plan = this.pathPlan;
+		int[] start = this.getStartPosition();
+		int[] target = this.getTargetPosition();
+		if (plan != null && plan.isValid() && Arrays.equals(plan.getTarget(), target) && plan.isOn(start))
+			return;
+		this.preparedStart = start.clone();
+		this.preparedTarget = target.clone();
+		this.preparedTerrainVersion = this.getWorld().getTerrainVersion();
+		this.preparedPlan = this.planPath(this.getWorld().getCube(target[0], target[1], target[2]));
+		this.hasPreparedPlan = true;
+	}
 
-        public QueueElement(Position position, int cost, QueueElement previous) {
-            this.position = position;
-            this.cost = cost;
-            this.previous = previous; 
-            this.heuristic = heuristic();
-        }
-        public int heuristic() {
-			return (getTargetPosition()[0]-this.position.getCubeCoordinates()[0]) + 
-					(getTargetPosition()[1]-this.position.getCubeCoordinates()[1])+
-					(getTargetPosition()[2]-this.position.getCubeCoordinates()[2]);		
-		}
+	/**
+	 * Returns a path from the start position to the target position of this unit: the
+	 * path planned ahead for it if that is still up to date, a newly planned path otherwise.
+	 *
+	 * @return	  The path, or null if the target position can't be reached.
+	 */
+	private PathPlan takePathPlan() {
+		int[] target = this.getTargetPosition();
+		PathPlan plan;
+		if (this.hasPreparedPlan && this.preparedTerrainVersion == this.getWorld().getTerrainVersion()
+				&& Arrays.equals(this.preparedStart, this.getStartPosition())
+				&& Arrays.equals(this.preparedTarget, target))
+			plan = this.preparedPlan;
+		else
+			plan = this.planPath(this.getWorld().getCube(target[0], target[1], target[2]));
+		this.hasPreparedPlan = false;
+		this.preparedPlan = null;
+		return plan;
+	}
 
-        @Override
-        public boolean equals(Object o) {
-            return Arrays.equals(position.getCubeCoordinates(), ((QueueElement)o).position.getCubeCoordinates());
-        }
-        
-    }
+	/**
+	 * Plan a path from the start position of this unit to the given goal.
+	 *
+	 * @param goal
+	 * 			  The cube to plan a path to.
+	 * @return	  The planned path, or null if the goal can't be reached.
+	 */
+	private PathPlan planPath(Cube goal) {
+		List<int[]> cubes = this.getWorld().getPathFinder().findPath(
+				this.getStartPosition(), goal.getPosition().getCubeCoordinates());
+		return cubes == null ? null : new PathPlan(cubes);
+	}
 
     /**
      * @throws IllegalStateException if the unit is doing a state
@@ -1957,16 +2018,18 @@ public class Unit {
         if (this.isSprinting()) {
             this.stopSprinting();
         }
-        int randomBehaviorNumber = new Random().nextInt(6);
+        int randomBehaviorNumber = this.random.nextInt(6);
         if (randomBehaviorNumber == 0) {
             try {
-                moveTo(new int[]{new Random().nextInt(this.getWorld().getNbCubesX()-1), new Random().nextInt(this.getWorld().getNbCubesY()-1), new Random().nextInt(this.getWorld().getNbCubesZ()-1)});
+                moveTo(new int[]{this.random.nextInt(this.getWorld().getNbCubesX()-1), this.random.nextInt(this.getWorld().getNbCubesY()-1), this.random.nextInt(this.getWorld().getNbCubesZ()-1)});
                 this.startSprinting();
             } catch (IllegalCoordinateException exc) {
                 this.startDefaultBehavior();
             }
         } else if (randomBehaviorNumber == 1) {
             int[] cubeToWorkOn = calculateRandomNeighboringCube();
+            while (!this.isValidPosition(cubeToWorkOn))
+                cubeToWorkOn = calculateRandomNeighboringCube();
             try {
                 work(new Position(cubeToWorkOn));
             } catch (IllegalArgumentException exc) {
@@ -1995,20 +2058,14 @@ public class Unit {
     }
 
     /**
-     * Returns the first unit not in the same faction as this one.
+     * Returns the nearest unit not in the same faction as this one.
      *
-     * @return    The first unit not in the same faction as this one.
+     * @return    The nearest unit not in the same faction as this one, or null
+     *            if there is none.
      */
     private Unit calculateHostileUnit() {
-        Unit randomHostileUnit = null;
-        for (Unit unit :
-                this.getWorld().getUnits()) {
-            if (unit.getFaction() != this.getFaction()) {
-                randomHostileUnit = unit;
-                break;
-            }
-        }
-        return randomHostileUnit;
+        return this.getWorld().getNearestUnit(this.getPosition(),
+                unit -> unit.getFaction() != this.getFaction());
     }
 
     /**
@@ -2102,12 +2159,12 @@ public class Unit {
 	 */
 	public void moveToAdjacent(int dx, int dy, int dz) throws IllegalArgumentException {
 		if(!this.isValidPosition(new int[]{
-				this.getPosition().getCubeCoordinates()[0]+dx,
-				this.getPosition().getCubeCoordinates()[1]+dy,
-				this.getPosition().getCubeCoordinates()[2]+dz}) || this.getWorld().getCube(
-				this.getPosition().getCubeCoordinates()[0]+dx,
-				this.getPosition().getCubeCoordinates()[1]+dy,
-				this.getPosition().getCubeCoordinates()[2]+dz).isSolid()) {
+				this.getPosition().getCubeX()+dx,
+				this.getPosition().getCubeY()+dy,
+				this.getPosition().getCubeZ()+dz}) || this.getWorld().getCube(
+				this.getPosition().getCubeX()+dx,
+				this.getPosition().getCubeY()+dy,
+				this.getPosition().getCubeZ()+dz).isSolid()) {
 			throw new IllegalArgumentException();
 		}
 		if (dx == 0 && dy == 0 && dz == 0) {
@@ -2118,14 +2175,14 @@ public class Unit {
 
 		// Absolute target position
 		this.setTargetPosition(new int[]{
-				this.getPosition().getCubeCoordinates()[0] + dx,
-				this.getPosition().getCubeCoordinates()[1] + dy,
-				this.getPosition().getCubeCoordinates()[2] + dz
+				this.getPosition().getCubeX() + dx,
+				this.getPosition().getCubeY() + dy,
+				this.getPosition().getCubeZ() + dz
 		});
 		this.setStartPosition(new int[]{
-				this.getPosition().getCubeCoordinates()[0],
-				this.getPosition().getCubeCoordinates()[1],
-				this.getPosition().getCubeCoordinates()[2]
+				this.getPosition().getCubeX(),
+				this.getPosition().getCubeY(),
+				this.getPosition().getCubeZ()
 		});
 		this.setState(State.MOVING);
 	}
@@ -2175,21 +2232,26 @@ public class Unit {
 	 * 			| this.Position.getPosition() == targetPosition
 	 * 			| new.setState(State.MOVING)
 	 * @post      if the unit is moving set the newTargetPosition equals to targetPosition
+	 * @throws IllegalCoordinateException
+	 * 			  The target position is not a valid position, is solid or can't be
+	 * 			  reached from the cube this unit is standing in.
+	 * 			| !this.getWorld().isReachable(this.getPosition().getCubeCoordinates(), targetPosition)
 	 */
 	public void moveTo(int[] targetPosition) throws IllegalCoordinateException {
 		if (! this.isValidPosition(targetPosition) || targetPosition == null || this.getWorld().getCube(
 				targetPosition[0],
 				targetPosition[1],
-				targetPosition[2]).isSolid()) {
+				targetPosition[2]).isSolid()
+				|| !this.getWorld().isReachable(this.getPosition().getCubeCoordinates(), targetPosition)) {
 			throw new IllegalCoordinateException(targetPosition);
 		}
 		if(this.getState()== State.MOVING){
 			this.setNewTargetPosition(targetPosition);
 		}else{
 			this.setStartPosition(new int[]{
-					this.getPosition().getCubeCoordinates()[0],
-					this.getPosition().getCubeCoordinates()[1],
-					this.getPosition().getCubeCoordinates()[2]
+					this.getPosition().getCubeX(),
+					this.getPosition().getCubeY(),
+					this.getPosition().getCubeZ()
 			});
 			this.setTargetPosition(targetPosition);
 			this.setState(State.MOVING);
@@ -2229,7 +2291,7 @@ public class Unit {
 			this.setWorkCounter(0.3);
 		}
 		// terrain type is workshop
-		else if (this.getWorld().getCube(position).getTerrain() instanceof Workshop) {
+		else if (this.getWorld().getCube(position).getTerrain() == Terrain.WORKSHOP) {
 			if(this.getWorld().getCube(position).hasBoulder() && this.getWorld().getCube(position).hasLog())
 				this.setWorkActivity(WorkActivity.WORKING);
 			else
@@ -2251,14 +2313,14 @@ public class Unit {
 				return;
 		}
 		// terrain type is wood
-		else if (this.getWorld().getCube(position).getTerrain() instanceof Tree){
+		else if (this.getWorld().getCube(position).getTerrain() == Terrain.TREE){
 			if(!isCarryingBoulder() && !isCarryingLog())
 				setWorkActivity(WorkActivity.DIGGING);
 			else 
 				return;
 		}
 		// terrain type is rock
-		else if (this.getWorld().getCube(position).getTerrain() instanceof Rock){
+		else if (this.getWorld().getCube(position).getTerrain() == Terrain.ROCK){
 			if(!isCarryingBoulder() && !isCarryingLog())
 				this.setWorkActivity(WorkActivity.DIGGING);
 			else
@@ -2342,13 +2404,12 @@ public class Unit {
 	 * 			  False if the given coordinate isn't a neighboring cube
 	 */
 	private boolean isNeighboringCube(int[] cubeCoordinatesOfPossibleNeighbor) {
-        return this.getCube().isNeighboringCube(new Position(cubeCoordinatesOfPossibleNeighbor));
+        Position position = this.getPosition();
+        return Math.abs(cubeCoordinatesOfPossibleNeighbor[0] - position.getCubeX())
+                + Math.abs(cubeCoordinatesOfPossibleNeighbor[1] - position.getCubeY())
+                + Math.abs(cubeCoordinatesOfPossibleNeighbor[2] - position.getCubeZ()) == 1;
 	}
 
-    private Cube getCube() {
-        return this.getWorld().getCube(this.getPosition());
-    }
-
 	/**
 	 * @return	  The time needed for fighting
 	 * 			| Result == FIGHT_TIME		
@@ -2395,7 +2456,7 @@ public class Unit {
 	 */
 	private void defend(double attackerAgility, double attackerStrength, Unit attacker) {
 		this.setDefending(true);
-        double dodge = Math.random();
+        double dodge = this.random.nextDouble();
         if(dodge < this.chanceForDodging(attackerAgility)){
             try {
                 this.dodge();
@@ -2405,7 +2466,7 @@ public class Unit {
             this.setCurrentHitPoints(this.getCurrentExperiencePoints()+20);
             return;
         }
-        double block = Math.random();
+        double block = this.random.nextDouble();
         if(block< this.chanceForBlocking(attackerAgility,attackerStrength)){
             this.setCurrentHitPoints(this.getCurrentExperiencePoints()+20);
             return;
@@ -2433,23 +2494,25 @@ public class Unit {
 	/**
 	 * 			  This Method set the change the units position when dodging
 	 *
-	 * @post 	  The new UnitCoordinates are the coordinates of a randomNeighboringCube that is a valid cube
+	 * @post 	  The new UnitCoordinates are the coordinates of a randomNeighboringCube that is a valid,
+	 * 			  passable cube
 	 * 			| while(!this.position.isValidPosition(randomNeighboringCube)
+	 * 			| 		|| this.getWorld().isSolid(randomNeighboringCube)
 	 * 			| 	then randomNeighboringCube = calculateRandomNeighboringCube()
+	 * @throws IllegalStateException
+	 * 			  None of the cubes a unit can dodge to is valid and passable.
+	 * 			| !this.hasPassableNeighboringCube()
 	 *
 	 * @post	  Set the position of the unit to those coordinates
 	 * 			| new.position.setUnitCoordinates(randomNeighboringCube)
 	 */
 	private void dodge() throws IllegalStateException {
-        if (this.getWorld().getCube(this.getPosition().getCubeCoordinates()[0],
-                this.getPosition().getCubeCoordinates()[1],
-                this.getPosition().getCubeCoordinates()[2]).getNeighboringCubes().stream().allMatch(Cube::isSolid)) {
+        if (! this.hasPassableNeighboringCube()) {
             throw new IllegalStateException();
         }
         int[] randomNeighboringCube = calculateRandomNeighboringCube();
-        while ((! this.isValidPosition(randomNeighboringCube)) && (this.getWorld().getCube(randomNeighboringCube[0],
-																		  randomNeighboringCube[1],
-																		  randomNeighboringCube[2]).isSolid())){
+        while (! this.isValidPosition(randomNeighboringCube)
+                || this.getWorld().isSolid(randomNeighboringCube[0], randomNeighboringCube[1], randomNeighboringCube[2])) {
             randomNeighboringCube = calculateRandomNeighboringCube();
         }
         this.setPosition(new Position(randomNeighboringCube));
@@ -2459,25 +2522,46 @@ public class Unit {
 	 * @return	  This method returns a random calculate a random neighboring cube of the unit
 	 * 			| Result == new int[][]{equalXDifferentY, 
 	 * 			| 	equalYDifferentX, 
-	 * 			| 	differentXDifferentY}[new Random().nextInt(3)]
+	 * 			| 	differentXDifferentY}[this.random.nextInt(3)]
 	 */
 	private int[] calculateRandomNeighboringCube() {
 		int[] equalXDifferentY = new int[]{
-				this.getPosition().getCubeCoordinates()[0],
-				this.getPosition().getCubeCoordinates()[1] + new int[]{-1, 1}[new Random().nextInt(2)],
-				this.getPosition().getCubeCoordinates()[2]
+				this.getPosition().getCubeX(),
+				this.getPosition().getCubeY() + new int[]{-1, 1}[this.random.nextInt(2)],
+				this.getPosition().getCubeZ()
 		};
 		int[] equalYDifferentX = new int[]{
-				this.getPosition().getCubeCoordinates()[0] + new int[]{-1, 1}[new Random().nextInt(2)],
-				this.getPosition().getCubeCoordinates()[1],
-				this.getPosition().getCubeCoordinates()[2]
+				this.getPosition().getCubeX() + new int[]{-1, 1}[this.random.nextInt(2)],
+				this.getPosition().getCubeY(),
+				this.getPosition().getCubeZ()
 		};
 		int[] differentXDifferentY = new int[]{
-				this.getPosition().getCubeCoordinates()[0] + new int[]{-1, 1}[new Random().nextInt(2)],
-				this.getPosition().getCubeCoordinates()[1] + new int[]{-1, 1}[new Random().nextInt(2)],
-				this.getPosition().getCubeCoordinates()[2]
+				this.getPosition().getCubeX() + new int[]{-1, 1}[this.random.nextInt(2)],
+				this.getPosition().getCubeY() + new int[]{-1, 1}[this.random.nextInt(2)],
+				this.getPosition().getCubeZ()
 		};
-		return new int[][]{equalXDifferentY, equalYDifferentX, differentXDifferentY}[new Random().nextInt(3)];
+		return new int[][]{equalXDifferentY, equalYDifferentX, differentXDifferentY}[this.random.nextInt(3)];
+	}
+
+	/**
+	 * @return	  True if one of the cubes calculateRandomNeighboringCube can return is a valid,
+	 * 			  passable cube; false otherwise.
+	 * 			| result == (for some dx, dy in {-1, 0, 1}, (dx, dy) != (0, 0):
+	 * 			| 	this.isValidPosition(neighbour) && !this.getWorld().isSolid(neighbour))
+	 */
+	private boolean hasPassableNeighboringCube() {
+		int x = this.getPosition().getCubeX();
+		int y = this.getPosition().getCubeY();
+		int z = this.getPosition().getCubeZ();
+		for (int dx = -1; dx <= 1; dx++) {
+			for (int dy = -1; dy <= 1; dy++) {
+				int[] neighbour = new int[]{x + dx, y + dy, z};
+				if ((dx != 0 || dy != 0) && this.isValidPosition(neighbour)
+						&& !this.getWorld().isSolid(x + dx, y + dy, z))
+					return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -2611,10 +2695,9 @@ public class Unit {
 	 */
 	private void incrementRandomAtrributeValue() {
 		this.setRandomAttributePointCounter(this.getCurrentExperiencePoints()/10);
-		Random rd = new Random();
 		int atribute;
 		for (int i = 0; i < this.getRandomAttributePointCounter(); i++) {
-			atribute = rd.nextInt(3);
+			atribute = this.random.nextInt(3);
 			this.AttributeValueIncrease(atribute);
 			this.setCurrentExperiencePoints(this.getCurrentExperiencePoints()-10);
 		}
@@ -2685,9 +2768,9 @@ public class Unit {
      *          | if this.getMaterial() != null
      *          |   then new
      *          |           .getWorld()
-     *          |           .getCube(this.getPosition().getCubeCoordinates()[0],
-     *          |                    this.getPosition().getCubeCoordinates()[1],
-     *          |                    this.getPosition().getCubeCoordinates()[2])
+     *          |           .getCube(this.getPosition().getCubeX(),
+     *          |                    this.getPosition().getCubeY(),
+     *          |                    this.getPosition().getCubeZ())
      *          |           .getMaterial() == this.getMaterial()
      * @post      This unit is removed from it's faction and from it's world.
      *          | ! this.getFaction().getMembers().contains(new)
@@ -2702,18 +2785,18 @@ public class Unit {
         		this.
                 getWorld().
                 getCube(
-                        this.getPosition().getCubeCoordinates()[0],
-                        this.getPosition().getCubeCoordinates()[1],
-                        this.getPosition().getCubeCoordinates()[2]
+                        this.getPosition().getCubeX(),
+                        this.getPosition().getCubeY(),
+                        this.getPosition().getCubeZ()
                 ).
                 setLog((Log) this.getMaterial());
         	} else {
         		this.
                 getWorld().
                 getCube(
-                        this.getPosition().getCubeCoordinates()[0],
-                        this.getPosition().getCubeCoordinates()[1],
-                        this.getPosition().getCubeCoordinates()[2]
+                        this.getPosition().getCubeX(),
+                        this.getPosition().getCubeY(),
+                        this.getPosition().getCubeZ()
                 ).
                 setBoulder((Boulder) this.getMaterial());
         	}
@@ -2733,6 +2816,8 @@ public class Unit {
      */
     public void setFaction(Faction faction) {
         this.faction = faction;
+        if (this.getWorld() != null)
+            this.getWorld().factionChanged(this);
     }
 
     /**
@@ -2747,6 +2832,17 @@ public class Unit {
         this.world = world;
     }
 
+    /**
+     * Sets the random generator of this unit to the given generator.
+     *
+     * @param random
+     *            The random generator this unit makes its random choices with.
+     * @post      This unit makes its random choices with the given generator.
+     */
+    void setRandom(Random random) {
+        this.random = random;
+    }
+
 	public Task getAssignedTask() {
 		return assignedTask;
 	}
@@ -2759,4 +2855,36 @@ public class Unit {
 		this.assignedTask = task;
 		task.assignTo(this);
 	}
+
+	/**
+	 * Interrupt the task assigned to this unit, because the given statement of it
+	 * could not be executed.
+	 *
+	 * @param interrupted
+	 * 			  The statement of the assigned task that could not be executed.
+	 * @post      The assigned task starts again from the interrupted statement, its priority
+	 * 			  is lowered and it is rescheduled behind the other tasks of the faction of
+	 * 			  this unit, which no longer assigns it to this unit.
+	 * 			| new.getAssignedTask() == null
+	 * 			| (new this.getAssignedTask()).getPriority() == this.getAssignedTask().getPriority() - INTERRUPTION_PENALTY
+	 */
+	public void interruptTask(Statement interrupted) {
+		Task task = this.getAssignedTask();
+		if (task == null)
+			return;
+		List<Statement> remaining = new ArrayList<>();
+		remaining.add(interrupted);
+		if (task.getActivities() != interrupted && task.getActivities().hasNext())
+			remaining.add(task.getActivities());
+		task.setActivities(new StatementSequence(remaining));
+		task.setPriority(task.getPriority() - INTERRUPTION_PENALTY);
+		Scheduler scheduler = this.getFaction().getScheduler();
+		scheduler.resetAssigned(task, this);
+		scheduler.replace(task, task);
+	}
+
+	/**
+	 * Constant reflecting how much the priority of an interrupted task is lowered.
+	 */
+	private static final int INTERRUPTION_PENALTY = 1;
 }
\ No newline at end of file
@@ -0,0 +1,219 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A class of uniform grids indexing the units of a world by their position. The world
+ * is divided into cells of cellSize x cellSize x cellSize cubes, and every cell lists
+ * the units whose position lies in it, so that box, radius and nearest-unit queries only
+ * look at the units in the cells around the query.
+ *
+ * @note      A unit only changes cells when it enters another cube, so the world only
+ *            updates this grid when that happens.
+ */
+class UnitGrid {
+
+    /**
+     * Initialize this new grid for a world of the given size.
+     *
+     * @param nbX
+     *            The number of cubes of the world in the x-direction.
+     * @param nbY
+     *            The number of cubes of the world in the y-direction.
+     * @param nbZ
+     *            The number of cubes of the world in the z-direction.
+     * @param cellSize
+     *            The number of cubes along every side of a cell.
+     * @throws IllegalArgumentException
+     *            The given cell size is not strictly positive.
+     */
+    UnitGrid(int nbX, int nbY, int nbZ, int cellSize) throws IllegalArgumentException {
+        if (cellSize <= 0)
+            throw new IllegalArgumentException("cell size must be positive");
+        this.cellSize = cellSize;
+        this.cellsX = (nbX + cellSize - 1) / cellSize;
+        this.cellsY = (nbY + cellSize - 1) / cellSize;
+        this.cellsZ = (nbZ + cellSize - 1) / cellSize;
+        this.cells = new ArrayList<?>[this.cellsX * this.cellsY * this.cellsZ];
+    }
+
+    /**
+     * The default number of cubes along every side of a cell.
+     */
+    static final int DEFAULT_CELL_SIZE = 4;
+
+    private final int cellSize;
+    private final int cellsX;
+    private final int cellsY;
+    private final int cellsZ;
+
+    /**
+     * Variable registering the units of every cell; the list of a cell is only
+     * created once a unit enters it.
+     */
+    private final ArrayList<?>[] cells;
+
+    /**
+     * Variable registering the cell of every unit in this grid.
+     */
+    private final Map<Unit, Integer> cellOfUnit = new HashMap<>();
+
+    /**
+     * Add the given unit to this grid, at its current position.
+     */
+    void add(Unit unit) {
+        if (this.cellOfUnit.containsKey(unit))
+            return;
+        int cell = this.getCell(unit.getPosition());
+        this.getUnitsIn(cell, true).add(unit);
+        this.cellOfUnit.put(unit, cell);
+    }
+
+    /**
+     * Remove the given unit from this grid.
+     */
+    void remove(Unit unit) {
+        Integer cell = this.cellOfUnit.remove(unit);
+        if (cell != null)
+            this.getUnitsIn(cell, true).remove(unit);
+    }
+
+    /**
+     * Move the given unit to the cell of its current position, if it is in this grid.
+     */
+    void update(Unit unit) {
+        Integer cell = this.cellOfUnit.get(unit);
+        if (cell == null)
+            return;
+        int newCell = this.getCell(unit.getPosition());
+        if (newCell != cell) {
+            this.getUnitsIn(cell, true).remove(unit);
+            this.getUnitsIn(newCell, true).add(unit);
+            this.cellOfUnit.put(unit, newCell);
+        }
+    }
+
+    /**
+     * Returns the units of this grid whose position lies in the box
+     * [minX, maxX[ x [minY, maxY[ x [minZ, maxZ[.
+     */
+    Set<Unit> getUnitsInBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        Set<Unit> result = new HashSet<>();
+        int lowX = this.clamp(minX, this.cellsX);
+        int lowY = this.clamp(minY, this.cellsY);
+        int lowZ = this.clamp(minZ, this.cellsZ);
+        int highX = this.clamp(maxX, this.cellsX);
+        int highY = this.clamp(maxY, this.cellsY);
+        int highZ = this.clamp(maxZ, this.cellsZ);
+        for (int cx = lowX; cx <= highX; cx++)
+            for (int cy = lowY; cy <= highY; cy++)
+                for (int cz = lowZ; cz <= highZ; cz++)
+                    for (Unit unit : this.getUnitsIn(this.getCell(cx, cy, cz), false)) {
+                        Position position = unit.getPosition();
+                        if (minX <= position.getDoubleX() && position.getDoubleX() < maxX
+                                && minY <= position.getDoubleY() && position.getDoubleY() < maxY
+                                && minZ <= position.getDoubleZ() && position.getDoubleZ() < maxZ)
+                            result.add(unit);
+                    }
+        return result;
+    }
+
+    /**
+     * Returns the units of this grid whose position lies within the given distance
+     * of the given position.
+     */
+    List<Unit> getUnitsWithin(Position position, double radius) {
+        List<Unit> result = new ArrayList<>();
+        for (Unit unit : this.getUnitsInBox(position.getDoubleX() - radius, position.getDoubleY() - radius,
+                position.getDoubleZ() - radius, position.getDoubleX() + radius, position.getDoubleY() + radius,
+                position.getDoubleZ() + radius))
+            if (getDistanceSquared(position, unit.getPosition()) <= radius * radius)
+                result.add(unit);
+        return result;
+    }
+
+    /**
+     * Returns the unit of this grid nearest to the given position that satisfies the
+     * given condition, or null if there is none.
+     *
+     * @note      The cells are visited in shells around the cell of the given position,
+     *            and the search stops once no unit beyond the current shell can be
+     *            nearer than the best unit found so far.
+     */
+    Unit getNearestUnit(Position position, Predicate<Unit> condition) {
+        int centreX = this.clamp(position.getDoubleX(), this.cellsX);
+        int centreY = this.clamp(position.getDoubleY(), this.cellsY);
+        int centreZ = this.clamp(position.getDoubleZ(), this.cellsZ);
+        int maxShell = Math.max(this.cellsX, Math.max(this.cellsY, this.cellsZ));
+        Unit nearest = null;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        for (int shell = 0; shell <= maxShell; shell++) {
+            for (int dx = -shell; dx <= shell; dx++) {
+                for (int dy = -shell; dy <= shell; dy++) {
+                    boolean onSide = Math.abs(dx) == shell || Math.abs(dy) == shell;
+                    for (int dz = -shell; dz <= shell; dz += onSide ? 1 : Math.max(1, 2 * shell)) {
+                        int cx = centreX + dx;
+                        int cy = centreY + dy;
+                        int cz = centreZ + dz;
+                        if (cx < 0 || cx >= this.cellsX || cy < 0 || cy >= this.cellsY || cz < 0 || cz >= this.cellsZ)
+                            continue;
+                        for (Unit unit : this.getUnitsIn(this.getCell(cx, cy, cz), false)) {
+                            double distance = getDistanceSquared(position, unit.getPosition());
+                            if (distance < nearestDistance && condition.test(unit)) {
+                                nearest = unit;
+                                nearestDistance = distance;
+                            }
+                        }
+                    }
+                }
+            }
+            // units in further shells are at least shell * cellSize away
+            double bound = (double) shell * this.cellSize;
+            if (nearest != null && nearestDistance <= bound * bound)
+                break;
+        }
+        return nearest;
+    }
+
+    private static double getDistanceSquared(Position first, Position second) {
+        double dx = first.getDoubleX() - second.getDoubleX();
+        double dy = first.getDoubleY() - second.getDoubleY();
+        double dz = first.getDoubleZ() - second.getDoubleZ();
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Unit> getUnitsIn(int cell, boolean create) {
+        if (this.cells[cell] == null) {
+            if (!create)
+                return Collections.emptyList();
+            this.cells[cell] = new ArrayList<Unit>();
+        }
+        return (List<Unit>) this.cells[cell];
+    }
+
+    /**
+     * Returns the cell coordinate of the given coordinate, clamped to the given
+     * number of cells.
+     */
+    private int clamp(double coordinate, int nbCells) {
+        int cell = (int) Math.floor(coordinate / this.cellSize);
+        return Math.max(0, Math.min(nbCells - 1, cell));
+    }
+
+    private int getCell(Position position) {
+        return this.getCell(this.clamp(position.getDoubleX(), this.cellsX),
+                this.clamp(position.getDoubleY(), this.cellsY), this.clamp(position.getDoubleZ(), this.cellsZ));
+    }
+
+    private int getCell(int cx, int cy, int cz) {
+        return cx + this.cellsX * (cy + this.cellsY * cz);
+    }
+}
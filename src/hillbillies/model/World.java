@@ -1,10 +1,13 @@
 package hillbillies.model;
 
-import hillbillies.model.terrain.*;
+import hillbillies.model.terrain.Terrain;
 import hillbillies.part2.listener.TerrainChangeListener;
 import hillbillies.util.ConnectedToBorder;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
 
 public class World {
 
@@ -34,24 +37,53 @@ public class World {
      *                      method during the construction of your world.
      */
     public World(int[][][] terrainTypes, TerrainChangeListener modelListener) {
-        this.setNbCubes(new int[]{terrainTypes.length, terrainTypes[0].length, terrainTypes[0][0].length});
-        cubesInWorld = new Cube[terrainTypes.length][terrainTypes[0].length][terrainTypes[0][0].length];
+        this(terrainTypes.length, terrainTypes[0].length, terrainTypes[0][0].length, flatten(terrainTypes),
+                modelListener);
+    }
+
+    /**
+     * Create a new world of the given size with the terrain in the given array, without
+     * copying it.
+     *
+     * @param nbX           The number of cubes of the world in the x-direction.
+     * @param nbY           The number of cubes of the world in the y-direction.
+     * @param nbZ           The number of cubes of the world in the z-direction.
+     * @param terrainTypes  The terrain types of the world, encoded as in
+     *                      {@link #World(int[][][], TerrainChangeListener)}, with the type of
+     *                      the cube at (x, y, z) at index x + nbX * (y + nbY * z). This world
+     *                      keeps the array as its terrain: later changes to the terrain of
+     *                      this world are written into it.
+     * @param modelListener The listener to notify whenever the terrain type of a cube changes.
+     * @throws IllegalArgumentException
+     *                      The given size is not strictly positive, the length of the given
+     *                      array does not match it, or the array holds an invalid terrain type.
+     */
+    public World(int nbX, int nbY, int nbZ, byte[] terrainTypes, TerrainChangeListener modelListener)
+            throws IllegalArgumentException {
+        if (nbX <= 0 || nbY <= 0 || nbZ <= 0 || (long) nbX * nbY * nbZ != terrainTypes.length)
+            throw new IllegalArgumentException("terrain does not match the size of the world");
+        for (byte type : terrainTypes)
+            Terrain.fromCode(type);
+        this.setNbCubes(new int[]{nbX, nbY, nbZ});
+        this.terrain = terrainTypes;
         this.factions.add(faction1);
         this.factions.add(faction2);
         this.factions.add(faction3);
         this.factions.add(faction4);
         this.factions.add(faction5);
-        connectedToBorder = new ConnectedToBorder(this.getNbCubesX(), this.getNbCubesY(), this.getNbCubesZ());
-        for (int x = 0; x < terrainTypes.length; x++) {
-            for (int y = 0; y < terrainTypes[0].length; y++) {
-                for (int z = 0; z < terrainTypes[0][0].length; z++) {
-                    Cube cube = new Cube(x, y, z, terrainTypes[x][y][z], this);
-                    cubesInWorld[x][y][z]= cube;
-                    cubes.add(cube);
-                }
-            }
-        }
+        this.solidNeighbours = new byte[terrainTypes.length];
+        this.columnSupport = new ColumnSupport(nbX, nbY, nbZ);
+        this.calculateNeighbourMasks();
+        connectedToBorder = new ConnectedToBorder(this.getNbCubesX(), this.getNbCubesY(), this.getNbCubesZ(),
+                this::isSolid);
         this.calculateConnectedToBorder();
+        this.standableRegions = new StandableRegions(this);
+        this.pathFinder = new HierarchicalPathFinder(this);
+        this.unitGrid = new UnitGrid(this.getNbCubesX(), this.getNbCubesY(), this.getNbCubesZ(),
+                UnitGrid.DEFAULT_CELL_SIZE);
+        this.pathPlans = new PathPlanIndex(this.getNbCubesX(), this.getNbCubesY(), this.getNbCubesZ(),
+                UnitGrid.DEFAULT_CELL_SIZE);
+        this.distanceFields = new DistanceFields(this);
         this.setTerrainChangeListener(modelListener);
     }
 
@@ -71,14 +103,57 @@ public class World {
     private int sizeZ;
 
     /**
-     * Variable registering the cubes present in this world.
+     * Variable registering the terrain type of every cube in this world, encoded as in
+     * IFacade and indexed by {@link #getIndex(int, int, int)}.
+     */
+    private final byte[] terrain;
+
+    /**
+     * Variable registering, for every cube in this world, which of its directly adjacent
+     * cubes are solid: bit d is set if the neighbour at {@link PathFinder#OFFSETS}[d] is
+     * solid. Indexed by {@link #getIndex(int, int, int)}, like the terrain.
+     */
+    private final byte[] solidNeighbours;
+
+    /**
+     * Variable registering, per column of this world, the cubes that are solid and the
+     * cubes that have a solid neighbour, to find where falling objects land.
      */
-    private List<Cube> cubes = new ArrayList<>();
+    private final ColumnSupport columnSupport;
 
     /**
-     * Variable registering the units present in this world.
+     * Returns the given terrain types, structured as [x][y][z], in a flat array indexed
+     * by x + nbX * (y + nbY * z).
+     *
+     * @throws IllegalArgumentException
+     *            The given array holds an invalid terrain type.
+     */
+    private static byte[] flatten(int[][][] terrainTypes) throws IllegalArgumentException {
+        int nbX = terrainTypes.length;
+        int nbY = terrainTypes[0].length;
+        int nbZ = terrainTypes[0][0].length;
+        byte[] result = new byte[nbX * nbY * nbZ];
+        for (int x = 0; x < nbX; x++)
+            for (int y = 0; y < nbY; y++)
+                for (int z = 0; z < nbZ; z++)
+                    result[x + nbX * (y + nbY * z)] = (byte) Terrain.fromCode(terrainTypes[x][y][z]).getCode();
+        return result;
+    }
+
+    /**
+     * Variables registering the logs, boulders and units lying on or occupying the cubes
+     * of this world, by cube index. Most cubes hold none of them, so these tables only
+     * hold entries for the cubes that do.
+     */
+    private final Map<Integer, Log> logsByCube = new HashMap<>();
+    private final Map<Integer, Boulder> bouldersByCube = new HashMap<>();
+    private final Map<Integer, Set<Unit>> occupantsByCube = new HashMap<>();
+
+    /**
+     * Variable registering the units present in this world, in the order they were
+     * added, which is the order in which they are advanced.
      */
-    private Set<Unit> units = new HashSet<>();
+    private Set<Unit> units = new LinkedHashSet<>();
 
     /**
      * Variable registering the factions present in this world.
@@ -95,19 +170,314 @@ public class World {
      */
     private Set<Log> logs = new HashSet<>();
 
+    /**
+     * Variable registering the logs and boulders of this world that are falling or may
+     * have lost their support. Resting materials are only added again when the terrain
+     * of their own cube or of the cube beneath it changes, so they are not advanced.
+     */
+    private final Set<Material> unsettledMaterials = new LinkedHashSet<>();
+
+    /**
+     * Variable registering the falling logs and boulders of this world, by the time
+     * they land; they are not advanced until then.
+     */
+    private final PriorityQueue<Material> landings = new PriorityQueue<>(
+            Comparator.comparingDouble(Material::getLandingTime));
+
+    /**
+     * Variable registering the game time of this world, in seconds.
+     */
+    private double time = 0;
+
+    /**
+     * Returns the game time of this world: the total time it has been advanced by.
+     */
+    double getTime() {
+        return this.time;
+    }
+
+    /**
+     * Variable registering the number of terrain changes this world went through.
+     */
+    private long terrainVersion = 0;
+
+    /**
+     * Returns the number of terrain changes this world went through, so that results
+     * computed from its terrain can tell whether they are still up to date.
+     */
+    long getTerrainVersion() {
+        return this.terrainVersion;
+    }
+
+    /**
+     * Variables registering the number of times units, and logs and boulders, were
+     * added to or removed from this world, or the latter started or stopped falling.
+     */
+    private long unitsVersion = 0;
+    private long materialsVersion = 0;
+
+    /**
+     * Variable registering the number of times a unit of this world entered another cube.
+     */
+    private long unitCubesVersion = 0;
+
+    /**
+     * Variable registering the number of times a cube of this world was activated or
+     * deactivated.
+     */
+    private long activeCubesVersion = 0;
+
+    long getUnitsVersion() {
+        return this.unitsVersion;
+    }
+
+    long getUnitCubesVersion() {
+        return this.unitCubesVersion;
+    }
+
+    long getActiveCubesVersion() {
+        return this.activeCubesVersion;
+    }
+
+    long getMaterialsVersion() {
+        return this.materialsVersion;
+    }
+
+    /**
+     * Variable registering whether this world publishes a snapshot of itself every
+     * time it is advanced.
+     */
+    private boolean publishingSnapshots = false;
+
+    /**
+     * Variable registering the last snapshot published by this world, or null if it
+     * did not publish one yet.
+     */
+    private volatile WorldSnapshot snapshot = null;
+
+    /**
+     * Variable registering the chunks of the terrain of this world, as divided by
+     * {@link WorldSnapshot}, that changed since the last snapshot was published.
+     */
+    private final BitSet changedTerrainChunks = new BitSet();
+
+    /**
+     * Returns whether this world publishes a snapshot of itself every time it is
+     * advanced.
+     */
+    public boolean isPublishingSnapshots() {
+        return this.publishingSnapshots;
+    }
+
+    /**
+     * Sets whether this world publishes a snapshot of itself every time it is advanced.
+     *
+     * @param     publishingSnapshots
+     *            Whether or not to publish snapshots.
+     * @post      If snapshots are to be published, a snapshot of the current state of
+     *            this world is published right away.
+     *          | if (publishingSnapshots) then new.getSnapshot() != null
+     */
+    public void setPublishingSnapshots(boolean publishingSnapshots) {
+        this.publishingSnapshots = publishingSnapshots;
+        if (publishingSnapshots)
+            this.publishSnapshot();
+    }
+
+    /**
+     * Returns the last snapshot published by this world, or null if it did not publish
+     * one yet. This method may be called from any thread.
+     */
+    public WorldSnapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    /**
+     * Publishes a snapshot of the current state of this world, sharing what did not
+     * change with the previous snapshot.
+     */
+    private void publishSnapshot() {
+        this.snapshot = new WorldSnapshot(this, this.snapshot, this.changedTerrainChunks);
+        this.changedTerrainChunks.clear();
+    }
+
+    /**
+     * Returns a copy of the terrain types of the given number of cubes, starting from
+     * the cube with the given index.
+     */
+    byte[] copyTerrain(int from, int length) {
+        return Arrays.copyOfRange(this.terrain, from, from + length);
+    }
+
+    /**
+     * Variable registering the random generator of this world. The random choices of
+     * this world, and the generators of its units, all derive from it.
+     */
+    private final Random random = new Random();
+
+    /**
+     * Returns the random generator of this world.
+     */
+    Random getRandom() {
+        return this.random;
+    }
+
+    /**
+     * Seeds the random generator of this world, so that a world built and advanced in
+     * the same way after it is seeded with the same seed goes through the same states.
+     *
+     * @param     seed
+     *            The seed to use.
+     * @note      The units already in this world keep their own generators.
+     */
+    public void setSeed(long seed) {
+        this.random.setSeed(seed);
+    }
+
+    /**
+     * Variable registering the number of threads the units of this world plan their
+     * next step with.
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The number of units from which this world lets its units plan their next step
+     * in parallel; below it, handing out the work costs more than it saves.
+     */
+    private static final int PARALLEL_THRESHOLD = 32;
+
+    /**
+     * Returns the number of threads the units of this world plan their next step with.
+     */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * Sets the number of threads the units of this world plan their next step with.
+     *
+     * @param     parallelism
+     *            The number of threads to use; 1 advances the units sequentially.
+     * @post      | new.getParallelism() == parallelism
+     * @throws IllegalArgumentException
+     *            The given number of threads is not strictly positive.
+     * @note      The units plan in the common fork/join pool, in batches of at least
+     *            their number divided by the given number of threads.
+     * @note      Advancing this world gives the same results for every parallelism.
+     */
+    public void setParallelism(int parallelism) throws IllegalArgumentException {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be strictly positive");
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Variable registering, per phase of advancing this world, the time in nanoseconds
+     * spent in it, or null if that time is not measured.
+     */
+    private long[] phaseTimes = null;
+
+    /**
+     * Returns whether this world measures the time spent in every phase of advancing it.
+     */
+    public boolean isTimingPhases() {
+        return this.phaseTimes != null;
+    }
+
+    /**
+     * Sets whether this world measures the time spent in every phase of advancing it.
+     *
+     * @param     timingPhases
+     *            Whether or not to measure the phases.
+     * @post      The time measured for every phase is zero.
+     *          | for each phase in AdvancePhase.values():
+     *          |   new.getPhaseTime(phase) == 0
+     */
+    public void setTimingPhases(boolean timingPhases) {
+        this.phaseTimes = timingPhases ? new long[AdvancePhase.values().length] : null;
+    }
+
+    /**
+     * Returns the time in nanoseconds spent in the given phase of advancing this world,
+     * since it started measuring it.
+     *
+     * @return    | if (!isTimingPhases()) then result == 0
+     */
+    public long getPhaseTime(AdvancePhase phase) {
+        return this.phaseTimes == null ? 0 : this.phaseTimes[phase.ordinal()];
+    }
+
+    /**
+     * Adds the time since the given start to the given phase, if this world measures its
+     * phases, and returns the time the next phase starts.
+     */
+    private long endPhase(AdvancePhase phase, long start) {
+        if (this.phaseTimes == null)
+            return 0;
+        long now = System.nanoTime();
+        this.phaseTimes[phase.ordinal()] += now - start;
+        return now;
+    }
+
     public Faction faction1 = new Faction("team 1");
     private Faction faction2 = new Faction("team 2");
     private Faction faction3 = new Faction("team 3");
     private Faction faction4 = new Faction("team 4");
     private Faction faction5 = new Faction("team 5");
-    
-    private Cube[][][] cubesInWorld;
 
     /**
      * Variable registering the ConnectedToBorder object for the cubes in this world.
      */
     ConnectedToBorder connectedToBorder;
 
+    /**
+     * Variable registering the regions of this world units can walk around in.
+     */
+    private final StandableRegions standableRegions;
+
+    /**
+     * Variable registering the path finder planning the walks of the units in this world.
+     */
+    private final PathFinder pathFinder;
+
+    /**
+     * Variable registering the spatial index of the units in this world.
+     */
+    private final UnitGrid unitGrid;
+
+    /**
+     * Variable registering the path plans of the units in this world by the cells they
+     * cross.
+     */
+    private final PathPlanIndex pathPlans;
+
+    /**
+     * Variable registering the distance fields to the nearest logs, boulders, workshops
+     * and enemies in this world.
+     */
+    private final DistanceFields distanceFields;
+
+    /**
+     * Returns the path finder planning the walks of the units in this world.
+     */
+    PathFinder getPathFinder() {
+        return this.pathFinder;
+    }
+
+    /**
+     * Returns the distance fields to the nearest targets of the units in this world.
+     */
+    DistanceFields getDistanceFields() {
+        return this.distanceFields;
+    }
+
+    /**
+     * Variable registering the active cubes of this world, i.e. the cubes that still
+     * have something to do when time advances (such as solid cubes that got disconnected
+     * from the border of this world and still have to cave in).
+     */
+    private Set<Cube> activeCubes = new LinkedHashSet<>();
+
     /**
      * Variable registering the TerrainChangeListener for this world.
      */
@@ -164,12 +534,226 @@ public class World {
     }
 
     /**
-     * Returns all cubes in this world.
+     * Returns the index of the cube at the given coordinates in the terrain of this world.
      *
-     * @return A collection of all cubes in this world.
+     * @param     x
+     *            The X-coordinate of the cube.
+     * @param     y
+     *            The Y-coordinate of the cube.
+     * @param     z
+     *            The Z-coordinate of the cube.
+     * @return  The index of the cube, x varying fastest.
+     *        | result == x + y * getNbCubesX() + z * getNbCubesX() * getNbCubesY()
+     */
+    int getIndex(int x, int y, int z) {
+        return x + this.sizeX * (y + this.sizeY * z);
+    }
+
+    /**
+     * Returns whether or not the cube with the given index is solid.
+     */
+    boolean isSolid(int index) {
+        return Terrain.fromCode(this.terrain[index]).isSolid();
+    }
+
+    /**
+     * Returns whether or not the cube at the given coordinates is solid.
+     */
+    boolean isSolid(int x, int y, int z) {
+        return this.isSolid(this.getIndex(x, y, z));
+    }
+
+    /**
+     * Sets the terrain type of the cube with the given index, without notifying anyone.
+     *
+     * @throws    IllegalArgumentException
+     *            The given type is not a valid terrain type.
+     */
+    void setTerrainCode(int index, int type) throws IllegalArgumentException {
+        this.terrain[index] = (byte) Terrain.fromCode(type).getCode();
+        this.changedTerrainChunks.set(index >>> WorldSnapshot.CHUNK_BITS);
+    }
+
+    /**
+     * Returns the log lying on the cube with the given index, or null if there is none.
+     */
+    Log getLogAt(int index) {
+        return this.logsByCube.get(index);
+    }
+
+    /**
+     * Registers the given log as lying on the cube with the given index; a null log
+     * clears that cube.
      */
-    private Collection<Cube> getCubes() {
-        return this.cubes;
+    void setLogAt(int index, Log log) {
+        if (log == null) {
+            if (this.logsByCube.remove(index) != null)
+                this.distanceFields.targetRemoved(DistanceFields.LOG, index);
+        } else if (this.logsByCube.put(index, log) == null) {
+            this.distanceFields.targetAdded(DistanceFields.LOG, index);
+        }
+    }
+
+    /**
+     * Returns the indices of the cubes a log lies on.
+     */
+    Set<Integer> getLogCubes() {
+        return this.logsByCube.keySet();
+    }
+
+    /**
+     * Returns the boulder lying on the cube with the given index, or null if there is none.
+     */
+    Boulder getBoulderAt(int index) {
+        return this.bouldersByCube.get(index);
+    }
+
+    /**
+     * Registers the given boulder as lying on the cube with the given index; a null
+     * boulder clears that cube.
+     */
+    void setBoulderAt(int index, Boulder boulder) {
+        if (boulder == null) {
+            if (this.bouldersByCube.remove(index) != null)
+                this.distanceFields.targetRemoved(DistanceFields.BOULDER, index);
+        } else if (this.bouldersByCube.put(index, boulder) == null) {
+            this.distanceFields.targetAdded(DistanceFields.BOULDER, index);
+        }
+    }
+
+    /**
+     * Returns the indices of the cubes a boulder lies on.
+     */
+    Set<Integer> getBoulderCubes() {
+        return this.bouldersByCube.keySet();
+    }
+
+    /**
+     * Returns whether or not the cube with the given index is a workshop.
+     */
+    boolean isWorkshop(int index) {
+        return this.terrain[index] == Terrain.WORKSHOP.getCode();
+    }
+
+    /**
+     * Returns the solid neighbours of the cube with the given index, as a mask in which
+     * bit d is set if the neighbour at {@link PathFinder#OFFSETS}[d] is solid.
+     */
+    int getNeighbourMask(int index) {
+        return this.solidNeighbours[index];
+    }
+
+    /**
+     * Returns the solid neighbours of the cube at the given coordinates.
+     *
+     * @param     x
+     *            The x-coordinate of the cube.
+     * @param     y
+     *            The y-coordinate of the cube.
+     * @param     z
+     *            The z-coordinate of the cube.
+     * @return A mask in which bit d is set if the cube at offset d in the order -x, +x, -y,
+     *         +y, -z, +z lies in this world and is solid.
+     * @throws    ArrayIndexOutOfBoundsException
+     *            The given coordinates do not lie in this world.
+     */
+    public int getNeighbourMask(int x, int y, int z) throws ArrayIndexOutOfBoundsException {
+        this.checkCoordinates(x, y, z);
+        return this.getNeighbourMask(this.getIndex(x, y, z));
+    }
+
+    /**
+     * Returns whether a unit can stand in the cube with the given index.
+     */
+    boolean isStandable(int index) {
+        return this.solidNeighbours[index] != 0 && !this.isSolid(index);
+    }
+
+    /**
+     * Returns whether a unit can stand in the cube at the given coordinates.
+     *
+     * @param     x
+     *            The x-coordinate of the cube.
+     * @param     y
+     *            The y-coordinate of the cube.
+     * @param     z
+     *            The z-coordinate of the cube.
+     * @return true if the cube is passable and has a solid neighbouring cube;
+     *         false otherwise.
+     * @throws    ArrayIndexOutOfBoundsException
+     *            The given coordinates do not lie in this world.
+     */
+    public boolean isStandable(int x, int y, int z) throws ArrayIndexOutOfBoundsException {
+        this.checkCoordinates(x, y, z);
+        return this.isStandable(this.getIndex(x, y, z));
+    }
+
+    /**
+     * Calculates the solid neighbours of every cube in this world.
+     */
+    private void calculateNeighbourMasks() {
+        for (int x = 0; x < this.getNbCubesX(); x++)
+            for (int y = 0; y < this.getNbCubesY(); y++)
+                for (int z = 0; z < this.getNbCubesZ(); z++)
+                    if (this.isSolid(x, y, z))
+                        this.updateNeighbourMasks(x, y, z, true);
+    }
+
+    /**
+     * Returns the height at which a unit falling down from the cube at the given
+     * coordinates lands: the first cube at or below it with a solid neighbour, or the
+     * bottom of the world.
+     */
+    int getUnitLandingZ(int x, int y, int z) {
+        return Math.max(0, this.columnSupport.getHighestSupportedAtOrBelow(x, y, z));
+    }
+
+    /**
+     * Returns the height at which a material falling down from the cube at the given
+     * coordinates lands: the cube on top of the first solid cube below it, or the
+     * bottom of the world.
+     */
+    int getMaterialLandingZ(int x, int y, int z) {
+        return this.columnSupport.getHighestSolidBelow(x, y, z) + 1;
+    }
+
+    /**
+     * Updates the solid neighbours of the cubes around the cube at the given coordinates,
+     * after it became solid or passable.
+     */
+    private void updateNeighbourMasks(int x, int y, int z, boolean isSolid) {
+        for (int direction = 0; direction < PathFinder.OFFSETS.length; direction++) {
+            int nx = x + PathFinder.OFFSETS[direction][0];
+            int ny = y + PathFinder.OFFSETS[direction][1];
+            int nz = z + PathFinder.OFFSETS[direction][2];
+            if (nx < 0 || nx >= this.getNbCubesX() || ny < 0 || ny >= this.getNbCubesY() || nz < 0
+                    || nz >= this.getNbCubesZ())
+                continue;
+            // seen from the neighbour, this cube lies in the opposite direction
+            int bit = 1 << (direction ^ 1);
+            int neighbour = this.getIndex(nx, ny, nz);
+            if (isSolid)
+                this.solidNeighbours[neighbour] |= bit;
+            else
+                this.solidNeighbours[neighbour] &= ~bit;
+            this.columnSupport.setSupported(nx, ny, nz, this.solidNeighbours[neighbour] != 0);
+        }
+        this.columnSupport.setSolid(x, y, z, isSolid);
+    }
+
+    /**
+     * Returns the units registered on the cube with the given index.
+     */
+    Set<Unit> getOccupantsAt(int index) {
+        Set<Unit> occupants = this.occupantsByCube.get(index);
+        return occupants == null ? Collections.emptySet() : occupants;
+    }
+
+    /**
+     * Registers the given unit on the cube with the given index.
+     */
+    void addOccupantAt(int index, Unit unit) {
+        this.occupantsByCube.computeIfAbsent(index, key -> new HashSet<>()).add(unit);
     }
 
     /**
@@ -183,10 +767,23 @@ public class World {
      *            The Z-coordinate of the cube.
      *
      * @return The cube at the given position.
+     * @throws    ArrayIndexOutOfBoundsException
+     *            The given coordinates lie outside this world.
+     */
+    public Cube getCube(int x, int y, int z) throws ArrayIndexOutOfBoundsException {
+        this.checkCoordinates(x, y, z);
+        return new Cube(x, y, z, this);
+    }
+
+    /**
+     * Checks whether the given coordinates lie inside this world.
+     *
+     * @throws    ArrayIndexOutOfBoundsException
+     *            The given coordinates lie outside this world.
      */
-    public Cube getCube(int x, int y, int z) {
-    	return cubesInWorld[x][y][z];
-        //return cubes.get(cubeIndexInCubeList(x, y, z));
+    private void checkCoordinates(int x, int y, int z) throws ArrayIndexOutOfBoundsException {
+        if (x < 0 || x >= this.sizeX || y < 0 || y >= this.sizeY || z < 0 || z >= this.sizeZ)
+            throw new ArrayIndexOutOfBoundsException("(" + x + ", " + y + ", " + z + ")");
     }
 
     /**
@@ -221,41 +818,170 @@ public class World {
      *         according to the values in IFacade.
      */
     public int getCubeType(int x, int y, int z) {
-        Terrain terrain = this.getCube(x, y, z).getTerrain();
-        if (terrain instanceof Air) {
-            return 0;
-        }
-        if (terrain instanceof Rock) {
-            return 1;
-        }
-        if (terrain instanceof Tree) {
-            return 2;
-        }
-        if (terrain instanceof Workshop) {
-            return 3;
-        }
-        return -1;
+        this.checkCoordinates(x, y, z);
+        return this.terrain[this.getIndex(x, y, z)];
     }
 
     /**
-     * (Re)calculates the connectedToBorder object for the cubes in this world.
+     * Activates the solid cubes of this world that are not connected to the border, once
+     * the connectedToBorder object has been initialised for the terrain of this world.
      *
-     * @post      The cubes that get disconnected cave in.
+     * @post      The solid cubes that are not connected to the border are activated, so they cave in.
+     * @note      This walks every cube in the world, so it is only used while
+     *            constructing the world. Later changes are fed one cube at a time
+     *            through {@link #updateConnectedToBorder(int, int, int, boolean, boolean)}.
      */
-    void calculateConnectedToBorder() {
+    private void calculateConnectedToBorder() {
         for (int i = 0; i < this.getNbCubesX(); i++) {
             for (int j = 0; j < this.getNbCubesY(); j++) {
                 for (int k = 0; k < this.getNbCubesZ(); k++) {
-                    if (this.getCube(i, j, k).getTerrain() instanceof Passable) {
-                        connectedToBorder.changeSolidToPassable(i,j,k);
-                    } else {
-                        connectedToBorder.changePassableToSolid(i,j,k);
+                    if (this.isSolid(i, j, k) && !this.connectedToBorder.isSolidConnectedToBorder(i, j, k)) {
+                        this.activateCube(this.getCube(i, j, k));
                     }
                 }
             }
         }
     }
 
+    /**
+     * Updates the connectedToBorder object for a single cube whose terrain changed.
+     *
+     * @param     x
+     *            The x-coordinate of the changed cube
+     * @param     y
+     *            The y-coordinate of the changed cube
+     * @param     z
+     *            The z-coordinate of the changed cube
+     * @param     wasSolid
+     *            Whether or not the cube was solid before the change.
+     * @param     isSolid
+     *            Whether or not the cube is solid after the change.
+     * @post      The cubes that got disconnected by this change are activated, so they cave in.
+     * @post      The cubes that got connected again by this change are deactivated.
+     * @post      If the changed cube became solid without being connected to the border,
+     *            it is activated, so it caves in.
+     */
+    void updateConnectedToBorder(int x, int y, int z, boolean wasSolid, boolean isSolid) {
+        if (wasSolid && !isSolid) {
+            for (int[] disconnected : this.connectedToBorder.changeSolidToPassable(x, y, z)) {
+                this.activateCube(this.getCube(disconnected[0], disconnected[1], disconnected[2]));
+            }
+        } else if (!wasSolid && isSolid) {
+            for (int[] connected : this.connectedToBorder.changePassableToSolid(x, y, z)) {
+                this.deactivateCube(this.getCube(connected[0], connected[1], connected[2]));
+            }
+            // a cube that became solid without touching solid terrain caves in as well
+            if (!this.connectedToBorder.isSolidConnectedToBorder(x, y, z))
+                this.activateCube(this.getCube(x, y, z));
+        }
+    }
+
+    /**
+     * Updates the state of this world that depends on the terrain after the terrain
+     * of the cube at the given coordinates changed.
+     *
+     * @param     x
+     *            The x-coordinate of the changed cube
+     * @param     y
+     *            The y-coordinate of the changed cube
+     * @param     z
+     *            The z-coordinate of the changed cube
+     * @param     wasSolid
+     *            Whether or not the cube was solid before the change.
+     * @param     isSolid
+     *            Whether or not the cube is solid after the change.
+     * @effect    The terrain change listener of this world is notified.
+     *          | notifyTerrainChangeListener(x, y, z)
+     * @effect    The connectedToBorder object of this world is updated.
+     *          | updateConnectedToBorder(x, y, z, wasSolid, isSolid)
+     * @post      The logs and boulders in and on top of the changed cube are advanced again.
+     * @post      The solid neighbours of the cubes around the changed cube, the standable
+     *            regions, the path finder, the distance fields and the path plans of the
+     *            units of this world that are affected by the change are updated.
+     */
+    void terrainChanged(int x, int y, int z, boolean wasSolid, boolean isSolid) {
+        this.terrainVersion++;
+        this.notifyTerrainChangeListener(x, y, z);
+        if (wasSolid != isSolid)
+            this.updateNeighbourMasks(x, y, z, isSolid);
+        if (!wasSolid && isSolid)
+            this.interruptFallsAbove(x, y, z);
+        // the materials in and on top of the changed cube may have lost their support
+        this.wakeMaterialsAt(this.getIndex(x, y, z));
+        if (z + 1 < this.getNbCubesZ())
+            this.wakeMaterialsAt(this.getIndex(x, y, z + 1));
+        this.updateConnectedToBorder(x, y, z, wasSolid, isSolid);
+        this.standableRegions.terrainChanged(x, y, z);
+        this.getPathFinder().terrainChanged(x, y, z);
+        this.distanceFields.terrainChanged(this.getIndex(x, y, z));
+        for (Unit unit : this.pathPlans.getUnitsNear(x, y, z)) {
+            unit.terrainChanged(x, y, z);
+        }
+    }
+
+    /**
+     * Returns whether a unit standing in the given start cube can walk to the given
+     * target cube.
+     *
+     * @param     start
+     *            The cube coordinates of the cube the unit stands in.
+     * @param     target
+     *            The cube coordinates to walk to.
+     * @return true if the start cube is not a cube a unit can stand in (e.g. when falling);
+     *         otherwise whether the target can be reached by walking through cubes a unit
+     *         can stand in.
+     * @note      The regions are labelled in advance, so this query returns (almost) immediately.
+     */
+    public boolean isReachable(int[] start, int[] target) {
+        return this.standableRegions.isReachable(start, target);
+    }
+
+    /**
+     * Returns whether or not the given cube is active in this world.
+     *
+     * @param     cube
+     *            The cube to check.
+     * @return true if the given cube is registered as an active cube of this world;
+     *         false otherwise.
+     */
+    boolean isActiveCube(Cube cube) {
+        return this.activeCubes.contains(cube);
+    }
+
+    /**
+     * Returns the active cubes of this world.
+     */
+    Set<Cube> getActiveCubes() {
+        return Collections.unmodifiableSet(this.activeCubes);
+    }
+
+    /**
+     * Registers the given cube as an active cube of this world, so that it is
+     * advanced when time advances.
+     *
+     * @param     cube
+     *            The cube to activate.
+     * @post      The given cube is an active cube of this world.
+     *          | new.isActiveCube(cube)
+     */
+    void activateCube(Cube cube) {
+        if (this.activeCubes.add(cube))
+            this.activeCubesVersion++;
+    }
+
+    /**
+     * Removes the given cube from the active cubes of this world.
+     *
+     * @param     cube
+     *            The cube to deactivate.
+     * @post      The given cube is no longer an active cube of this world.
+     *          | !new.isActiveCube(cube)
+     */
+    void deactivateCube(Cube cube) {
+        if (this.activeCubes.remove(cube))
+            this.activeCubesVersion++;
+    }
+
     /**
      * Return whether the cube at the given coordinates is solid and connected
      * to the border of the world.
@@ -318,11 +1044,189 @@ public class World {
      *            The unit to add to the collection of units in this world.
      */
     public void addAsUnit(Unit unit) {
-        this.units.add(unit);
+        if (this.units.add(unit)) {
+            unit.setRandom(new Random(this.getRandom().nextLong()));
+            this.unitsVersion++;
+        }
+        this.unitGrid.add(unit);
+        this.distanceFields.unitAdded(unit);
     }
 
     public void removeAsUnit(Unit unit) {
-        this.units.remove(unit);
+        if (this.units.remove(unit))
+            this.unitsVersion++;
+        this.unitGrid.remove(unit);
+        this.pathPlans.remove(unit);
+        this.distanceFields.unitRemoved(unit);
+    }
+
+    /**
+     * Updates the spatial index of the units in this world after the given unit
+     * entered another cube.
+     *
+     * @param     unit
+     *            The unit that moved.
+     */
+    void unitMoved(Unit unit) {
+        this.unitCubesVersion++;
+        this.unitGrid.update(unit);
+        this.distanceFields.unitMoved(unit);
+    }
+
+    /**
+     * Registers the given plan as the path plan the given unit follows, so that it is
+     * invalidated by the terrain changes that touch it.
+     *
+     * @param     unit
+     *            The unit that planned its path.
+     * @param     plan
+     *            The new path plan of the given unit, or null if it has none.
+     */
+    void pathPlanChanged(Unit unit, PathPlan plan) {
+        if (this.units.contains(unit))
+            this.pathPlans.register(unit, plan);
+    }
+
+    /**
+     * Updates the state of this world that depends on the factions of its units after
+     * the given unit joined another faction.
+     *
+     * @param     unit
+     *            The unit that joined another faction.
+     */
+    void factionChanged(Unit unit) {
+        this.distanceFields.factionChanged(unit);
+    }
+
+    /**
+     * Returns the units of this world whose position lies in the given box.
+     *
+     * @param     minX
+     *            The lowest x-coordinate of the box.
+     * @param     minY
+     *            The lowest y-coordinate of the box.
+     * @param     minZ
+     *            The lowest z-coordinate of the box.
+     * @param     maxX
+     *            The highest x-coordinate of the box (exclusive).
+     * @param     maxY
+     *            The highest y-coordinate of the box (exclusive).
+     * @param     maxZ
+     *            The highest z-coordinate of the box (exclusive).
+     * @return A set of the units in this world with minX <= x < maxX, minY <= y < maxY
+     *         and minZ <= z < maxZ.
+     */
+    public Set<Unit> getUnitsInBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        return this.unitGrid.getUnitsInBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Returns the units of this world within the given distance of the given position.
+     *
+     * @param     position
+     *            The position to look around.
+     * @param     radius
+     *            The distance to look within.
+     * @return A list of the units of this world whose position lies within the given
+     *         distance of the given position.
+     */
+    public List<Unit> getUnitsWithin(Position position, double radius) {
+        return this.unitGrid.getUnitsWithin(position, radius);
+    }
+
+    /**
+     * Returns the unit of this world nearest to the given position that satisfies the
+     * given condition.
+     *
+     * @param     position
+     *            The position to look around.
+     * @param     condition
+     *            The condition the unit must satisfy.
+     * @return The nearest unit satisfying the given condition, or null if there is none.
+     */
+    public Unit getNearestUnit(Position position, Predicate<Unit> condition) {
+        return this.unitGrid.getNearestUnit(position, condition);
+    }
+
+    /**
+     * Returns the position of the log nearest to the given position a unit standing
+     * there can walk to.
+     *
+     * @param     position
+     *            The position to look around.
+     * @return The position of the cube of the log with the shortest walk from the given
+     *         position, or null if no log can be reached.
+     */
+    public Position getNearestLog(Position position) {
+        return this.getNearestTarget(DistanceFields.LOG, position);
+    }
+
+    /**
+     * Returns the position of the boulder nearest to the given position a unit standing
+     * there can walk to.
+     *
+     * @param     position
+     *            The position to look around.
+     * @return The position of the cube of the boulder with the shortest walk from the
+     *         given position, or null if no boulder can be reached.
+     */
+    public Position getNearestBoulder(Position position) {
+        return this.getNearestTarget(DistanceFields.BOULDER, position);
+    }
+
+    /**
+     * Returns the position of the workshop nearest to the given position a unit standing
+     * there can walk to.
+     *
+     * @param     position
+     *            The position to look around.
+     * @return The position of the workshop with the shortest walk from the given
+     *         position, or null if no workshop can be reached.
+     */
+    public Position getNearestWorkshop(Position position) {
+        return this.getNearestTarget(DistanceFields.WORKSHOP, position);
+    }
+
+    private Position getNearestTarget(int kind, Position position) {
+        int index = this.distanceFields.getNearestTarget(kind,
+                this.getIndex(position.getCubeX(), position.getCubeY(), position.getCubeZ()));
+        return index < 0 ? null : this.getPositionOf(index);
+    }
+
+    /**
+     * Returns the unit of another faction than the given unit the given unit can walk to
+     * the fastest.
+     *
+     * @param     unit
+     *            The unit to look around.
+     * @return A living unit of another faction in or next to the cube with the shortest
+     *         walk from the position of the given unit, or null if no such unit can be
+     *         reached.
+     * @note      The walks to an enemy that jumped far may lag a few ticks behind, so
+     *            the enemy is looked for next to the cube it was in as well.
+     */
+    public Unit getNearestEnemy(Unit unit) {
+        Position position = unit.getPosition();
+        int index = this.distanceFields.getNearestEnemy(unit.getFaction(),
+                this.getIndex(position.getCubeX(), position.getCubeY(), position.getCubeZ()));
+        if (index < 0)
+            return null;
+        Position cube = this.getPositionOf(index);
+        for (Unit other : this.getUnitsInBox(cube.getCubeX(), cube.getCubeY(), cube.getCubeZ(),
+                cube.getCubeX() + 1, cube.getCubeY() + 1, cube.getCubeZ() + 1))
+            if (other.getFaction() != unit.getFaction() && other.isAlive())
+                return other;
+        for (Unit other : this.getUnitsInBox(cube.getCubeX() - 1, cube.getCubeY() - 1, cube.getCubeZ() - 1,
+                cube.getCubeX() + 2, cube.getCubeY() + 2, cube.getCubeZ() + 2))
+            if (other.getFaction() != unit.getFaction() && other.isAlive())
+                return other;
+        return null;
+    }
+
+    private Position getPositionOf(int index) {
+        int nbX = this.getNbCubesX();
+        int nbY = this.getNbCubesY();
+        return new Position(CubeCoordinates.pack(index % nbX, (index / nbX) % nbY, index / (nbX * nbY)));
     }
 
     /**
@@ -347,13 +1251,13 @@ public class World {
      * @return The newly spawned unit.
      */
     public Unit spawnUnit(boolean enableDefaultBehavior){
-		int cubeX = new Random().nextInt(this.getNbCubesX());
-		int cubeY = new Random().nextInt(this.getNbCubesY());
-		int cubeZ = new Random().nextInt(this.getNbCubesZ());
+		int cubeX = this.getRandom().nextInt(this.getNbCubesX());
+		int cubeY = this.getRandom().nextInt(this.getNbCubesY());
+		int cubeZ = this.getRandom().nextInt(this.getNbCubesZ());
 		while(! validSpawnCoordinates(cubeX, cubeY, cubeZ)) {
-			cubeX = new Random().nextInt(this.getNbCubesX());
-			cubeY = new Random().nextInt(this.getNbCubesY());
-			cubeZ = new Random().nextInt(this.getNbCubesZ());
+			cubeX = this.getRandom().nextInt(this.getNbCubesX());
+			cubeY = this.getRandom().nextInt(this.getNbCubesY());
+			cubeZ = this.getRandom().nextInt(this.getNbCubesZ());
 		}
 		Unit unit = new Unit("Hilly", new int[]{cubeX,cubeY,cubeZ},50, 50, 50, 50, false);
 		this.getCube(cubeX, cubeY, cubeZ).setUnit(unit);
@@ -384,8 +1288,7 @@ public class World {
      *            The unit to add to a faction.
 	 */
 	private void addUnitToFaction(Unit unit){
-		Random rd = new Random();
-		int factionNumer = rd.nextInt(4);
+		int factionNumer = this.getRandom().nextInt(4);
 		switch (factionNumer) {
 		case 0:
 			faction1.addMember(unit);
@@ -426,8 +1329,23 @@ public class World {
      */
     void addBoulder(Boulder boulder) {
 		this.boulders.add(boulder);
+        this.unsettledMaterials.add(boulder);
+        this.materialsVersion++;
 	}
 
+    /**
+     * Removes the given boulder from the collection of boulders in this world.
+     *
+     * @param     boulder
+     *            The boulder to remove from the collection of boulders in this world.
+     */
+    void removeBoulder(Boulder boulder) {
+        this.boulders.remove(boulder);
+        this.unsettledMaterials.remove(boulder);
+        this.landings.remove(boulder);
+        this.materialsVersion++;
+    }
+
     /**
      * Return all logs that are part of the given world.
      *
@@ -446,8 +1364,82 @@ public class World {
      */
     void addLog(Log log) {
 		this.logs.add(log);
+        this.unsettledMaterials.add(log);
+        this.materialsVersion++;
 	}
 
+    /**
+     * Removes the given log from the collection of logs in this world.
+     *
+     * @param     log
+     *            The log to remove from the collection of logs in this world.
+     */
+    void removeLog(Log log) {
+        this.logs.remove(log);
+        this.unsettledMaterials.remove(log);
+        this.landings.remove(log);
+        this.materialsVersion++;
+    }
+
+    /**
+     * Stops advancing the given material, which rests on a supporting cube, until the
+     * terrain around it changes.
+     *
+     * @param     material
+     *            The material that came to rest.
+     */
+    void materialSettled(Material material) {
+        this.unsettledMaterials.remove(material);
+    }
+
+    /**
+     * Stops advancing the given material, which started to fall, until it lands.
+     *
+     * @param     material
+     *            The falling material.
+     */
+    void materialFalling(Material material) {
+        this.unsettledMaterials.remove(material);
+        this.landings.add(material);
+        this.materialsVersion++;
+    }
+
+    /**
+     * Returns the logs and boulders of this world that are falling.
+     */
+    Collection<Material> getFallingMaterials() {
+        return Collections.unmodifiableCollection(this.landings);
+    }
+
+    /**
+     * Lands the falling materials in the column of the cube at the given coordinates
+     * above it early, after that cube became solid in their way.
+     */
+    private void interruptFallsAbove(int x, int y, int z) {
+        for (Material material : this.landings.toArray(new Material[this.landings.size()])) {
+            Position position = material.getPosition();
+            if (position.getCubeX() == x && position.getCubeY() == y && position.getCubeZ() > z
+                    && material.getLandingZ() <= z) {
+                this.landings.remove(material);
+                material.fallTo(z + 1);
+                this.landings.add(material);
+            }
+        }
+    }
+
+    /**
+     * Advances the materials lying on the cube with the given index again, as they may
+     * have lost their support.
+     */
+    private void wakeMaterialsAt(int index) {
+        Log log = this.getLogAt(index);
+        if (log != null && this.logs.contains(log))
+            this.unsettledMaterials.add(log);
+        Boulder boulder = this.getBoulderAt(index);
+        if (boulder != null && this.boulders.contains(boulder))
+            this.unsettledMaterials.add(boulder);
+    }
+
     /**
      * Advance the state of this world by the given time period.
      *
@@ -455,14 +1447,100 @@ public class World {
      * 			  The time period, in seconds, by which to advance the world's state.
      */
     public void advanceTime(double dt) {
-        this.getCubes().stream().forEach(cube->cube.advanceTime(dt));
-        Set<Unit> copyOfUnits = new HashSet<>(this.getUnits());
-        copyOfUnits.stream().forEach(unit->unit.advanceTime(dt));
-        this.getLogs().stream().forEach(log->log.advanceTime(dt));
-        this.getBoulders().stream().forEach(boulder->boulder.advanceTime(dt));
+        long start = this.isTimingPhases() ? System.nanoTime() : 0;
+        this.time += dt;
+        this.distanceFields.nextTick();
+        while (!this.landings.isEmpty() && this.landings.peek().getLandingTime() <= this.time) {
+            Material material = this.landings.poll();
+            material.land();
+            // the material checks its support again on the next advance
+            this.unsettledMaterials.add(material);
+            this.materialsVersion++;
+        }
+        start = this.endPhase(AdvancePhase.LANDINGS, start);
+        for (Cube cube : this.activeCubes.toArray(new Cube[this.activeCubes.size()])) {
+            cube.advanceTime(dt);
+        }
+        start = this.endPhase(AdvancePhase.CUBES, start);
+        Unit[] units = this.getUnits().toArray(new Unit[this.getUnits().size()]);
+        if (this.getParallelism() > 1 && units.length >= PARALLEL_THRESHOLD) {
+            int batchSize = Math.max(PrepareUnits.MIN_BATCH_SIZE,
+                    (units.length + this.getParallelism() - 1) / this.getParallelism());
+            ForkJoinPool.commonPool().invoke(new PrepareUnits(units, 0, units.length, batchSize));
+        }
+        start = this.endPhase(AdvancePhase.PLANNING, start);
+        for (Unit unit : units) {
+            unit.advanceTime(dt);
+        }
+        start = this.endPhase(AdvancePhase.UNITS, start);
+        for (Material material : this.unsettledMaterials.toArray(new Material[this.unsettledMaterials.size()])) {
+            material.advanceTime(dt);
+        }
+        start = this.endPhase(AdvancePhase.MATERIALS, start);
+        if (this.isPublishingSnapshots())
+            this.publishSnapshot();
+        this.endPhase(AdvancePhase.SNAPSHOT, start);
+    }
+
+    /**
+     * Returns the cube at the given packed coordinates.
+     *
+     * @param     cube
+     *            The coordinates of the cube, packed as in {@link CubeCoordinates}.
+     * @return  | result == getCube(CubeCoordinates.getX(cube), CubeCoordinates.getY(cube),
+     *        |                   CubeCoordinates.getZ(cube))
+     */
+    public Cube getCube(long cube) throws ArrayIndexOutOfBoundsException {
+        return this.getCube(CubeCoordinates.getX(cube), CubeCoordinates.getY(cube), CubeCoordinates.getZ(cube));
     }
 
     public Cube getCube(Position position) {
-        return this.getCube(position.getCubeCoordinates()[0], position.getCubeCoordinates()[1], position.getCubeCoordinates()[2]);
+        return this.getCube(position.getCube());
+    }
+
+    /**
+     * A class of tasks letting a range of units plan their next step, splitting the
+     * range over the threads of the pool they run in.
+     *
+     * @note  Planning only reads the state of the world, so the units can plan at the
+     *        same time; the world then advances them one by one, in the order of its
+     *        units, so conflicting changes are made in the same order for every run.
+     */
+    private static final class PrepareUnits extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private PrepareUnits(Unit[] units, int from, int to, int batchSize) {
+            this.units = units;
+            this.from = from;
+            this.to = to;
+            this.batchSize = batchSize;
+        }
+
+        private final Unit[] units;
+        private final int from;
+        private final int to;
+
+        /**
+         * The number of units a task lets plan without splitting further.
+         */
+        private final int batchSize;
+
+        /**
+         * The smallest number of units worth a task of its own.
+         */
+        private static final int MIN_BATCH_SIZE = 8;
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.batchSize) {
+                for (int i = this.from; i < this.to; i++)
+                    this.units[i].prepareAdvance();
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new PrepareUnits(this.units, this.from, middle, this.batchSize),
+                        new PrepareUnits(this.units, middle, this.to, this.batchSize));
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,716 @@
+package hillbillies.model;
+
+import hillbillies.model.terrain.Terrain;
+import hillbillies.part2.listener.TerrainChangeListener;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * A class of immutable views on the state of a world at the end of an advance of its
+ * time. A world publishes them so that other threads, such as the one displaying the
+ * world, can read that state without synchronising with the thread advancing it.
+ *
+ * @note      Every snapshot is taken from the previous snapshot of its world, and
+ *            shares with it everything that did not change since: the terrain is kept
+ *            in chunks of which only the changed ones are copied, units that did not
+ *            change keep their previous state, and the resting logs and boulders are
+ *            only gathered again after some were added, removed, or started or stopped
+ *            falling. The same holds for the falling logs and boulders, the loose cubes,
+ *            the tasks of every faction, and the indices of units and materials by the
+ *            cell of the world they lie in. Taking a snapshot of a world in which little
+ *            changed is therefore cheap, however many units and materials it holds, and
+ *            so is looking up the objects in a part of it.
+ */
+public final class WorldSnapshot {
+
+    /**
+     * Constant registering the base-2 logarithm of the number of cubes in a chunk of
+     * the terrain of a snapshot.
+     */
+    static final int CHUNK_BITS = 12;
+
+    /**
+     * Take a snapshot of the given world, sharing what did not change with the given
+     * previous snapshot of that world.
+     *
+     * @param     world
+     *            The world to take a snapshot of.
+     * @param     previous
+     *            The previous snapshot of the given world, or null if there is none.
+     * @param     changedChunks
+     *            The chunks of the terrain of the given world that changed since the
+     *            previous snapshot was taken.
+     */
+    WorldSnapshot(World world, WorldSnapshot previous, BitSet changedChunks) {
+        this.nbCubesX = world.getNbCubesX();
+        this.nbCubesY = world.getNbCubesY();
+        this.nbCubesZ = world.getNbCubesZ();
+        this.time = world.getTime();
+        this.terrainChunks = takeTerrain(world, previous, changedChunks);
+        this.terrainVersion = world.getTerrainVersion();
+        this.activeCubesVersion = world.getActiveCubesVersion();
+        if (previous != null && previous.terrainVersion == this.terrainVersion
+                && previous.activeCubesVersion == this.activeCubesVersion)
+            this.looseCubes = previous.looseCubes;
+        else
+            this.looseCubes = takeLooseCubes(world, previous);
+
+        if (previous != null && previous.unitsVersion == world.getUnitsVersion()) {
+            this.units = previous.units;
+            this.unitIndices = previous.unitIndices;
+        } else {
+            this.units = world.getUnits().toArray(new Unit[world.getUnits().size()]);
+            Map<Unit, Integer> indices = new HashMap<>();
+            for (int i = 0; i < this.units.length; i++)
+                indices.put(this.units[i], i);
+            this.unitIndices = indices;
+        }
+        this.unitsVersion = world.getUnitsVersion();
+        this.unitStates = new UnitState[this.units.length];
+        for (int i = 0; i < this.units.length; i++) {
+            UnitState old = previous == null ? null : previous.getState(this.units[i]);
+            this.unitStates[i] = old != null && old.describes(this.units[i]) ? old : new UnitState(this.units[i]);
+        }
+        this.unitCubesVersion = world.getUnitCubesVersion();
+        if (previous != null && previous.units == this.units && previous.unitCubesVersion == this.unitCubesVersion) {
+            this.unitCells = previous.unitCells;
+        } else {
+            Position[] positions = new Position[this.units.length];
+            for (int i = 0; i < positions.length; i++)
+                positions[i] = this.unitStates[i].getPosition();
+            this.unitCells = this.indexByCell(positions);
+        }
+
+        if (previous != null && previous.materialsVersion == world.getMaterialsVersion()) {
+            this.restingMaterials = previous.restingMaterials;
+            this.restingMaterialArray = previous.restingMaterialArray;
+            this.restingMaterialCells = previous.restingMaterialCells;
+        } else {
+            Map<Material, Position> resting = new HashMap<>();
+            for (Log log : world.getLogs())
+                if (!log.isFalling())
+                    resting.put(log, log.getPosition());
+            for (Boulder boulder : world.getBoulders())
+                if (!boulder.isFalling())
+                    resting.put(boulder, boulder.getPosition());
+            this.restingMaterials = Collections.unmodifiableMap(resting);
+            this.restingMaterialArray = resting.keySet().toArray(new Material[resting.size()]);
+            Position[] positions = new Position[this.restingMaterialArray.length];
+            for (int i = 0; i < positions.length; i++)
+                positions[i] = resting.get(this.restingMaterialArray[i]);
+            this.restingMaterialCells = this.indexByCell(positions);
+        }
+        this.materialsVersion = world.getMaterialsVersion();
+        this.fallingMaterials = takeFallingMaterials(world, previous);
+
+        Set<Faction> activeFactions = world.getActiveFactions();
+        this.activeFactions = previous != null && previous.activeFactions.equals(activeFactions)
+                ? previous.activeFactions : Collections.unmodifiableSet(activeFactions);
+        if (previous != null && previous.activeFactions == this.activeFactions && previous.hasTasksOf(this.activeFactions)) {
+            this.tasks = previous.tasks;
+            this.taskStates = previous.taskStates;
+        } else {
+            Map<Faction, FactionTasks> tasks = new HashMap<>();
+            Map<Task, TaskState> taskStates = new IdentityHashMap<>();
+            for (Faction faction : this.activeFactions) {
+                Scheduler scheduler = faction.getScheduler();
+                FactionTasks old = previous == null ? null : previous.tasks.get(faction);
+                List<Task> tasksOfFaction;
+                if (old != null && old.scheduler == scheduler && old.version == scheduler.getVersion()) {
+                    tasksOfFaction = old.tasks;
+                } else {
+                    tasksOfFaction = new ArrayList<>();
+                    for (Task task : scheduler)
+                        tasksOfFaction.add(task);
+                    tasksOfFaction = Collections.unmodifiableList(tasksOfFaction);
+                }
+                for (Task task : tasksOfFaction) {
+                    TaskState oldState = previous == null ? null : previous.getState(task);
+                    taskStates.put(task, oldState != null && oldState.describes(task) ? oldState : new TaskState(task));
+                }
+                tasks.put(faction, new FactionTasks(scheduler, scheduler.getVersion(), tasksOfFaction));
+            }
+            this.tasks = tasks;
+            this.taskStates = taskStates;
+        }
+    }
+
+    /**
+     * Returns whether the tasks of this snapshot are still those scheduled for the given
+     * factions, and still have the same name, priority and assigned unit.
+     */
+    private boolean hasTasksOf(Set<Faction> factions) {
+        for (Faction faction : factions) {
+            FactionTasks old = this.tasks.get(faction);
+            if (old == null || old.scheduler != faction.getScheduler() || old.version != old.scheduler.getVersion())
+                return false;
+            for (Task task : old.tasks)
+                if (!this.taskStates.get(task).describes(task))
+                    return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the positions of the falling logs and boulders of the given world, sharing
+     * them with the given previous snapshot if none of them moved since.
+     */
+    private static Map<Material, Position> takeFallingMaterials(World world, WorldSnapshot previous) {
+        Collection<Material> falling = world.getFallingMaterials();
+        if (previous != null && previous.fallingMaterials.size() == falling.size()) {
+            boolean unchanged = true;
+            for (Material material : falling)
+                if (previous.fallingMaterials.get(material) != material.getPosition())
+                    unchanged = false;
+            if (unchanged)
+                return previous.fallingMaterials;
+        }
+        if (falling.isEmpty())
+            return Collections.emptyMap();
+        Map<Material, Position> result = new HashMap<>();
+        for (Material material : falling)
+            result.put(material, material.getPosition());
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Returns an index of the given positions by the cell of {@link UnitGrid#DEFAULT_CELL_SIZE}
+     * cubes along every side they lie in.
+     */
+    private CellIndex indexByCell(Position[] positions) {
+        int[] cells = new int[positions.length];
+        for (int i = 0; i < positions.length; i++)
+            cells[i] = this.getCell(positions[i].getCubeX(), positions[i].getCubeY(), positions[i].getCubeZ());
+        return new CellIndex(cells, this.getNbCells(0) * this.getNbCells(1) * this.getNbCells(2));
+    }
+
+    /**
+     * Returns the chunks of the terrain of the given world, copying those that changed
+     * since the given previous snapshot and sharing the others with it.
+     */
+    private static byte[][] takeTerrain(World world, WorldSnapshot previous, BitSet changedChunks) {
+        int nbCubes = world.getNbCubesX() * world.getNbCubesY() * world.getNbCubesZ();
+        int nbChunks = (nbCubes + (1 << CHUNK_BITS) - 1) >>> CHUNK_BITS;
+        if (previous != null && changedChunks.isEmpty())
+            return previous.terrainChunks;
+        byte[][] chunks = previous == null ? new byte[nbChunks][] : previous.terrainChunks.clone();
+        for (int chunk = 0; chunk < nbChunks; chunk++) {
+            if (previous == null || changedChunks.get(chunk)) {
+                int from = chunk << CHUNK_BITS;
+                chunks[chunk] = world.copyTerrain(from, Math.min(1 << CHUNK_BITS, nbCubes - from));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Returns the packed coordinates of the solid cubes of the given world that are not
+     * connected to its border, in ascending order.
+     */
+    private static long[] takeLooseCubes(World world, WorldSnapshot previous) {
+        long[] result = world.getActiveCubes().stream()
+                .filter(cube -> cube.isSolid())
+                .mapToLong(Cube::getCoordinates)
+                .filter(cube -> !world.isSolidConnectedToBorder(CubeCoordinates.getX(cube),
+                        CubeCoordinates.getY(cube), CubeCoordinates.getZ(cube)))
+                .sorted().toArray();
+        if (previous != null && Arrays.equals(result, previous.looseCubes))
+            return previous.looseCubes;
+        return result;
+    }
+
+    private final int nbCubesX;
+    private final int nbCubesY;
+    private final int nbCubesZ;
+    private final double time;
+
+    /**
+     * Variable registering the terrain type of every cube, in chunks of consecutive
+     * indices of the world; chunks that did not change are shared between snapshots.
+     */
+    private final byte[][] terrainChunks;
+
+    /**
+     * Variable registering the packed coordinates of the solid cubes that are not
+     * connected to the border, in ascending order.
+     */
+    private final long[] looseCubes;
+
+    /**
+     * Variables registering the units of the world, their index in that array, and the
+     * state of the unit at the same index.
+     */
+    private final Unit[] units;
+    private final Map<Unit, Integer> unitIndices;
+    private final UnitState[] unitStates;
+    private final long unitsVersion;
+
+    /**
+     * Variables registering the indices of the units by the cell their cube lies in,
+     * and the number of times a unit entered another cube when they were indexed.
+     */
+    private final CellIndex unitCells;
+    private final long unitCubesVersion;
+
+    /**
+     * Variables registering the position of the logs and boulders in the world that
+     * rest and that fall.
+     */
+    private final Map<Material, Position> restingMaterials;
+    private final Map<Material, Position> fallingMaterials;
+    private final long materialsVersion;
+
+    /**
+     * Variables registering the resting logs and boulders, and their indices in that
+     * array by the cell their cube lies in.
+     */
+    private final Material[] restingMaterialArray;
+    private final CellIndex restingMaterialCells;
+
+    /**
+     * Variables registering the number of terrain changes and of activations of cubes
+     * of the world when the loose cubes were gathered.
+     */
+    private final long terrainVersion;
+    private final long activeCubesVersion;
+
+    private final Set<Faction> activeFactions;
+    private final Map<Faction, FactionTasks> tasks;
+    private final Map<Task, TaskState> taskStates;
+
+    public int getNbCubesX() {
+        return this.nbCubesX;
+    }
+
+    public int getNbCubesY() {
+        return this.nbCubesY;
+    }
+
+    public int getNbCubesZ() {
+        return this.nbCubesZ;
+    }
+
+    /**
+     * Returns the game time of the world when this snapshot was taken.
+     */
+    public double getTime() {
+        return this.time;
+    }
+
+    /**
+     * Returns the terrain type of the cube at the given coordinates, encoded as in
+     * {@link World#getCubeType(int, int, int)}.
+     *
+     * @throws    ArrayIndexOutOfBoundsException
+     *            The given coordinates lie outside the world.
+     */
+    public int getCubeType(int x, int y, int z) throws ArrayIndexOutOfBoundsException {
+        if (x < 0 || x >= this.nbCubesX || y < 0 || y >= this.nbCubesY || z < 0 || z >= this.nbCubesZ)
+            throw new ArrayIndexOutOfBoundsException("(" + x + ", " + y + ", " + z + ")");
+        int index = x + this.nbCubesX * (y + this.nbCubesY * z);
+        return this.terrainChunks[index >>> CHUNK_BITS][index & ((1 << CHUNK_BITS) - 1)];
+    }
+
+    /**
+     * Returns whether the cube at the given coordinates is solid and connected to the
+     * border of the world.
+     */
+    public boolean isSolidConnectedToBorder(int x, int y, int z) {
+        return Terrain.fromCode(this.getCubeType(x, y, z)).isSolid()
+                && Arrays.binarySearch(this.looseCubes, CubeCoordinates.pack(x, y, z)) < 0;
+    }
+
+    /**
+     * Notifies the given listener of every cube whose terrain type differs between the
+     * given older snapshot and this snapshot.
+     *
+     * @note      Only the chunks of terrain that are not shared by both snapshots are
+     *            compared.
+     */
+    public void forEachTerrainChangeSince(WorldSnapshot older, TerrainChangeListener listener) {
+        if (older == null || older == this || older.terrainChunks == this.terrainChunks)
+            return;
+        for (int chunk = 0; chunk < this.terrainChunks.length; chunk++) {
+            byte[] now = this.terrainChunks[chunk];
+            byte[] then = older.terrainChunks[chunk];
+            if (now != then) {
+                for (int i = 0; i < now.length; i++) {
+                    if (now[i] != then[i]) {
+                        int index = (chunk << CHUNK_BITS) + i;
+                        listener.notifyTerrainChanged(index % this.nbCubesX, index / this.nbCubesX % this.nbCubesY,
+                                index / this.nbCubesX / this.nbCubesY);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the units of the world.
+     */
+    public List<Unit> getUnits() {
+        return Collections.unmodifiableList(Arrays.asList(this.units));
+    }
+
+    /**
+     * Returns the state of the given unit, or null if it is not part of the world.
+     */
+    public UnitState getState(Unit unit) {
+        Integer index = this.unitIndices.get(unit);
+        return index == null ? null : this.unitStates[index];
+    }
+
+    /**
+     * Passes every log and boulder in the world to the given action, together with its
+     * position.
+     */
+    public void forEachMaterial(BiConsumer<Material, Position> action) {
+        this.restingMaterials.forEach(action);
+        this.fallingMaterials.forEach(action);
+    }
+
+    /**
+     * Passes every unit whose cube lies in the given range of cubes to the given action.
+     *
+     * @note      Only the units in the cells overlapping the given range are looked at.
+     */
+    public void forEachUnitInCubes(int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                                   Consumer<Unit> action) {
+        this.forEachInCubes(this.unitCells, minX, minY, minZ, maxX, maxY, maxZ, index -> {
+            Position position = this.unitStates[index].getPosition();
+            if (liesInCubes(position, minX, minY, minZ, maxX, maxY, maxZ))
+                action.accept(this.units[index]);
+        });
+    }
+
+    /**
+     * Passes every log and boulder whose cube lies in the given range of cubes to the
+     * given action, together with its position.
+     *
+     * @note      Only the resting materials in the cells overlapping the given range are
+     *            looked at; falling materials are few, and all looked at.
+     */
+    public void forEachMaterialInCubes(int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                                       BiConsumer<Material, Position> action) {
+        this.forEachInCubes(this.restingMaterialCells, minX, minY, minZ, maxX, maxY, maxZ, index -> {
+            Material material = this.restingMaterialArray[index];
+            Position position = this.restingMaterials.get(material);
+            if (liesInCubes(position, minX, minY, minZ, maxX, maxY, maxZ))
+                action.accept(material, position);
+        });
+        this.fallingMaterials.forEach((material, position) -> {
+            if (liesInCubes(position, minX, minY, minZ, maxX, maxY, maxZ))
+                action.accept(material, position);
+        });
+    }
+
+    private static boolean liesInCubes(Position position, int minX, int minY, int minZ, int maxX, int maxY,
+                                       int maxZ) {
+        return minX <= position.getCubeX() && position.getCubeX() < maxX && minY <= position.getCubeY()
+                && position.getCubeY() < maxY && minZ <= position.getCubeZ() && position.getCubeZ() < maxZ;
+    }
+
+    /**
+     * Passes the entries of the given index in the cells overlapping the given range of
+     * cubes to the given action.
+     */
+    private void forEachInCubes(CellIndex index, int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                                IntConsumer action) {
+        int size = UnitGrid.DEFAULT_CELL_SIZE;
+        int[] low = {Math.max(0, minX) / size, Math.max(0, minY) / size, Math.max(0, minZ) / size};
+        int[] high = {Math.min(this.nbCubesX, maxX), Math.min(this.nbCubesY, maxY), Math.min(this.nbCubesZ, maxZ)};
+        for (int cz = low[2]; cz * size < high[2]; cz++)
+            for (int cy = low[1]; cy * size < high[1]; cy++)
+                for (int cx = low[0]; cx * size < high[0]; cx++) {
+                    int cell = cx + this.getNbCells(0) * (cy + this.getNbCells(1) * cz);
+                    for (int i = index.start[cell]; i < index.start[cell + 1]; i++)
+                        action.accept(index.entries[i]);
+                }
+    }
+
+    /**
+     * Returns the number of cells along the given axis (0, 1 or 2 for x, y or z).
+     */
+    private int getNbCells(int axis) {
+        int nbCubes = axis == 0 ? this.nbCubesX : axis == 1 ? this.nbCubesY : this.nbCubesZ;
+        return (nbCubes + UnitGrid.DEFAULT_CELL_SIZE - 1) / UnitGrid.DEFAULT_CELL_SIZE;
+    }
+
+    /**
+     * Returns the cell the cube at the given coordinates lies in; coordinates outside the
+     * world are taken to the nearest cube inside it.
+     */
+    private int getCell(int x, int y, int z) {
+        int size = UnitGrid.DEFAULT_CELL_SIZE;
+        int cx = Math.max(0, Math.min(x, this.nbCubesX - 1)) / size;
+        int cy = Math.max(0, Math.min(y, this.nbCubesY - 1)) / size;
+        int cz = Math.max(0, Math.min(z, this.nbCubesZ - 1)) / size;
+        return cx + this.getNbCells(0) * (cy + this.getNbCells(1) * cz);
+    }
+
+    /**
+     * A class of immutable indices of entries by the cell they lie in: the entries of
+     * a cell are stored from start[cell] up to start[cell + 1].
+     */
+    private static final class CellIndex {
+
+        private CellIndex(int[] cellOfEntry, int nbCells) {
+            this.start = new int[nbCells + 1];
+            for (int cell : cellOfEntry)
+                this.start[cell + 1]++;
+            for (int cell = 0; cell < nbCells; cell++)
+                this.start[cell + 1] += this.start[cell];
+            this.entries = new int[cellOfEntry.length];
+            int[] next = Arrays.copyOf(this.start, nbCells);
+            for (int entry = 0; entry < cellOfEntry.length; entry++)
+                this.entries[next[cellOfEntry[entry]]++] = entry;
+        }
+
+        private final int[] start;
+        private final int[] entries;
+    }
+
+    /**
+     * A class of immutable lists of the tasks scheduled for a faction, together with the
+     * scheduler they were taken from and its version at that time.
+     */
+    private static final class FactionTasks {
+
+        private FactionTasks(Scheduler scheduler, long version, List<Task> tasks) {
+            this.scheduler = scheduler;
+            this.version = version;
+            this.tasks = tasks;
+        }
+
+        private final Scheduler scheduler;
+        private final long version;
+        private final List<Task> tasks;
+    }
+
+    /**
+     * Returns the position of the given log or boulder, or null if it is not part of
+     * the world.
+     */
+    public Position getPosition(Material material) {
+        Position position = this.fallingMaterials.get(material);
+        return position != null ? position : this.restingMaterials.get(material);
+    }
+
+    /**
+     * Returns the factions of the world that have members.
+     */
+    public Set<Faction> getActiveFactions() {
+        return this.activeFactions;
+    }
+
+    /**
+     * Returns the tasks scheduled for the given active faction.
+     */
+    public List<Task> getTasks(Faction faction) {
+        FactionTasks tasksOfFaction = this.tasks.get(faction);
+        return tasksOfFaction == null ? Collections.emptyList() : tasksOfFaction.tasks;
+    }
+
+    /**
+     * Returns the state of the given scheduled task, or null if it is not scheduled for
+     * an active faction.
+     */
+    public TaskState getState(Task task) {
+        return this.taskStates.get(task);
+    }
+
+    /**
+     * A class of immutable views on the state of a unit.
+     */
+    public static final class UnitState {
+
+        private UnitState(Unit unit) {
+            this.name = unit.getName();
+            this.position = unit.getPosition();
+            this.orientation = unit.getOrientation();
+            this.state = unit.getState();
+            this.sprinting = unit.isSprinting();
+            this.hitPoints = unit.getCurrentHitPoints();
+            this.maxHitPoints = unit.getMaxHitPoints();
+            this.staminaPoints = unit.getCurrentStaminaPoints();
+            this.maxStaminaPoints = unit.getMaxStaminaPoints();
+            this.speed = unit.getCurrentSpeed();
+            this.agility = unit.getAgility();
+            this.strength = unit.getStrength();
+            this.toughness = unit.getToughness();
+            this.weight = unit.getWeight();
+            this.experiencePoints = unit.getCurrentExperiencePoints();
+            this.carryingLog = unit.isCarryingLog();
+            this.carryingBoulder = unit.isCarryingBoulder();
+            this.faction = unit.getFaction();
+            this.alive = unit.isAlive();
+            this.defaultBehaviorEnabled = Boolean.TRUE.equals(unit.getDefaultBehaviorEnabled());
+            this.assignedTask = unit.getAssignedTask();
+        }
+
+        /**
+         * Returns whether this state still describes the given unit.
+         *
+         * @note      Positions are compared by reference: a unit keeps its position
+         *            object until it moves.
+         */
+        private boolean describes(Unit unit) {
+            return this.position == unit.getPosition() && this.orientation == unit.getOrientation()
+                    && this.state == unit.getState() && this.sprinting == unit.isSprinting()
+                    && this.hitPoints == unit.getCurrentHitPoints() && this.maxHitPoints == unit.getMaxHitPoints()
+                    && this.staminaPoints == unit.getCurrentStaminaPoints()
+                    && this.maxStaminaPoints == unit.getMaxStaminaPoints() && this.speed == unit.getCurrentSpeed()
+                    && this.agility == unit.getAgility() && this.strength == unit.getStrength()
+                    && this.toughness == unit.getToughness() && this.weight == unit.getWeight()
+                    && this.experiencePoints == unit.getCurrentExperiencePoints()
+                    && this.carryingLog == unit.isCarryingLog() && this.carryingBoulder == unit.isCarryingBoulder()
+                    && this.faction == unit.getFaction() && this.alive == unit.isAlive()
+                    && this.defaultBehaviorEnabled == Boolean.TRUE.equals(unit.getDefaultBehaviorEnabled())
+                    && this.assignedTask == unit.getAssignedTask() && Objects.equals(this.name, unit.getName());
+        }
+
+        private final String name;
+        private final Position position;
+        private final float orientation;
+        private final State state;
+        private final boolean sprinting;
+        private final double hitPoints;
+        private final double maxHitPoints;
+        private final double staminaPoints;
+        private final double maxStaminaPoints;
+        private final double speed;
+        private final double agility;
+        private final double strength;
+        private final double toughness;
+        private final double weight;
+        private final int experiencePoints;
+        private final boolean carryingLog;
+        private final boolean carryingBoulder;
+        private final Faction faction;
+        private final boolean alive;
+        private final boolean defaultBehaviorEnabled;
+        private final Task assignedTask;
+
+        public String getName() {
+            return this.name;
+        }
+
+        public Position getPosition() {
+            return this.position;
+        }
+
+        public float getOrientation() {
+            return this.orientation;
+        }
+
+        public State getState() {
+            return this.state;
+        }
+
+        public boolean isSprinting() {
+            return this.sprinting;
+        }
+
+        public double getCurrentHitPoints() {
+            return this.hitPoints;
+        }
+
+        public double getMaxHitPoints() {
+            return this.maxHitPoints;
+        }
+
+        public double getCurrentStaminaPoints() {
+            return this.staminaPoints;
+        }
+
+        public double getMaxStaminaPoints() {
+            return this.maxStaminaPoints;
+        }
+
+        public double getCurrentSpeed() {
+            return this.speed;
+        }
+
+        public double getAgility() {
+            return this.agility;
+        }
+
+        public double getStrength() {
+            return this.strength;
+        }
+
+        public double getToughness() {
+            return this.toughness;
+        }
+
+        public double getWeight() {
+            return this.weight;
+        }
+
+        public int getCurrentExperiencePoints() {
+            return this.experiencePoints;
+        }
+
+        public boolean isCarryingLog() {
+            return this.carryingLog;
+        }
+
+        public boolean isCarryingBoulder() {
+            return this.carryingBoulder;
+        }
+
+        public Faction getFaction() {
+            return this.faction;
+        }
+
+        public boolean isAlive() {
+            return this.alive;
+        }
+
+        public boolean isDefaultBehaviorEnabled() {
+            return this.defaultBehaviorEnabled;
+        }
+
+        public Task getAssignedTask() {
+            return this.assignedTask;
+        }
+    }
+
+    /**
+     * A class of immutable views on the state of a scheduled task.
+     */
+    public static final class TaskState {
+
+        private TaskState(Task task) {
+            this.name = task.getName();
+            this.priority = task.getPriority();
+            this.assignedUnit = task.getAssignedUnit();
+            this.version = task.getVersion();
+        }
+
+        private boolean describes(Task task) {
+            return this.version == task.getVersion();
+        }
+
+        private final String name;
+        private final int priority;
+        private final Unit assignedUnit;
+        private final long version;
+
+        public String getName() {
+            return this.name;
+        }
+
+        public int getPriority() {
+            return this.priority;
+        }
+
+        public Unit getAssignedUnit() {
+            return this.assignedUnit;
+        }
+    }
+
+}
@@ -10,8 +10,7 @@ public final class PositionExpressionBoulder extends PositionExpression<Unit> {
 
     @Override
     Position evaluate(Unit unit) {
-        // TODO Implement method: return nearest accessible object of a boulder
-        return null;
+        return unit.getWorld().getNearestBoulder(unit.getPosition());
     }
 
 }
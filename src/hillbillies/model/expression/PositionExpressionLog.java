@@ -10,8 +10,7 @@ public final class PositionExpressionLog extends PositionExpression<Unit> {
 
     @Override
     Position evaluate(Unit unit) {
-        // TODO Implement method: return nearest accessible object of a log
-        return null;
+        return unit.getWorld().getNearestLog(unit.getPosition());
     }
 
 }
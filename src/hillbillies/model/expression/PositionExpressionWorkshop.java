@@ -10,8 +10,7 @@ public final class PositionExpressionWorkshop extends PositionExpression<Unit> {
 
     @Override
     Position evaluate(Unit unit) {
-        // TODO Implement method: return nearest accessible object of a workshop
-        return null;
+        return unit.getWorld().getNearestWorkshop(unit.getPosition());
     }
 
 }
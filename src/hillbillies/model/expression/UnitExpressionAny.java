@@ -8,7 +8,8 @@ import hillbillies.model.Unit;
 public final class UnitExpressionAny extends UnitExpression {
     @Override
     Unit evaluate(Unit unit) {
-        // TODO Implement method: return nearest accessible object of any unit
-        return null;
+        return unit.getWorld().getNearestUnit(unit.getPosition(),
+                other -> other != unit && unit.getWorld().isReachable(unit.getPosition().getCubeCoordinates(),
+                        other.getPosition().getCubeCoordinates()));
     }
 }
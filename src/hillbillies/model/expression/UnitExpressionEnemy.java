@@ -8,7 +8,6 @@ import hillbillies.model.Unit;
 public final class UnitExpressionEnemy extends UnitExpression {
     @Override
     Unit evaluate(Unit unit) {
-        // TODO Implement method: return nearest accessible object of an enemy
-        return null;
+        return unit.getWorld().getNearestEnemy(unit);
     }
 }
@@ -8,7 +8,9 @@ import hillbillies.model.Unit;
 public final class UnitExpressionFriend extends UnitExpression {
     @Override
     Unit evaluate(Unit unit) {
-        // TODO Implement method: return nearest accessible object of a friend
-        return null;
+        return unit.getWorld().getNearestUnit(unit.getPosition(),
+                other -> other != unit && other.getFaction() == unit.getFaction()
+                        && unit.getWorld().isReachable(unit.getPosition().getCubeCoordinates(),
+                                other.getPosition().getCubeCoordinates()));
     }
 }
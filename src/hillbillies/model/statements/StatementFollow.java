@@ -1,6 +1,7 @@
 package hillbillies.model.statements;
 
 import hillbillies.model.Unit;
+import hillbillies.model.exceptions.IllegalCoordinateException;
 import hillbillies.model.expression.Expression;
 
 /**
@@ -16,6 +17,10 @@ public final class StatementFollow extends Statement {
 
     @Override
     public void execute(Unit unit) {
-        unit.moveTo(this.unit.evaluate().getPosition().getCubeCoordinates());
+        try {
+            unit.moveTo(this.unit.evaluate().getPosition().getCubeCoordinates());
+        } catch (IllegalCoordinateException exc) {
+            unit.interruptTask(this);
+        }
     }
 }
@@ -2,6 +2,7 @@ package hillbillies.model.statements;
 
 import hillbillies.model.Position;
 import hillbillies.model.Unit;
+import hillbillies.model.exceptions.IllegalCoordinateException;
 import hillbillies.model.expression.Expression;
 
 /**
@@ -17,6 +18,10 @@ public final class StatementMoveTo extends Statement {
 
     @Override
     public void execute(Unit unit) {
-        unit.moveTo(position.evaluate().getCubeCoordinates());
+        try {
+            unit.moveTo(position.evaluate().getCubeCoordinates());
+        } catch (IllegalCoordinateException exc) {
+            unit.interruptTask(this);
+        }
     }
 }
@@ -1,4 +1,11 @@
 package hillbillies.model.terrain;
 
 public class Air extends Passable {
-}
\ No newline at end of file
+
+	/**
+	 * The only instance of this terrain type is {@link Terrain#AIR}.
+	 */
+	Air() {
+		super(0);
+	}
+}
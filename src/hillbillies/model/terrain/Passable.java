@@ -1,4 +1,8 @@
 package hillbillies.model.terrain;
 
 public abstract class Passable extends Terrain {
-}
\ No newline at end of file
+
+	Passable(int code) {
+		super(code, false);
+	}
+}
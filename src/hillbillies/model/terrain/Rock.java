@@ -1,4 +1,11 @@
 package hillbillies.model.terrain;
 
 public class Rock extends Solid {
-}
\ No newline at end of file
+
+	/**
+	 * The only instance of this terrain type is {@link Terrain#ROCK}.
+	 */
+	Rock() {
+		super(1);
+	}
+}
@@ -1,4 +1,8 @@
 package hillbillies.model.terrain;
 
 public abstract class Solid extends Terrain {
-}
\ No newline at end of file
+
+	Solid(int code) {
+		super(code, true);
+	}
+}
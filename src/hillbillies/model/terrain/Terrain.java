@@ -1,5 +1,87 @@
 package hillbillies.model.terrain;
 
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Value;
+
+/**
+ * A class of terrain types. Terrain types are immutable and shared: there is exactly
+ * one instance of every type, which can be looked up by its code.
+ */
+@Value
 public abstract class Terrain {
-	
-}
\ No newline at end of file
+
+	/**
+	 * Initialize this new terrain type with the given code and solidity.
+	 *
+	 * @param code
+	 *          The code of this terrain type, as described in IFacade.
+	 * @param solid
+	 *          Whether or not this terrain type is solid.
+	 */
+	Terrain(int code, boolean solid) {
+		this.code = code;
+		this.solid = solid;
+	}
+
+	public static final Terrain AIR = new Air();
+	public static final Terrain ROCK = new Rock();
+	public static final Terrain TREE = new Tree();
+	public static final Terrain WORKSHOP = new Workshop();
+
+	/**
+	 * Variable registering the terrain types by code.
+	 */
+	private static final Terrain[] BY_CODE = {AIR, ROCK, TREE, WORKSHOP};
+
+	/**
+	 * Variable registering the code of this terrain type.
+	 */
+	private final int code;
+
+	/**
+	 * Variable registering whether or not this terrain type is solid.
+	 */
+	private final boolean solid;
+
+	/**
+	 * Returns the terrain type with the given code.
+	 *
+	 * @param code
+	 *          The code of the terrain type, as described in IFacade.
+	 * @return  The terrain type with the given code.
+	 *        | result.getCode() == code
+	 * @throws IllegalArgumentException
+	 *          There is no terrain type with the given code.
+	 */
+	public static Terrain fromCode(int code) throws IllegalArgumentException {
+		if (code < 0 || code >= BY_CODE.length)
+			throw new IllegalArgumentException("invalid terrain type " + code);
+		return BY_CODE[code];
+	}
+
+	/**
+	 * Returns the code of this terrain type, as described in IFacade.
+	 */
+	@Immutable
+	public int getCode() {
+		return this.code;
+	}
+
+	/**
+	 * Returns whether or not this terrain type is solid.
+	 */
+	@Immutable
+	public boolean isSolid() {
+		return this.solid;
+	}
+
+	/**
+	 * Returns whether or not this terrain type is passable.
+	 *
+	 * @return  | result == !isSolid()
+	 */
+	@Immutable
+	public boolean isPassable() {
+		return !this.solid;
+	}
+}
@@ -1,4 +1,11 @@
 package hillbillies.model.terrain;
 
 public class Workshop extends Passable {
-}
\ No newline at end of file
+
+	/**
+	 * The only instance of this terrain type is {@link Terrain#WORKSHOP}.
+	 */
+	Workshop() {
+		super(3);
+	}
+}
@@ -4,6 +4,8 @@ import hillbillies.model.*;
 import hillbillies.model.Boulder;
 import hillbillies.model.Faction;
 import hillbillies.model.Log;
+import hillbillies.common.internal.map.IByteMap3D;
+import hillbillies.part2.internal.map.ByteMap3D;
 import hillbillies.part2.listener.TerrainChangeListener;
 import ogp.framework.util.ModelException;
 
@@ -16,6 +18,24 @@ public class Facade extends hillbillies.part1.facade.Facade implements IFacade {
         return new World(terrainTypes, modelListener);
     }
 
+    @Override
+    public World createWorld(int nbX, int nbY, int nbZ, byte[] terrainTypes, TerrainChangeListener modelListener)
+            throws ModelException {
+        try {
+            return new World(nbX, nbY, nbZ, terrainTypes, modelListener);
+        } catch (IllegalArgumentException e) {
+            throw new ModelException(e);
+        }
+    }
+
+    @Override
+    public World createWorld(IByteMap3D terrainTypes, TerrainChangeListener modelListener) throws ModelException {
+        if (terrainTypes instanceof ByteMap3D)
+            return this.createWorld(terrainTypes.getNbX(), terrainTypes.getNbY(), terrainTypes.getNbZ(),
+                    ((ByteMap3D) terrainTypes).getValues(), modelListener);
+        return IFacade.super.createWorld(terrainTypes, modelListener);
+    }
+
     @Override
     public int getNbCubesX(World world) throws ModelException {
         return world.getNbCubesX();
@@ -0,0 +1,292 @@
+package hillbillies.part3;
+
+import hillbillies.model.AdvancePhase;
+import hillbillies.model.Faction;
+import hillbillies.model.Task;
+import hillbillies.model.Unit;
+import hillbillies.model.World;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part3.facade.Facade;
+import hillbillies.part3.facade.IFacade;
+import hillbillies.part3.programs.TaskParser;
+import ogp.framework.util.ModelException;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class of runners that advance a world as fast as possible, without displaying it,
+ * and report how fast that went.
+ *
+ * The runner loads a world from a .wrld file, spawns units with default behaviour in
+ * it, schedules the tasks in the given task files for every faction, and advances the
+ * world a number of ticks by a fixed time. It only goes through the facade of part 3
+ * and the model, so it runs without JavaFX.
+ *
+ * Usage:
+ * <pre>
+ * HeadlessRunner world.wrld [-units N] [-ticks M] [-dt SECONDS] [-seed S] [-threads P]
+ *                           [-snapshots] [-tasks FILE]... [-select X,Y,Z]...
+ * </pre>
+ */
+public class HeadlessRunner {
+
+    public static void main(String[] args) throws IOException, ModelException {
+        HeadlessRunner runner;
+        try {
+            runner = fromArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("usage: HeadlessRunner world.wrld [-units N] [-ticks M] [-dt SECONDS] [-seed S]"
+                    + " [-threads P] [-snapshots] [-tasks FILE]... [-select X,Y,Z]...");
+            System.exit(2);
+            return;
+        }
+        if (!runner.run(System.out))
+            System.exit(1);
+    }
+
+    /**
+     * Returns a runner configured by the given command line arguments.
+     *
+     * @throws    IllegalArgumentException
+     *            The given arguments are not valid.
+     */
+    static HeadlessRunner fromArguments(String[] args) throws IllegalArgumentException {
+        if (args.length == 0)
+            throw new IllegalArgumentException("no world file given");
+        HeadlessRunner runner = new HeadlessRunner(args[0]);
+        for (int i = 1; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("-snapshots")) {
+                runner.publishingSnapshots = true;
+                continue;
+            }
+            if (i + 1 == args.length)
+                throw new IllegalArgumentException("no value given for " + option);
+            String value = args[++i];
+            try {
+                switch (option) {
+                    case "-units":
+                        runner.nbUnits = Integer.parseInt(value);
+                        break;
+                    case "-ticks":
+                        runner.nbTicks = Integer.parseInt(value);
+                        break;
+                    case "-dt":
+                        runner.dt = Double.parseDouble(value);
+                        break;
+                    case "-seed":
+                        runner.seed = Long.parseLong(value);
+                        break;
+                    case "-threads":
+                        runner.parallelism = Integer.parseInt(value);
+                        break;
+                    case "-tasks":
+                        runner.taskFiles.add(value);
+                        break;
+                    case "-select":
+                        String[] coordinates = value.split(",");
+                        if (coordinates.length != 3)
+                            throw new IllegalArgumentException("invalid cube: " + value);
+                        runner.selectedCubes.add(new int[]{Integer.parseInt(coordinates[0]),
+                                Integer.parseInt(coordinates[1]), Integer.parseInt(coordinates[2])});
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown option: " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid value for " + option + ": " + value);
+            }
+        }
+        if (runner.nbUnits < 0 || runner.nbTicks < 0 || !(runner.dt > 0) || runner.parallelism < 1)
+            throw new IllegalArgumentException("invalid number of units, ticks, time step or threads");
+        return runner;
+    }
+
+    /**
+     * Initialize this new runner for the world in the given .wrld file, with the default
+     * settings.
+     */
+    HeadlessRunner(String worldFile) {
+        this.worldFile = worldFile;
+    }
+
+    private final IFacade facade = new Facade();
+    private final String worldFile;
+    private int nbUnits = 100;
+    private int nbTicks = 1000;
+    private double dt = 0.02;
+    private Long seed = null;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean publishingSnapshots = false;
+    private final List<String> taskFiles = new ArrayList<>();
+    private final List<int[]> selectedCubes = new ArrayList<>();
+
+    /**
+     * Variable registering the world that was run last, or null if none was run yet.
+     */
+    private World world = null;
+
+    World getWorld() {
+        return this.world;
+    }
+
+    /**
+     * Loads the world, sets it up and advances it, printing a report to the given stream.
+     *
+     * @return    True if the world was advanced all ticks; false if advancing it failed,
+     *            in which case the report covers the ticks before the failure.
+     */
+    boolean run(PrintStream out) throws IOException, ModelException {
+        long start = System.nanoTime();
+        try (Reader reader = new FileReader(this.worldFile)) {
+            this.world = readWorld(this.facade, reader);
+        }
+        long loaded = System.nanoTime();
+        if (this.seed != null)
+            this.world.setSeed(this.seed);
+        this.world.setParallelism(this.parallelism);
+        for (int i = 0; i < this.nbUnits; i++) {
+            Unit unit = this.facade.spawnUnit(this.world, true);
+            this.facade.setDefaultBehaviorEnabled(unit, true);
+        }
+        long spawned = System.nanoTime();
+        int nbTasks = 0;
+        for (String taskFile : this.taskFiles) {
+            for (Faction faction : this.facade.getActiveFactions(this.world)) {
+                List<Task> tasks = TaskParser.parseTasksFromFile(taskFile, this.facade.createTaskFactory(),
+                        this.selectedCubes);
+                if (tasks == null)
+                    throw new ModelException("Parsing file " + taskFile + " failed.");
+                for (Task task : tasks)
+                    this.facade.schedule(this.facade.getScheduler(faction), task);
+                nbTasks += tasks.size();
+            }
+        }
+        long scheduled = System.nanoTime();
+
+        this.world.setPublishingSnapshots(this.publishingSnapshots);
+        this.world.setTimingPhases(true);
+        long allocatedBefore = getAllocatedBytes();
+        long ticking = System.nanoTime();
+        int ticks = 0;
+        RuntimeException failure = null;
+        try {
+            for (; ticks < this.nbTicks; ticks++)
+                this.facade.advanceTime(this.world, this.dt);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        long ticked = System.nanoTime();
+        long allocatedAfter = getAllocatedBytes();
+
+        double seconds = (ticked - ticking) / 1e9;
+        out.printf("world      %dx%dx%d (%s)%n", this.facade.getNbCubesX(this.world),
+                this.facade.getNbCubesY(this.world), this.facade.getNbCubesZ(this.world), this.worldFile);
+        out.printf("setup      load %.1f ms, spawn %.1f ms, tasks %.1f ms%n", (loaded - start) / 1e6,
+                (spawned - loaded) / 1e6, (scheduled - spawned) / 1e6);
+        out.printf("units      %d spawned, %d alive at the end; %d tasks scheduled; %d threads%n", this.nbUnits,
+                this.facade.getUnits(this.world).size(), nbTasks, this.parallelism);
+        out.printf("ticks      %d of %.3f s in %.1f ms: %.1f ticks/s (%.1fx real time)%n", ticks, this.dt,
+                seconds * 1e3, ticks / seconds, ticks * this.dt / seconds);
+        for (AdvancePhase phase : AdvancePhase.values()) {
+            long time = this.world.getPhaseTime(phase);
+            out.printf("  %-9s%10.1f ms %6.1f%%%n", phase.name().toLowerCase(), time / 1e6,
+                    100.0 * time / (ticked - ticking));
+        }
+        if (allocatedBefore < 0 || allocatedAfter < allocatedBefore) {
+            out.println("allocated  unavailable");
+        } else {
+            long allocated = allocatedAfter - allocatedBefore;
+            out.printf("allocated  %.1f MB, %.1f kB per tick%n", allocated / 1e6,
+                    ticks == 0 ? 0 : allocated / 1e3 / ticks);
+        }
+        if (failure != null) {
+            out.printf("failed     at tick %d of %d: %s%n", ticks, this.nbTicks, failure);
+            failure.printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads a world in the .wrld format from the given reader.
+     *
+     * The first line holds the number of cubes in the x-, y- and z-direction. For every
+     * z from the top down, an empty line follows and then a line per y, with a character
+     * per x: '.' for air, 'R' for rock, 'S' for a tree and 'W' for a workshop.
+     *
+     * @throws    IOException
+     *            The given reader does not hold a valid world.
+     */
+    static World readWorld(IFacade facade, Reader reader) throws IOException, ModelException {
+        BufferedReader lines = new BufferedReader(reader);
+        String line = lines.readLine();
+        if (line == null)
+            throw new IOException("Empty world file");
+        String[] dimensions = line.trim().split(" ");
+        int nbX = Integer.parseInt(dimensions[0]);
+        int nbY = Integer.parseInt(dimensions[1]);
+        int nbZ = Integer.parseInt(dimensions[2]);
+        byte[] terrain = new byte[nbX * nbY * nbZ];
+        for (int z = nbZ - 1; z >= 0; z--) {
+            line = lines.readLine();
+            if (line == null || !line.trim().isEmpty())
+                throw new IOException("Expected an empty line before z=" + z);
+            for (int y = 0; y < nbY; y++) {
+                line = lines.readLine();
+                if (line == null || line.trim().length() != nbX)
+                    throw new IOException("Expected " + nbX + " cubes for z=" + z + " and y=" + y);
+                line = line.trim();
+                for (int x = 0; x < nbX; x++)
+                    terrain[x + nbX * (y + nbY * z)] = getTerrainCode(line.charAt(x));
+            }
+        }
+        return facade.createWorld(nbX, nbY, nbZ, terrain, new DefaultTerrainChangeListener());
+    }
+
+    private static byte getTerrainCode(char cube) throws IOException {
+        switch (cube) {
+            case '.':
+                return 0;
+            case 'R':
+                return 1;
+            case 'S':
+                return 2;
+            case 'W':
+                return 3;
+            default:
+                throw new IOException("Unknown type: " + cube);
+        }
+    }
+
+    /**
+     * Returns the number of bytes allocated by all live threads so far, or -1 if the
+     * virtual machine does not measure it.
+     *
+     * @note      The threads that plan the steps of the units live in a pool, so their
+     *            allocations are counted as well.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean))
+            return -1;
+        com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        if (!sunThreads.isThreadAllocatedMemorySupported() || !sunThreads.isThreadAllocatedMemoryEnabled())
+            return -1;
+        long result = 0;
+        for (long bytes : sunThreads.getThreadAllocatedBytes(threads.getAllThreadIds()))
+            if (bytes > 0)
+                result += bytes;
+        return result;
+    }
+
+}
@@ -1,8 +1,11 @@
 package hillbillies.model;
 
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.*;
+
 /**
  * Created by joppegeluykens on 25/03/16.
  */
@@ -18,4 +21,52 @@ public class BoulderTest {
 
     }
 
+    @Test
+    public void testFallsWhenSupportDisappears() throws Exception {
+        // a rock floor at z == 0 with a rock cube on top of it at (2, 2, 1)
+        int[][][] types = new int[5][5][5];
+        for (int x = 0; x < 5; x++)
+            for (int y = 0; y < 5; y++)
+                types[x][y][0] = 1;
+        types[2][2][1] = 1;
+        World world = new World(types, new DefaultTerrainChangeListener());
+        Boulder boulder = new Boulder(new Position(new int[]{2, 2, 2}), world);
+        world.getCube(2, 2, 2).setBoulder(boulder);
+        world.addBoulder(boulder);
+        for (int i = 0; i < 10; i++)
+            world.advanceTime(0.1);
+        assertFalse(boulder.isFalling());
+        assertEquals(2, boulder.getPosition().getCubeZ());
+        world.setCubeType(2, 2, 1, 0);
+        for (int i = 0; i < 20; i++)
+            world.advanceTime(0.1);
+        assertFalse(boulder.isFalling());
+        assertEquals(1, boulder.getPosition().getCubeZ());
+        assertSame(boulder, world.getCube(2, 2, 1).getBoulder());
+    }
+
+    @Test
+    public void testFallIsCutShortByNewSolidCube() throws Exception {
+        // a rock floor at z == 0 and a boulder high above it at the border of the world
+        int[][][] types = new int[5][5][6];
+        for (int x = 0; x < 5; x++)
+            for (int y = 0; y < 5; y++)
+                types[x][y][0] = 1;
+        World world = new World(types, new DefaultTerrainChangeListener());
+        Boulder boulder = new Boulder(new Position(new int[]{0, 2, 5}), world);
+        world.getCube(0, 2, 5).setBoulder(boulder);
+        world.addBoulder(boulder);
+        world.advanceTime(0.1);
+        assertTrue(boulder.isFalling());
+        assertNull(world.getCube(0, 2, 5).getBoulder());
+        world.advanceTime(0.2);
+        assertEquals(5.5 - 0.6, boulder.getPosition().getDoubleZ(), 1e-9);
+        world.setCubeType(0, 2, 2, 1);
+        for (int i = 0; i < 10; i++)
+            world.advanceTime(0.1);
+        assertFalse(boulder.isFalling());
+        assertEquals(3, boulder.getPosition().getCubeZ());
+        assertSame(boulder, world.getCube(0, 2, 3).getBoulder());
+    }
+
 }
\ No newline at end of file
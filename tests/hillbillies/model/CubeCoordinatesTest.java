@@ -0,0 +1,40 @@
+package hillbillies.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * A class of unit tests for packed cube coordinates.
+ */
+public class CubeCoordinatesTest {
+
+    @Test
+    public void pack_RoundTrip() {
+        int[][] cases = {{0, 0, 0}, {49, 12, 3}, {-1, 0, 50}, {1048575, -1048576, 7}};
+        for (int[] coordinates : cases) {
+            long packed = CubeCoordinates.pack(coordinates);
+            assertEquals(coordinates[0], CubeCoordinates.getX(packed));
+            assertEquals(coordinates[1], CubeCoordinates.getY(packed));
+            assertEquals(coordinates[2], CubeCoordinates.getZ(packed));
+            assertArrayEquals(coordinates, CubeCoordinates.toArray(packed));
+        }
+    }
+
+    @Test
+    public void offset_LegalCase() {
+        long packed = CubeCoordinates.offset(CubeCoordinates.pack(0, 5, 2), -1, 1, 0);
+        assertEquals(CubeCoordinates.pack(-1, 6, 2), packed);
+    }
+
+    @Test
+    public void position_SameCube() {
+        Position position = new Position(2.3, 4.9, 1.0);
+        assertEquals(new Position(new int[]{2, 4, 1}), position);
+        assertEquals(new Position(new int[]{2, 4, 1}).hashCode(), position.hashCode());
+        assertEquals(CubeCoordinates.pack(2, 4, 1), position.getCube());
+        assertEquals(4, position.getCubeY());
+        assertEquals(4.9, position.getDoubleY(), 1e-9);
+        assertEquals(new Position(position.getCube()), new Position(new int[]{2, 4, 1}));
+    }
+}
@@ -0,0 +1,107 @@
+package hillbillies.model;
+
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * A class of unit tests for the distance fields to the nearest logs, boulders,
+ * workshops and enemies of a world.
+ */
+public class DistanceFieldsTest {
+
+    private World world;
+
+    @Before
+    public void setUp() {
+        // a rock floor at z == 0 split by a wall at x == 3, except for a gap at y == 4
+        int[][][] types = new int[6][6][3];
+        for (int x = 0; x < 6; x++)
+            for (int y = 0; y < 6; y++)
+                types[x][y][0] = 1;
+        for (int y = 0; y < 4; y++) {
+            types[3][y][1] = 1;
+            types[3][y][2] = 1;
+        }
+        types[5][0][1] = 3;
+        this.world = new World(types, new DefaultTerrainChangeListener());
+    }
+
+    private void placeLog(int x, int y, int z) {
+        this.world.getCube(x, y, z).setLog(new Log(new Position(new int[]{x, y, z}), this.world));
+    }
+
+    @Test
+    public void getNearestLog_FollowsDrops() {
+        Position start = new Position(new int[]{0, 0, 1});
+        assertNull(this.world.getNearestLog(start));
+        this.placeLog(4, 0, 1);
+        assertEquals(new Position(new int[]{4, 0, 1}), this.world.getNearestLog(start));
+        // nearer in a straight line, but a longer walk around the wall
+        this.placeLog(2, 5, 1);
+        this.placeLog(2, 3, 1);
+        assertEquals(new Position(new int[]{2, 3, 1}), this.world.getNearestLog(start));
+        this.world.getCube(2, 3, 1).setLog(null);
+        assertEquals(new Position(new int[]{2, 5, 1}), this.world.getNearestLog(start));
+        assertEquals(new Position(new int[]{4, 0, 1}), this.world.getNearestLog(new Position(new int[]{5, 1, 1})));
+    }
+
+    @Test
+    public void getNearestWorkshop_TerrainChange() {
+        Position start = new Position(new int[]{0, 0, 1});
+        assertEquals(new Position(new int[]{5, 0, 1}), this.world.getNearestWorkshop(start));
+        this.world.setCubeType(3, 4, 1, 1);
+        this.world.setCubeType(3, 4, 2, 1);
+        this.world.setCubeType(3, 5, 1, 1);
+        this.world.setCubeType(3, 5, 2, 1);
+        assertNull(this.world.getNearestWorkshop(start));
+        assertNull(this.world.getNearestBoulder(start));
+    }
+
+    @Test
+    public void getNearestLog_RepairsMatchRecomputation() {
+        DistanceFields fields = this.world.getDistanceFields();
+        fields.getNearestTarget(DistanceFields.LOG, 0);
+        Random random = new Random(7);
+        for (int step = 0; step < 200; step++) {
+            int x = random.nextInt(6), y = random.nextInt(6), z = 1 + random.nextInt(2);
+            if (random.nextBoolean()) {
+                if (!this.world.getCube(x, y, z).isSolid())
+                    this.placeLog(x, y, z);
+            } else if (random.nextBoolean()) {
+                this.world.getCube(x, y, z).setLog(null);
+            } else if (this.world.getLogAt(this.world.getIndex(x, y, z)) == null) {
+                this.world.setCubeType(x, y, z, this.world.getCubeType(x, y, z) == 0 ? 1 : 0);
+            }
+            DistanceFields fresh = new DistanceFields(this.world);
+            for (int index = 0; index < 6 * 6 * 3; index++)
+                assertEquals(fresh.getDistanceToTarget(DistanceFields.LOG, index),
+                        fields.getDistanceToTarget(DistanceFields.LOG, index));
+        }
+    }
+
+    @Test
+    public void getNearestEnemy_FollowsMoves() {
+        Unit hunter = new Unit("Hunter", new int[]{0, 0, 1}, 50, 50, 50, 50, false);
+        Unit prey = new Unit("Prey", new int[]{0, 5, 1}, 50, 50, 50, 50, false);
+        for (Unit unit : new Unit[]{hunter, prey}) {
+            unit.setWorld(this.world);
+            this.world.addAsUnit(unit);
+        }
+        this.world.faction1.addMember(hunter);
+        Faction others = new Faction("Others");
+        others.addMember(prey);
+        hunter.setFaction(this.world.faction1);
+        prey.setFaction(others);
+        assertSame(prey, this.world.getNearestEnemy(hunter));
+        prey.moveTo(new int[]{5, 5, 1});
+        for (int i = 0; i < 200 && !prey.getPosition().equals(new Position(new int[]{5, 5, 1})); i++)
+            this.world.advanceTime(0.1);
+        assertSame(prey, this.world.getNearestEnemy(hunter));
+        assertSame(hunter, this.world.getNearestEnemy(prey));
+    }
+}
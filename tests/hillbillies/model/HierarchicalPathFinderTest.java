@@ -0,0 +1,78 @@
+package hillbillies.model;
+
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * A class of unit tests for hierarchical path finders.
+ */
+public class HierarchicalPathFinderTest {
+
+    private World world;
+    private HierarchicalPathFinder pathFinder;
+
+    @Before
+    public void setUp() {
+        // a rock floor at z == 0, with walls at x == 10 and x == 20 that leave gaps
+        // at opposite ends
+        int[][][] types = new int[30][30][4];
+        for (int x = 0; x < 30; x++)
+            for (int y = 0; y < 30; y++)
+                types[x][y][0] = 1;
+        for (int y = 0; y < 30; y++) {
+            for (int z = 1; z < 4; z++) {
+                if (y != 29)
+                    types[10][y][z] = 1;
+                if (y != 0)
+                    types[20][y][z] = 1;
+            }
+        }
+        this.world = new World(types, new DefaultTerrainChangeListener());
+        this.pathFinder = new HierarchicalPathFinder(this.world, 4);
+    }
+
+    @Test
+    public void findPath_AcrossClusters() {
+        int[] start = {0, 0, 1};
+        int[] goal = {29, 29, 1};
+        List<int[]> path = this.pathFinder.findPath(start, goal);
+        assertNotNull(path);
+        assertValidPath(path, start, goal);
+        List<int[]> shortest = new PathFinder(this.world).findPath(start, goal);
+        assertTrue(path.size() >= shortest.size());
+    }
+
+    @Test
+    public void findPath_AfterTerrainChange() {
+        int[] start = {0, 0, 1};
+        int[] goal = {29, 29, 1};
+        assertNotNull(this.pathFinder.findPath(start, goal));
+        for (int z = 1; z < 4; z++) {
+            this.world.setCubeType(10, 29, z, 1);
+            this.pathFinder.terrainChanged(10, 29, z);
+        }
+        assertNull(this.pathFinder.findPath(start, goal));
+        this.world.setCubeType(10, 29, 1, 0);
+        this.pathFinder.terrainChanged(10, 29, 1);
+        List<int[]> path = this.pathFinder.findPath(start, goal);
+        assertNotNull(path);
+        assertValidPath(path, start, goal);
+    }
+
+    private void assertValidPath(List<int[]> path, int[] start, int[] goal) {
+        assertArrayEquals(start, path.get(0));
+        assertArrayEquals(goal, path.get(path.size() - 1));
+        for (int i = 1; i < path.size(); i++) {
+            int[] previous = path.get(i - 1);
+            int[] current = path.get(i);
+            assertEquals(1, Math.abs(previous[0] - current[0]) + Math.abs(previous[1] - current[1])
+                    + Math.abs(previous[2] - current[2]));
+            assertTrue(this.pathFinder.isStandable(current[0], current[1], current[2]));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package hillbillies.model;
+
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * A class of unit tests for path finders.
+ */
+public class PathFinderTest {
+
+    private World world;
+    private PathFinder pathFinder;
+
+    @Before
+    public void setUp() {
+        // a rock floor at z == 0, with a wall at x == 4 that leaves a gap at y == 9
+        int[][][] types = new int[10][10][4];
+        for (int x = 0; x < 10; x++)
+            for (int y = 0; y < 10; y++)
+                types[x][y][0] = 1;
+        for (int y = 0; y < 9; y++) {
+            types[4][y][1] = 1;
+            types[4][y][2] = 1;
+        }
+        this.world = new World(types, new DefaultTerrainChangeListener());
+        this.pathFinder = new PathFinder(this.world);
+    }
+
+    @Test
+    public void findPath_SameCube() {
+        List<int[]> path = this.pathFinder.findPath(new int[]{1, 1, 1}, new int[]{1, 1, 1});
+        assertEquals(1, path.size());
+        assertArrayEquals(new int[]{1, 1, 1}, path.get(0));
+    }
+
+    @Test
+    public void findPath_AroundWall() {
+        List<int[]> path = this.pathFinder.findPath(new int[]{0, 0, 1}, new int[]{8, 0, 1});
+        assertNotNull(path);
+        assertArrayEquals(new int[]{0, 0, 1}, path.get(0));
+        assertArrayEquals(new int[]{8, 0, 1}, path.get(path.size() - 1));
+        // 8 steps along x and twice 9 steps along y to pass the gap
+        assertEquals(8 + 9 + 9 + 1, path.size());
+        for (int i = 1; i < path.size(); i++) {
+            int[] previous = path.get(i - 1);
+            int[] current = path.get(i);
+            assertEquals(1, Math.abs(previous[0] - current[0]) + Math.abs(previous[1] - current[1])
+                    + Math.abs(previous[2] - current[2]));
+            assertFalse(this.world.getCube(current[0], current[1], current[2]).isSolid());
+        }
+    }
+
+    @Test
+    public void findPath_Unreachable() {
+        this.world.setCubeType(4, 9, 1, 1);
+        this.world.setCubeType(4, 9, 2, 1);
+        this.world.setCubeType(4, 9, 3, 1);
+        for (int y = 0; y < 9; y++)
+            this.world.setCubeType(4, y, 3, 1);
+        assertNull(this.pathFinder.findPath(new int[]{0, 0, 1}, new int[]{8, 0, 1}));
+    }
+
+    @Test
+    public void findPath_SolidGoal() {
+        assertNull(this.pathFinder.findPath(new int[]{0, 0, 1}, new int[]{4, 0, 1}));
+    }
+}
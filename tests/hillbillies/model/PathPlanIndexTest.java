@@ -0,0 +1,85 @@
+package hillbillies.model;
+
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * A class of unit tests for the index of the path plans of the units of a world.
+ */
+public class PathPlanIndexTest {
+
+    private Unit unit;
+    private PathPlanIndex index;
+
+    @Before
+    public void setUp() {
+        int[][][] types = new int[20][20][3];
+        for (int x = 0; x < 20; x++)
+            for (int y = 0; y < 20; y++)
+                types[x][y][0] = 1;
+        World world = new World(types, new DefaultTerrainChangeListener());
+        this.unit = world.spawnUnit(false);
+        this.index = new PathPlanIndex(20, 20, 3, UnitGrid.DEFAULT_CELL_SIZE);
+    }
+
+    private static PathPlan straightPlan(int fromX, int toX, int y) {
+        int[][] cubes = new int[toX - fromX + 1][];
+        for (int x = fromX; x <= toX; x++)
+            cubes[x - fromX] = new int[]{x, y, 1};
+        return new PathPlan(Arrays.asList(cubes));
+    }
+
+    @Test
+    public void getUnitsNear_OnlyNearThePlan() {
+        this.index.register(this.unit, straightPlan(0, 9, 2));
+        assertEquals(Collections.singleton(this.unit), this.index.getUnitsNear(5, 3, 1));
+        // the cell next to the end of the plan is looked at for cubes on its border
+        assertEquals(Collections.singleton(this.unit), this.index.getUnitsNear(12, 2, 1));
+        assertTrue(this.index.getUnitsNear(15, 15, 1).isEmpty());
+        assertTrue(this.index.getUnitsNear(5, 12, 1).isEmpty());
+    }
+
+    @Test
+    public void register_ReplacesAndRemoves() {
+        this.index.register(this.unit, straightPlan(0, 3, 2));
+        this.index.register(this.unit, straightPlan(12, 19, 18));
+        assertTrue(this.index.getUnitsNear(1, 2, 1).isEmpty());
+        assertEquals(Collections.singleton(this.unit), this.index.getUnitsNear(15, 18, 1));
+        this.index.register(this.unit, null);
+        assertTrue(this.index.getUnitsNear(15, 18, 1).isEmpty());
+        this.index.register(this.unit, straightPlan(0, 3, 2));
+        this.index.remove(this.unit);
+        assertTrue(this.index.getUnitsNear(1, 2, 1).isEmpty());
+    }
+
+    @Test
+    public void terrainChanged_WalksAroundNewWall() {
+        int[][][] types = new int[10][10][4];
+        for (int x = 0; x < 10; x++)
+            for (int y = 0; y < 10; y++)
+                types[x][y][0] = 1;
+        World world = new World(types, new DefaultTerrainChangeListener());
+        Unit walker = new Unit("Walker", new int[]{0, 5, 1}, 50, 50, 50, 50, false);
+        walker.setWorld(world);
+        world.addAsUnit(walker);
+        world.faction1.addMember(walker);
+        walker.moveTo(new int[]{8, 5, 1});
+        world.advanceTime(0.1);
+        // a wall across the straight path
+        for (int z = 1; z < 4; z++)
+            world.setCubeType(4, 5, z, 1);
+        int[] target = {8, 5, 1};
+        for (int i = 0; i < 400 && !Arrays.equals(target, walker.getPosition().getCubeCoordinates()); i++) {
+            world.advanceTime(0.1);
+            int[] cube = walker.getPosition().getCubeCoordinates();
+            assertFalse(world.getCube(cube[0], cube[1], cube[2]).isSolid());
+        }
+        assertArrayEquals(target, walker.getPosition().getCubeCoordinates());
+    }
+}
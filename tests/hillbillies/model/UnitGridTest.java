@@ -0,0 +1,77 @@
+package hillbillies.model;
+
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * A class of unit tests for the spatial index of the units of a world.
+ */
+public class UnitGridTest {
+
+    private World world;
+
+    @Before
+    public void setUp() {
+        // a rock floor at z == 0
+        int[][][] types = new int[20][20][3];
+        for (int x = 0; x < 20; x++)
+            for (int y = 0; y < 20; y++)
+                types[x][y][0] = 1;
+        this.world = new World(types, new DefaultTerrainChangeListener());
+        for (int i = 0; i < 30; i++)
+            this.world.spawnUnit(false);
+    }
+
+    @Test
+    public void getUnitsInBox_MatchesScan() {
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            double minX = random.nextDouble() * 20;
+            double minY = random.nextDouble() * 20;
+            double maxX = minX + random.nextDouble() * 8;
+            double maxY = minY + random.nextDouble() * 8;
+            Set<Unit> expected = new HashSet<>();
+            for (Unit unit : this.world.getUnits()) {
+                Position position = unit.getPosition();
+                if (minX <= position.getDoubleX() && position.getDoubleX() < maxX && minY <= position.getDoubleY()
+                        && position.getDoubleY() < maxY && 1 <= position.getDoubleZ() && position.getDoubleZ() < 2)
+                    expected.add(unit);
+            }
+            assertEquals(expected, this.world.getUnitsInBox(minX, minY, 1, maxX, maxY, 2));
+        }
+    }
+
+    @Test
+    public void getNearestUnit_AfterMoving() {
+        for (Unit unit : this.world.getUnits())
+            unit.moveTo(new int[]{0, 0, 1});
+        for (int i = 0; i < 200; i++)
+            this.world.advanceTime(0.2);
+        Position corner = new Position(new int[]{19, 19, 1});
+        Unit nearest = this.world.getNearestUnit(corner, unit -> true);
+        double best = Double.POSITIVE_INFINITY;
+        for (Unit unit : this.world.getUnits())
+            best = Math.min(best, distance(corner, unit.getPosition()));
+        assertEquals(best, distance(corner, nearest.getPosition()), 1e-9);
+        List<Unit> near = this.world.getUnitsWithin(new Position(new int[]{0, 0, 1}), 1.5);
+        for (Unit unit : this.world.getUnits())
+            assertEquals(distance(new Position(new int[]{0, 0, 1}), unit.getPosition()) <= 1.5,
+                    near.contains(unit));
+        assertNull(this.world.getNearestUnit(corner, unit -> false));
+    }
+
+    private static double distance(Position first, Position second) {
+        double dx = first.getDoubleX() - second.getDoubleX();
+        double dy = first.getDoubleY() - second.getDoubleY();
+        double dz = first.getDoubleZ() - second.getDoubleZ();
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
@@ -1,5 +1,9 @@
 package hillbillies.model;
 
+import hillbillies.model.expression.LiteralPositionExpression;
+import hillbillies.model.expression.LogicalExpression;
+import hillbillies.model.statements.StatementMoveTo;
+import hillbillies.model.statements.StatementPrint;
 import hillbillies.part2.listener.DefaultTerrainChangeListener;
 import org.junit.Before;
 import org.junit.Test;
@@ -437,4 +441,65 @@ public class UnitTest {
     public void isAlive() throws Exception {
         assertTrue(this.unit.isAlive());
     }
+
+    @Test
+    public void testDefaultBehavior_DigsWhenWalledIn() {
+        int[][][] types = new int[5][5][3];
+        for (int x = 0; x < 5; x++)
+            for (int y = 0; y < 5; y++) {
+                types[x][y][0] = 1;
+                types[x][y][1] = 1;
+            }
+        types[2][2][1] = 0;
+        World world = new World(types, new DefaultTerrainChangeListener());
+        world.setSeed(1);
+        Unit unit = new Unit("Digger", new int[]{2, 2, 1}, 50, 50, 50, 50, false);
+        unit.setWorld(world);
+        world.addAsUnit(unit);
+        world.faction1.addMember(unit);
+        unit.setDefaultBehaviorEnabled(true);
+
+        boolean dug = false;
+        for (int i = 0; i < 2000 && !dug; i++) {
+            world.advanceTime(0.1);
+            for (int dx = -1; dx <= 1; dx++)
+                for (int dy = -1; dy <= 1; dy++)
+                    if ((dx != 0 || dy != 0) && !world.getCube(2 + dx, 2 + dy, 1).isSolid())
+                        dug = true;
+        }
+        assertTrue(dug);
+    }
+
+    @Test
+    public void testTaskWithUnreachableTargetIsInterrupted() {
+        int[][][] types = new int[5][5][5];
+        for (int x = 0; x < 5; x++)
+            for (int y = 0; y < 5; y++)
+                types[x][y][0] = 1;
+        // a shaft at x=4, y=4 walled off up to the top of the world
+        for (int z = 1; z < 5; z++) {
+            types[3][4][z] = 1;
+            types[4][3][z] = 1;
+            types[3][3][z] = 1;
+        }
+        World world = new World(types, new DefaultTerrainChangeListener());
+        world.setSeed(1);
+        Unit unit = world.spawnUnit(true);
+        unit.setDefaultBehaviorEnabled(true);
+        int[] target = new int[]{4, 4, 1};
+        assertFalse(world.isReachable(unit.getPosition().getCubeCoordinates(), target));
+
+        Task task = new Task("unreachable", 10, new StatementMoveTo(new LiteralPositionExpression(target)));
+        Task other = new Task("other", 5, new StatementPrint(new LogicalExpression(true)));
+        Scheduler scheduler = unit.getFaction().getScheduler();
+        scheduler.schedule(task);
+        scheduler.schedule(other);
+        for (int i = 0; i < 3; i++)
+            world.advanceTime(0.1);
+
+        assertTrue(task.getPriority() < 10);
+        assertNull(task.getAssignedUnit());
+        assertTrue(scheduler.hasAsTask(task));
+        assertNotSame(task, unit.getAssignedTask());
+    }
 }
@@ -1,8 +1,16 @@
 package hillbillies.model;
 
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
 /**
  * Created by joppegeluykens on 25/03/16.
  */
@@ -48,11 +56,242 @@ public class WorldTest {
 
     }
 
+    @Test
+    public void testSetCubeType_FloatingRockCavesIn() throws Exception {
+        // a rock floor at z == 0, and a rock placed in mid-air above it
+        int[][][] types = new int[5][5][5];
+        for (int x = 0; x < 5; x++)
+            for (int y = 0; y < 5; y++)
+                types[x][y][0] = 1;
+        World world = new World(types, new DefaultTerrainChangeListener());
+        world.setCubeType(2, 2, 3, 1);
+        assertFalse(world.isSolidConnectedToBorder(2, 2, 3));
+        for (int i = 0; i < 50; i++)
+            world.advanceTime(0.1);
+        assertEquals(0, world.getCubeType(2, 2, 3));
+    }
+
+    @Test
+    public void testIsReachable() throws Exception {
+        // a rock floor at z == 0 split by a wall at x == 2, except for a gap at y == 4
+        int[][][] types = new int[5][5][3];
+        for (int x = 0; x < 5; x++)
+            for (int y = 0; y < 5; y++)
+                types[x][y][0] = 1;
+        for (int y = 0; y < 4; y++) {
+            types[2][y][1] = 1;
+            types[2][y][2] = 1;
+        }
+        World world = new World(types, new DefaultTerrainChangeListener());
+        assertTrue(world.isReachable(new int[]{0, 0, 1}, new int[]{4, 0, 1}));
+        world.setCubeType(2, 4, 1, 1);
+        world.setCubeType(2, 4, 2, 1);
+        assertFalse(world.isReachable(new int[]{0, 0, 1}, new int[]{4, 0, 1}));
+        assertTrue(world.isReachable(new int[]{0, 0, 1}, new int[]{1, 4, 1}));
+        world.setCubeType(2, 4, 1, 0);
+        assertTrue(world.isReachable(new int[]{0, 0, 1}, new int[]{4, 0, 1}));
+    }
+
+    @Test
+    public void testCreateFromBytes() throws Exception {
+        // a rock floor at z == 0 and a workshop on top of it, indexed x + nbX * (y + nbY * z)
+        byte[] types = new byte[4 * 3 * 2];
+        for (int i = 0; i < 4 * 3; i++)
+            types[i] = 1;
+        types[1 + 4 * (2 + 3 * 1)] = 3;
+        World world = new World(4, 3, 2, types, new DefaultTerrainChangeListener());
+        assertEquals(3, world.getNbCubesY());
+        assertEquals(1, world.getCubeType(3, 2, 0));
+        assertEquals(3, world.getCubeType(1, 2, 1));
+        world.setCubeType(0, 0, 1, 2);
+        assertEquals(2, types[0 + 4 * (0 + 3 * 1)]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateFromBytes_InvalidType() throws Exception {
+        new World(2, 1, 1, new byte[]{0, -1}, new DefaultTerrainChangeListener());
+    }
+
+    @Test
+    public void testNeighbourMask() throws Exception {
+        int[][][] types = new int[6][5][4];
+        Random random = new Random(3);
+        for (int x = 0; x < 6; x++)
+            for (int y = 0; y < 5; y++)
+                for (int z = 0; z < 4; z++)
+                    types[x][y][z] = random.nextInt(3);
+        World world = new World(types, new DefaultTerrainChangeListener());
+        for (int change = 0; change <= 30; change++) {
+            for (int x = 0; x < 6; x++) {
+                for (int y = 0; y < 5; y++) {
+                    for (int z = 0; z < 4; z++) {
+                        int[][] offsets = {{-1, 0, 0}, {1, 0, 0}, {0, -1, 0}, {0, 1, 0}, {0, 0, -1}, {0, 0, 1}};
+                        int expected = 0;
+                        for (int d = 0; d < 6; d++) {
+                            int nx = x + offsets[d][0], ny = y + offsets[d][1], nz = z + offsets[d][2];
+                            if (nx >= 0 && nx < 6 && ny >= 0 && ny < 5 && nz >= 0 && nz < 4
+                                    && world.getCube(nx, ny, nz).isSolid())
+                                expected |= 1 << d;
+                        }
+                        assertEquals(expected, world.getNeighbourMask(x, y, z));
+                        assertEquals(expected != 0 && !world.getCube(x, y, z).isSolid(),
+                                world.isStandable(x, y, z));
+                    }
+                }
+            }
+            world.setCubeType(random.nextInt(6), random.nextInt(5), random.nextInt(4), random.nextInt(3));
+        }
+    }
+
     @Test
     public void testAdvanceTime() throws Exception {
 
     }
 
+    @Test
+    public void testAdvanceTime_ParallelMatchesSequential() throws Exception {
+        World sequential = this.createBusyWorld(1);
+        World parallel = this.createBusyWorld(4);
+        for (int tick = 0; tick < 300; tick++) {
+            sequential.advanceTime(0.05);
+            parallel.advanceTime(0.05);
+        }
+        Unit[] expected = sequential.getUnits().toArray(new Unit[0]);
+        Unit[] actual = parallel.getUnits().toArray(new Unit[0]);
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].getPosition().getDoubleX(), actual[i].getPosition().getDoubleX(), 0);
+            assertEquals(expected[i].getPosition().getDoubleY(), actual[i].getPosition().getDoubleY(), 0);
+            assertEquals(expected[i].getPosition().getDoubleZ(), actual[i].getPosition().getDoubleZ(), 0);
+            assertEquals(expected[i].getCurrentHitPoints(), actual[i].getCurrentHitPoints(), 0);
+            assertEquals(expected[i].getState(), actual[i].getState());
+        }
+        for (int x = 0; x < 20; x++)
+            for (int y = 0; y < 20; y++)
+                for (int z = 0; z < 4; z++)
+                    assertEquals(sequential.getCubeType(x, y, z), parallel.getCubeType(x, y, z));
+    }
+
+    /**
+     * Returns a seeded world with a floor of rock, walled in, and scattered trees and rocks, with
+     * units acting according to their default behaviour, advancing with the given
+     * parallelism.
+     */
+    private World createBusyWorld(int parallelism) {
+        int[][][] types = new int[20][20][4];
+        Random random = new Random(7);
+        for (int x = 0; x < 20; x++) {
+            for (int y = 0; y < 20; y++) {
+                types[x][y][0] = 1;
+                if (x == 0 || y == 0 || x == 19 || y == 19)
+                    types[x][y][1] = types[x][y][2] = types[x][y][3] = 1;
+                else if (random.nextInt(6) == 0)
+                    types[x][y][1] = 1 + random.nextInt(2);
+            }
+        }
+        World world = new World(types, new DefaultTerrainChangeListener());
+        world.setSeed(11);
+        world.setParallelism(parallelism);
+        for (int i = 0; i < 60; i++)
+            world.spawnUnit(true).setDefaultBehaviorEnabled(true);
+        return world;
+    }
+
+    @Test
+    public void testSnapshot_Terrain() throws Exception {
+        // a rock floor at z == 0, in a world of two terrain chunks
+        int[][][] types = new int[20][20][20];
+        for (int x = 0; x < 20; x++)
+            for (int y = 0; y < 20; y++)
+                types[x][y][0] = 1;
+        World world = new World(types, new DefaultTerrainChangeListener());
+        world.setPublishingSnapshots(true);
+        WorldSnapshot before = world.getSnapshot();
+        assertEquals(1, before.getCubeType(3, 4, 0));
+        assertTrue(before.isSolidConnectedToBorder(3, 4, 0));
+        world.setCubeType(1, 1, 1, 1);
+        world.advanceTime(0.01);
+        WorldSnapshot after = world.getSnapshot();
+        assertNotSame(before, after);
+        assertEquals(0, before.getCubeType(1, 1, 1));
+        assertEquals(1, after.getCubeType(1, 1, 1));
+        assertTrue(after.isSolidConnectedToBorder(1, 1, 1));
+        List<String> changes = new ArrayList<>();
+        after.forEachTerrainChangeSince(before, (x, y, z) -> changes.add(x + "," + y + "," + z));
+        assertEquals(Collections.singletonList("1,1,1"), changes);
+        world.advanceTime(0.01);
+        changes.clear();
+        world.getSnapshot().forEachTerrainChangeSince(after, (x, y, z) -> changes.add(x + "," + y + "," + z));
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void testSnapshot_UnitsAndMaterials() throws Exception {
+        int[][][] types = new int[5][5][6];
+        for (int x = 0; x < 5; x++)
+            for (int y = 0; y < 5; y++)
+                types[x][y][0] = 1;
+        World world = new World(types, new DefaultTerrainChangeListener());
+        Unit unit = world.spawnUnit(false);
+        unit.setName("Idle");
+        Boulder boulder = new Boulder(new Position(new int[]{3, 3, 5}), world);
+        world.getCube(3, 3, 5).setBoulder(boulder);
+        world.addBoulder(boulder);
+        world.setPublishingSnapshots(true);
+        WorldSnapshot.UnitState state = world.getSnapshot().getState(unit);
+        assertEquals("Idle", state.getName());
+        assertEquals(5, world.getSnapshot().getPosition(boulder).getCubeZ());
+
+        world.advanceTime(0.1);
+        world.advanceTime(0.1);
+        // the idle unit keeps its state, while the falling boulder moved
+        assertSame(state, world.getSnapshot().getState(unit));
+        assertTrue(world.getSnapshot().getPosition(boulder).getDoubleZ() < 5.5);
+
+        unit.setName("Renamed");
+        world.advanceTime(0.1);
+        assertEquals("Renamed", world.getSnapshot().getState(unit).getName());
+        assertEquals("Idle", state.getName());
+        for (int i = 0; i < 30; i++)
+            world.advanceTime(0.1);
+        assertEquals(1, world.getSnapshot().getPosition(boulder).getCubeZ());
+    }
+
+    @Test
+    public void testSnapshot_ObjectsInCubes() throws Exception {
+        int[][][] types = new int[12][12][3];
+        for (int x = 0; x < 12; x++)
+            for (int y = 0; y < 12; y++)
+                types[x][y][0] = 1;
+        World world = new World(types, new DefaultTerrainChangeListener());
+        Unit near = new Unit("Near", new int[]{1, 1, 1}, 50, 50, 50, 50, false);
+        Unit far = new Unit("Far", new int[]{10, 10, 1}, 50, 50, 50, 50, false);
+        for (Unit unit : new Unit[]{near, far}) {
+            unit.setWorld(world);
+            world.addAsUnit(unit);
+            world.faction1.addMember(unit);
+        }
+        Log log = new Log(new Position(new int[]{9, 2, 1}), world);
+        world.getCube(9, 2, 1).setLog(log);
+        world.addLog(log);
+        world.setPublishingSnapshots(true);
+        world.advanceTime(0.1);
+        WorldSnapshot snapshot = world.getSnapshot();
+
+        List<Unit> units = new ArrayList<>();
+        snapshot.forEachUnitInCubes(0, 0, 0, 3, 3, 3, units::add);
+        assertEquals(Collections.singletonList(near), units);
+        units.clear();
+        snapshot.forEachUnitInCubes(10, 10, 1, 11, 11, 2, units::add);
+        assertEquals(Collections.singletonList(far), units);
+        List<Material> materials = new ArrayList<>();
+        snapshot.forEachMaterialInCubes(8, 0, 0, 12, 4, 3, (material, position) -> materials.add(material));
+        assertEquals(Collections.singletonList(log), materials);
+        materials.clear();
+        snapshot.forEachMaterialInCubes(0, 0, 0, 9, 12, 3, (material, position) -> materials.add(material));
+        assertTrue(materials.isEmpty());
+    }
+
     @Test
     public void testGetUnits() throws Exception {
 
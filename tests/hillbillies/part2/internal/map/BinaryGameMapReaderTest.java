@@ -0,0 +1,60 @@
+package hillbillies.part2.internal.map;
+
+import ogp.framework.util.internal.ResourceUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * A class of unit tests writing maps in the binary map format and reading them back,
+ * on all provided maps.
+ */
+public class BinaryGameMapReaderTest {
+
+    @Test
+    public void roundTrip_ProvidedMaps() throws Exception {
+        File[] files = new File(ResourceUtils.toURL("resources").toURI()).listFiles();
+        assertNotNull(files);
+        for (File file : files) {
+            if (!file.getName().endsWith(".wrld"))
+                continue;
+            GameMap expected = new GameMapReader().readFromFile(file.getPath());
+            for (boolean deflate : new boolean[]{true, false}) {
+                GameMap actual = read(write(expected, deflate));
+                assertEquals(file.getName(), expected.getNbTilesX(), actual.getNbTilesX());
+                assertEquals(file.getName(), expected.getNbTilesY(), actual.getNbTilesY());
+                assertEquals(file.getName(), expected.getNbTilesZ(), actual.getNbTilesZ());
+                assertArrayEquals(file.getName(), expected.getMap().getValues(), actual.getMap().getValues());
+            }
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void readFromStream_Truncated() throws Exception {
+        GameMap map = new GameMap(4, 4, 4);
+        map.getMap().fill((x, y, z) -> (byte) ((x + y + z) % 4));
+        byte[] bytes = write(map, false);
+        read(Arrays.copyOf(bytes, bytes.length - 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void readFromStream_NotBinary() throws Exception {
+        read("20 20 10\n".getBytes());
+    }
+
+    private static byte[] write(GameMap map, boolean deflate) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BinaryGameMapWriter(deflate).writeToStream(map, out);
+        return out.toByteArray();
+    }
+
+    private static GameMap read(byte[] bytes) throws Exception {
+        return new BinaryGameMapReader().readFromStream(new ByteArrayInputStream(bytes));
+    }
+}
@@ -0,0 +1,71 @@
+package hillbillies.part2.internal.map;
+
+import ogp.framework.util.internal.ResourceUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * A class of unit tests comparing the streaming map reader against the line-based
+ * map reader, on all provided maps.
+ */
+public class StreamingGameMapReaderTest {
+
+    @Test
+    public void readFromFile_MatchesGameMapReader() throws Exception {
+        File[] files = new File(ResourceUtils.toURL("resources").toURI()).listFiles();
+        assertNotNull(files);
+        int nbMaps = 0;
+        for (File file : files) {
+            if (!file.getName().endsWith(".wrld"))
+                continue;
+            GameMap expected = new GameMapReader().readFromFile(file.getPath());
+            assertSameMap(file.getName(), expected, new StreamingGameMapReader().readFromFile(file.getPath()));
+            assertSameMap(file.getName(), expected,
+                    new StreamingGameMapReader().readFromStream(new FileInputStream(file)));
+            nbMaps++;
+        }
+        assertTrue(nbMaps > 0);
+    }
+
+    @Test
+    public void readFromStream_CarriageReturns() throws Exception {
+        String text = "3 1 2\r\n\r\nRSW\r\n  \r\n..R";
+        GameMap map = read(text);
+        assertEquals(CubeType.ROCKS, map.getTypeAt(0, 0, 1));
+        assertEquals(CubeType.WORKSHOP, map.getTypeAt(2, 0, 1));
+        assertEquals(CubeType.EMPTY, map.getTypeAt(0, 0, 0));
+        assertEquals(CubeType.ROCKS, map.getTypeAt(2, 0, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void readFromStream_UnknownType() throws Exception {
+        read("2 1 1\n\nRX\n");
+    }
+
+    @Test(expected = EOFException.class)
+    public void readFromStream_MissingLayer() throws Exception {
+        read("2 1 2\n\nRR\n");
+    }
+
+    private static GameMap read(String text) throws Exception {
+        return new StreamingGameMapReader()
+                .readFromStream(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static void assertSameMap(String name, GameMap expected, GameMap actual) {
+        assertEquals(name, expected.getNbTilesX(), actual.getNbTilesX());
+        assertEquals(name, expected.getNbTilesY(), actual.getNbTilesY());
+        assertEquals(name, expected.getNbTilesZ(), actual.getNbTilesZ());
+        for (int x = 0; x < expected.getNbTilesX(); x++)
+            for (int y = 0; y < expected.getNbTilesY(); y++)
+                for (int z = 0; z < expected.getNbTilesZ(); z++)
+                    assertEquals(name, expected.getTypeAt(x, y, z), actual.getTypeAt(x, y, z));
+    }
+}
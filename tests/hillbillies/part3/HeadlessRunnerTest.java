@@ -0,0 +1,63 @@
+package hillbillies.part3;
+
+import hillbillies.model.World;
+import hillbillies.part3.facade.Facade;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class HeadlessRunnerTest {
+
+    /**
+     * A world of 4x3x2 cubes: a floor of rock with a tree and a workshop, and air above.
+     */
+    private static final String WORLD = "4 3 2\n"
+            + "\n....\n....\n....\n"
+            + "\nRRRS\nRRRR\nWRRR\n";
+
+    @Test
+    public void testReadWorld() throws Exception {
+        World world = HeadlessRunner.readWorld(new Facade(), new StringReader(WORLD));
+        assertEquals(4, world.getNbCubesX());
+        assertEquals(3, world.getNbCubesY());
+        assertEquals(2, world.getNbCubesZ());
+        assertEquals(1, world.getCubeType(0, 0, 0));
+        assertEquals(2, world.getCubeType(3, 0, 0));
+        assertEquals(3, world.getCubeType(0, 2, 0));
+        assertEquals(0, world.getCubeType(3, 0, 1));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadWorld_UnknownType() throws Exception {
+        HeadlessRunner.readWorld(new Facade(), new StringReader(WORLD.replace('S', 'X')));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromArguments_InvalidTicks() throws Exception {
+        HeadlessRunner.fromArguments(new String[]{"world.wrld", "-ticks", "many"});
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        File file = File.createTempFile("headless", ".wrld");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(WORLD);
+        }
+        HeadlessRunner runner = HeadlessRunner.fromArguments(new String[]{file.getPath(), "-units", "3",
+                "-ticks", "50", "-dt", "0.05", "-seed", "5", "-threads", "1", "-snapshots"});
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        assertTrue(runner.run(new PrintStream(report)));
+        assertEquals(3, runner.getWorld().getUnits().size());
+        assertEquals(2.5, runner.getWorld().getSnapshot().getTime(), 1e-9);
+        assertTrue(report.toString().contains("ticks      50 of 0.050 s"));
+    }
+
+}
@@ -0,0 +1,184 @@
+package hillbillies.util;
+
+import hillbillies.part2.internal.map.CubeType;
+import hillbillies.part2.internal.map.GameMap;
+import hillbillies.part2.internal.map.GameMapReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * A class of unit tests comparing ConnectedToBorder against a plain flood fill
+ * from the border of the world, on all provided maps.
+ */
+public class ConnectedToBorderTest {
+
+    private static final String[] MAPS = { "15x15x15", "20x20x10", "20x20x40", "20x40x10", "25x25x25",
+            "50x50x10", "50x50x50", "80x80x10", "80x80x80" };
+
+    private static final int NB_CHANGES = 40;
+
+    @Test
+    public void loadedMaps_MatchFloodFill() throws IOException {
+        for (String name : MAPS) {
+            GameMap map = readMap(name);
+            boolean[] solid = getSolid(map);
+            ConnectedToBorder connectedToBorder = load(map, solid);
+            assertMatchesFloodFill(name, map, solid, connectedToBorder);
+        }
+    }
+
+    @Test
+    public void bulkLoadedMaps_MatchFloodFill() throws IOException {
+        for (String name : MAPS) {
+            GameMap map = readMap(name);
+            boolean[] solid = getSolid(map);
+            ConnectedToBorder connectedToBorder = new ConnectedToBorder(map.getNbTilesX(), map.getNbTilesY(),
+                    map.getNbTilesZ(), index -> solid[index]);
+            assertMatchesFloodFill(name, map, solid, connectedToBorder);
+        }
+    }
+
+    @Test
+    public void randomChanges_MatchFloodFill() throws IOException {
+        assertRandomChangesMatchFloodFill(false);
+    }
+
+    @Test
+    public void randomChangesAfterBulkLoad_MatchFloodFill() throws IOException {
+        assertRandomChangesMatchFloodFill(true);
+    }
+
+    private static void assertRandomChangesMatchFloodFill(boolean bulk) throws IOException {
+        Random random = new Random(42);
+        for (String name : MAPS) {
+            GameMap map = readMap(name);
+            boolean[] solid = getSolid(map);
+            boolean[] initial = solid.clone();
+            ConnectedToBorder connectedToBorder = bulk ? new ConnectedToBorder(map.getNbTilesX(),
+                    map.getNbTilesY(), map.getNbTilesZ(), index -> initial[index]) : load(map, solid);
+            int nbX = map.getNbTilesX();
+            int nbY = map.getNbTilesY();
+            int nbZ = map.getNbTilesZ();
+            for (int change = 0; change < NB_CHANGES; change++) {
+                int x = random.nextInt(nbX);
+                int y = random.nextInt(nbY);
+                int z = random.nextInt(nbZ);
+                int index = x + y * nbX + z * nbX * nbY;
+                boolean[] before = floodFill(map, solid);
+                List<int[]> reported;
+                if (solid[index]) {
+                    solid[index] = false;
+                    reported = connectedToBorder.changeSolidToPassable(x, y, z);
+                } else {
+                    solid[index] = true;
+                    reported = connectedToBorder.changePassableToSolid(x, y, z);
+                }
+                boolean[] after = floodFill(map, solid);
+                Set<Integer> expected = new HashSet<>();
+                for (int i = 0; i < solid.length; i++) {
+                    if (solid[i] && before[i] != after[i]) {
+                        expected.add(i);
+                    }
+                }
+                Set<Integer> actual = new HashSet<>();
+                for (int[] coordinate : reported) {
+                    actual.add(coordinate[0] + coordinate[1] * nbX + coordinate[2] * nbX * nbY);
+                }
+                assertEquals(name + ", change " + change, expected, actual);
+                assertMatchesFloodFill(name + ", change " + change, map, solid, connectedToBorder);
+            }
+        }
+    }
+
+    private static GameMap readMap(String name) throws IOException {
+        return new GameMapReader().readFromResource("resources/" + name + ".wrld");
+    }
+
+    private static boolean[] getSolid(GameMap map) {
+        int nbX = map.getNbTilesX();
+        int nbY = map.getNbTilesY();
+        boolean[] solid = new boolean[nbX * nbY * map.getNbTilesZ()];
+        for (int z = 0; z < map.getNbTilesZ(); z++) {
+            for (int y = 0; y < nbY; y++) {
+                for (int x = 0; x < nbX; x++) {
+                    CubeType type = map.getTypeAt(x, y, z);
+                    solid[x + y * nbX + z * nbX * nbY] = type == CubeType.ROCKS || type == CubeType.TREES;
+                }
+            }
+        }
+        return solid;
+    }
+
+    private static ConnectedToBorder load(GameMap map, boolean[] solid) {
+        int nbX = map.getNbTilesX();
+        int nbY = map.getNbTilesY();
+        ConnectedToBorder connectedToBorder = new ConnectedToBorder(nbX, nbY, map.getNbTilesZ());
+        for (int index = 0; index < solid.length; index++) {
+            if (!solid[index]) {
+                connectedToBorder.changeSolidToPassable(index % nbX, (index / nbX) % nbY, index / (nbX * nbY));
+            }
+        }
+        return connectedToBorder;
+    }
+
+    /**
+     * Returns, for every cube, whether it is solid and connected to the border,
+     * using a flood fill from all solid border cubes.
+     */
+    private static boolean[] floodFill(GameMap map, boolean[] solid) {
+        int nbX = map.getNbTilesX();
+        int nbY = map.getNbTilesY();
+        int nbZ = map.getNbTilesZ();
+        boolean[] connected = new boolean[solid.length];
+        int[] queue = new int[solid.length];
+        int tail = 0;
+        for (int index = 0; index < solid.length; index++) {
+            int x = index % nbX;
+            int y = (index / nbX) % nbY;
+            int z = index / (nbX * nbY);
+            boolean border = x == 0 || x == nbX - 1 || y == 0 || y == nbY - 1 || z == 0 || z == nbZ - 1;
+            if (border && solid[index]) {
+                connected[index] = true;
+                queue[tail++] = index;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int index = queue[head];
+            int x = index % nbX;
+            int y = (index / nbX) % nbY;
+            int z = index / (nbX * nbY);
+            int[] neighbours = {
+                    x > 0 ? index - 1 : -1, x < nbX - 1 ? index + 1 : -1,
+                    y > 0 ? index - nbX : -1, y < nbY - 1 ? index + nbX : -1,
+                    z > 0 ? index - nbX * nbY : -1, z < nbZ - 1 ? index + nbX * nbY : -1 };
+            for (int neighbour : neighbours) {
+                if (neighbour >= 0 && solid[neighbour] && !connected[neighbour]) {
+                    connected[neighbour] = true;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        return connected;
+    }
+
+    private static void assertMatchesFloodFill(String message, GameMap map, boolean[] solid,
+                                               ConnectedToBorder connectedToBorder) {
+        int nbX = map.getNbTilesX();
+        int nbY = map.getNbTilesY();
+        boolean[] expected = floodFill(map, solid);
+        for (int index = 0; index < solid.length; index++) {
+            int x = index % nbX;
+            int y = (index / nbX) % nbY;
+            int z = index / (nbX * nbY);
+            assertEquals(message + " at (" + x + "," + y + "," + z + ")", expected[index],
+                    connectedToBorder.isSolidConnectedToBorder(x, y, z));
+        }
+    }
+}